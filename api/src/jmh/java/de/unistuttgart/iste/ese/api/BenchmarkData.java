@@ -0,0 +1,146 @@
+package de.unistuttgart.iste.ese.api;
+
+import de.unistuttgart.iste.ese.api.DTOs.TodoDTO;
+import de.unistuttgart.iste.ese.api.Models.Assignee;
+import de.unistuttgart.iste.ese.api.Models.ToDo;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates reproducible, realistic input data for the benchmarks: titles mixing model
+ * vocabulary with everyday words, punctuation and case variants, and todos with a
+ * configurable number of assignees.
+ */
+public final class BenchmarkData {
+    private static final String[] MODEL_WORDS = {
+        "budget", "review", "book", "club", "meeting", "product", "launch", "planning", "car", "maintenance",
+        "network", "team", "project", "deadline", "sales", "annual", "report", "preparation", "dentist",
+        "appointment", "gardening", "house", "cleaning", "family", "dinner", "performance", "birthday",
+        "party", "weekend", "getaway", "gym", "session", "marketing", "strategy", "grocery", "shopping",
+        "client", "presentation"
+    };
+    private static final String[] OTHER_WORDS = {
+        "call", "mom", "buy", "new", "fix", "write", "the", "for", "with", "and", "q3", "tomorrow",
+        "prepare", "slides", "email", "to", "bob", "tickets", "order", "pick", "up", "kids"
+    };
+    private static final String[] DECORATIONS = {"", "", "", "", ",", "!", "?", ":", "\"", "'s"};
+
+    private BenchmarkData() {}
+
+    /**
+     * Generates titles of one to eight words.
+     *
+     * @param count The number of titles
+     * @param seed  The random seed
+     * @return The titles
+     */
+    public static List<String> titles(int count, long seed) {
+        Random random = new Random(seed);
+        List<String> titles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            titles.add(title(random));
+        }
+        return titles;
+    }
+
+    /**
+     * Generates assignees with university addresses.
+     *
+     * @param count The number of assignees
+     * @return The assignees with IDs 1..count
+     */
+    public static List<Assignee> assignees(int count) {
+        List<Assignee> assignees = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Assignee assignee = new Assignee("Pre" + i, "Name" + i, "person" + i + "@iste.uni-stuttgart.de");
+            assignee.setId((long) i);
+            assignees.add(assignee);
+        }
+        return assignees;
+    }
+
+    /**
+     * Generates todo entities, each with the same number of assignees taken from a shared pool.
+     *
+     * @param count             The number of todos
+     * @param assigneesPerTodo  The number of assignees of each todo
+     * @param seed              The random seed
+     * @return The todos with IDs 1..count
+     */
+    public static List<ToDo> todos(int count, int assigneesPerTodo, long seed) {
+        Random random = new Random(seed);
+        List<Assignee> pool = assignees(Math.max(assigneesPerTodo * 4, 1));
+        List<ToDo> todos = new ArrayList<>(count);
+        long now = System.currentTimeMillis();
+        for (int i = 1; i <= count; i++) {
+            List<Assignee> assignees = new ArrayList<>(assigneesPerTodo);
+            int offset = random.nextInt(pool.size());
+            for (int a = 0; a < assigneesPerTodo; a++) {
+                assignees.add(pool.get((offset + a) % pool.size()));
+            }
+            boolean finished = random.nextInt(3) == 0;
+            ToDo todo = new ToDo(
+                title(random),
+                random.nextBoolean() ? "Description of todo " + i + ", with \"details\"" : null,
+                finished,
+                assignees,
+                new Date(now - random.nextInt(1_000_000_000)),
+                random.nextBoolean() ? new Date(now + random.nextInt(1_000_000_000)) : null,
+                finished ? new Date(now) : null,
+                random.nextBoolean() ? "work" : "private"
+            );
+            todo.setId((long) i);
+            todos.add(todo);
+        }
+        return todos;
+    }
+
+    /**
+     * Generates todo DTOs as returned by the API.
+     *
+     * @param count             The number of todos
+     * @param assigneesPerTodo  The number of assignees of each todo
+     * @param seed              The random seed
+     * @return The todo DTOs
+     */
+    public static List<TodoDTO> todoDTOs(int count, int assigneesPerTodo, long seed) {
+        List<TodoDTO> dtos = new ArrayList<>(count);
+        for (ToDo todo : todos(count, assigneesPerTodo, seed)) {
+            dtos.add(new TodoDTO(
+                todo.getId(),
+                todo.getTitle(),
+                todo.getDescription(),
+                todo.isFinished(),
+                null,
+                todo.getAssigneeList(),
+                todo.getCreatedDate().getTime(),
+                todo.getDueDate() != null ? todo.getDueDate().getTime() : null,
+                todo.getFinishedDate() != null ? todo.getFinishedDate().getTime() : null,
+                todo.getCategory(),
+                0L
+            ));
+        }
+        return dtos;
+    }
+
+    private static String title(Random random) {
+        StringBuilder title = new StringBuilder();
+        int words = 1 + random.nextInt(8);
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                title.append(' ');
+            }
+            String word = random.nextInt(3) == 0
+                ? OTHER_WORDS[random.nextInt(OTHER_WORDS.length)]
+                : MODEL_WORDS[random.nextInt(MODEL_WORDS.length)];
+            if (w == 0 || random.nextInt(6) == 0) {
+                word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+            }
+            title.append(word).append(DECORATIONS[random.nextInt(DECORATIONS.length)]);
+        }
+        return title.toString();
+    }
+}
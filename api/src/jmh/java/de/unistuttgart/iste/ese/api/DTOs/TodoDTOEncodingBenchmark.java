@@ -0,0 +1,106 @@
+package de.unistuttgart.iste.ese.api.DTOs;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import de.unistuttgart.iste.ese.api.BenchmarkData;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the encodings offered for {@link TodoDTO} lists by content negotiation:
+ * encoding and decoding time, and the payload size of each encoding as the
+ * {@code size:bytes} counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TodoDTOEncodingBenchmark {
+
+    @Param({"50", "1000"})
+    public int todoCount;
+
+    @Param({"3"})
+    public int assigneesPerTodo;
+
+    @Param({"json-pretty", "json", "smile", "cbor"})
+    public String encoding;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private List<TodoDTO> todos;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        // configured like the converters of ContentNegotiationConfig
+        ObjectMapper mapper = switch (encoding) {
+            case "json-pretty", "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile()
+                .factory(SmileFactory.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build())
+                .build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            default -> throw new IllegalArgumentException(encoding);
+        };
+        writer = encoding.equals("json-pretty")
+            ? mapper.writer().with(SerializationFeature.INDENT_OUTPUT)
+            : mapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        reader = mapper.readerFor(new TypeReference<List<TodoDTO>>() {});
+        todos = BenchmarkData.todoDTOs(todoCount, assigneesPerTodo, 42);
+        encoded = writer.writeValueAsBytes(todos);
+    }
+
+    /**
+     * The payload size, reported as a counter of {@link #size(Payload)}.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Payload {
+        public long bytes;
+    }
+
+    @Benchmark
+    public void encode() throws IOException {
+        writer.writeValue(OutputStream.nullOutputStream(), todos);
+    }
+
+    /**
+     * Measures the payload size. Counters are summed over the iterations, so this runs
+     * exactly once; its time is not meaningful.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public void size(Payload payload) throws IOException {
+        payload.bytes = writer.writeValueAsBytes(todos).length;
+    }
+
+    @Benchmark
+    public List<TodoDTO> decode() throws IOException {
+        return reader.readValue(encoded);
+    }
+}
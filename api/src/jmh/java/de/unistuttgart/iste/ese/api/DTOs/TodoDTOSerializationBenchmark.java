@@ -0,0 +1,63 @@
+package de.unistuttgart.iste.ese.api.DTOs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import de.unistuttgart.iste.ese.api.BenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the Jackson serialization of {@link TodoDTO} lists as sent by GET /todos,
+ * with the application's pretty-printing and without it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TodoDTOSerializationBenchmark {
+
+    @Param({"50", "1000"})
+    public int todoCount;
+
+    @Param({"0", "3", "20"})
+    public int assigneesPerTodo;
+
+    @Param({"true", "false"})
+    public boolean indentOutput;
+
+    private ObjectWriter writer;
+    private List<TodoDTO> todos;
+
+    @Setup
+    public void setup() {
+        // configured like Spring Boot's ObjectMapper
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = indentOutput
+            ? mapper.writer().with(SerializationFeature.INDENT_OUTPUT)
+            : mapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        todos = BenchmarkData.todoDTOs(todoCount, assigneesPerTodo, 42);
+    }
+
+    @Benchmark
+    public void serialize() throws IOException {
+        writer.writeValue(OutputStream.nullOutputStream(), todos);
+    }
+}
@@ -0,0 +1,63 @@
+package de.unistuttgart.iste.ese.api.Models;
+
+import de.unistuttgart.iste.ese.api.BenchmarkData;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link TodoModel#predictClass} per engine, for titles served from the
+ * prediction cache and for titles that always miss it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TodoModelBenchmark {
+    private static final int TITLE_COUNT = 1024;
+
+    @Param({"compiled", "jpmml"})
+    public String engine;
+
+    private TodoModel model;
+    private List<String> titles;
+    private int next;
+    private long unique;
+
+    @Setup
+    public void setup() {
+        model = new TodoModel(TITLE_COUNT * 4, new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+        ReflectionTestUtils.setField(model, "engine", engine);
+        ReflectionTestUtils.setField(model, "verificationSamples", 1000);
+        model.loadModel();
+        titles = BenchmarkData.titles(TITLE_COUNT, 42);
+        titles.forEach(model::predictClass);
+    }
+
+    @Benchmark
+    public String predictCached() {
+        return model.predictClass(titles.get(next++ & (TITLE_COUNT - 1)));
+    }
+
+    @Benchmark
+    public String predictUncached() {
+        // a unique suffix defeats the cache, the trailing number is not a model term
+        return model.predictClass(titles.get(next++ & (TITLE_COUNT - 1)) + " " + unique++);
+    }
+}
@@ -0,0 +1,82 @@
+package de.unistuttgart.iste.ese.api.Services;
+
+import de.unistuttgart.iste.ese.api.BenchmarkData;
+import de.unistuttgart.iste.ese.api.DTOs.TodoDTO;
+import de.unistuttgart.iste.ese.api.Models.ToDo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-todo hot paths of {@link ToDoService}: entity to DTO conversion and
+ * CSV formatting, for a page of todos with different assignee fan-outs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ToDoServiceBenchmark {
+    private static final int PAGE_SIZE = 500;
+
+    @Param({"0", "3", "20"})
+    public int assigneesPerTodo;
+
+    private ToDoService service;
+    private List<ToDo> todos;
+    private List<TodoDTO> dtos;
+    private Writer writer;
+
+    @Setup
+    public void setup() {
+        // the measured methods use no injected dependencies
+        service = new ToDoService();
+        todos = BenchmarkData.todos(PAGE_SIZE, assigneesPerTodo, 42);
+        dtos = BenchmarkData.todoDTOs(PAGE_SIZE, assigneesPerTodo, 42);
+        // same writer stack as the export, without the network
+        writer = new BufferedWriter(new OutputStreamWriter(OutputStream.nullOutputStream(), StandardCharsets.UTF_8),
+            64 * 1024);
+    }
+
+    @Benchmark
+    public void convertToDTO(Blackhole blackhole) {
+        for (ToDo todo : todos) {
+            blackhole.consume(service.convertToDTO(todo));
+        }
+    }
+
+    @Benchmark
+    public void appendTodoToCSV() throws IOException {
+        for (TodoDTO dto : dtos) {
+            service.appendTodoToCSV(writer, dto);
+        }
+        writer.flush();
+    }
+
+    @Benchmark
+    public void skipCSV(Blackhole blackhole) {
+        for (TodoDTO dto : dtos) {
+            blackhole.consume(service.skipCSV(dto.getTitle()));
+            blackhole.consume(service.skipCSV(dto.getDescription()));
+        }
+    }
+}
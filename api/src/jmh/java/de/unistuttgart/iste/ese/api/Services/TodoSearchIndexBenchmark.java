@@ -0,0 +1,54 @@
+package de.unistuttgart.iste.ese.api.Services;
+
+import de.unistuttgart.iste.ese.api.BenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures queries against the in-memory search index. The generated titles use a small
+ * vocabulary, so every term matches a large share of the todos, which is the worst case
+ * for the posting list intersection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class TodoSearchIndexBenchmark {
+
+    @Param({"10000", "300000"})
+    public int todoCount;
+
+    @Param({"budget", "annual report", "Client presentation, tomorrow!", "unknown"})
+    public String query;
+
+    private TodoSearchIndex index;
+
+    @Setup
+    public void setup() {
+        index = new TodoSearchIndex();
+        List<String> titles = BenchmarkData.titles(todoCount, 42);
+        List<String> descriptions = BenchmarkData.titles(todoCount, 43);
+        for (int i = 0; i < todoCount; i++) {
+            index.put(i + 1, titles.get(i), descriptions.get(i));
+        }
+    }
+
+    @Benchmark
+    public List<Long> search() {
+        return index.search(query, SearchService.DEFAULT_LIMIT);
+    }
+}
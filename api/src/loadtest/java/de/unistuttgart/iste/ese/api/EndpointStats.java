@@ -0,0 +1,77 @@
+package de.unistuttgart.iste.ese.api;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects the latencies of one endpoint during a load test run. All samples are kept,
+ * so the percentiles are exact; a run of a few minutes produces a few megabytes.
+ */
+final class EndpointStats {
+    private final String name;
+    private long[] latencies = new long[1024];
+    private int count;
+    private int errors;
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records one request.
+     *
+     * @param latencyNanos The time from the scheduled start to the complete response
+     * @param success      Whether the response had a 2xx status
+     */
+    synchronized void record(long latencyNanos, boolean success) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyNanos;
+        if (!success) {
+            errors++;
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Summarizes the recorded requests.
+     *
+     * @param durationNanos The length of the measurement
+     * @return count, errors, throughput (requests/s) and p50/p95/p99/max (ms), in this order
+     */
+    synchronized Map<String, Object> summarize(long durationNanos) {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", count);
+        summary.put("errors", errors);
+        summary.put("throughput", round(count / (durationNanos / 1e9)));
+        summary.put("p50", millis(percentile(sorted, 0.50)));
+        summary.put("p95", millis(percentile(sorted, 0.95)));
+        summary.put("p99", millis(percentile(sorted, 0.99)));
+        summary.put("max", millis(sorted.length > 0 ? sorted[sorted.length - 1] : 0));
+        return summary;
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        // nearest-rank method
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(rank - 1, 0)];
+    }
+
+    private static double millis(long nanos) {
+        return round(nanos / 1e6);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
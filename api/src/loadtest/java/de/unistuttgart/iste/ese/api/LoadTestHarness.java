@@ -0,0 +1,419 @@
+package de.unistuttgart.iste.ese.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load test. Boots the application on the embedded H2 database of the test
+ * resources, seeds assignees and todos, drives a weighted mix of API calls at a fixed
+ * concurrency and rate, and reports throughput and latency percentiles per endpoint
+ * to the console and as JSON. Exits with status 1 if a latency budget is exceeded.
+ * <p>
+ * Requests are scheduled at fixed intervals and their latency is measured from the
+ * scheduled start, so a stalled server shows up in the percentiles instead of only
+ * lowering the request rate.
+ * <p>
+ * Run with {@code ./mvnw -Ploadtest verify -DskipTests}; see the profile in pom.xml
+ * for the available {@code loadtest.*} properties.
+ */
+public final class LoadTestHarness {
+    private static final String[] WORDS = {
+        "budget", "review", "book", "club", "meeting", "product", "launch", "car", "team", "project",
+        "deadline", "report", "dentist", "appointment", "gardening", "family", "dinner", "birthday",
+        "party", "gym", "grocery", "shopping", "client", "presentation", "call", "mom", "buy", "fix"
+    };
+    private static final int SEED_BATCH_SIZE = 500;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+    private final List<Long> todoIds = Collections.synchronizedList(new ArrayList<>());
+    private final List<Long> assigneeIds = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong assigneeCounter = new AtomicLong();
+
+    private final String baseUrl;
+    private final Map<String, Integer> mix;
+    private final int mixTotal;
+    private final String listQuery;
+
+    private LoadTestHarness(String baseUrl, Map<String, Integer> mix, String listQuery) {
+        this.baseUrl = baseUrl;
+        this.mix = mix;
+        this.mixTotal = mix.values().stream().mapToInt(Integer::intValue).sum();
+        this.listQuery = listQuery;
+        for (String endpoint : List.of("create", "get", "toggle", "list", "csv", "deleteAssignee", "createAssignee")) {
+            stats.put(endpoint, new EndpointStats(endpoint));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int assignees = Integer.getInteger("loadtest.assignees", 50);
+        int todos = Integer.getInteger("loadtest.todos", 5000);
+        int concurrency = Integer.getInteger("loadtest.concurrency", 32);
+        int rate = Integer.getInteger("loadtest.rate", 200);
+        int warmupSeconds = Integer.getInteger("loadtest.warmup", 10);
+        int durationSeconds = Integer.getInteger("loadtest.duration", 60);
+        String mix = System.getProperty("loadtest.mix", "create=20,toggle=30,list=40,csv=5,deleteAssignee=5");
+        String listQuery = System.getProperty("loadtest.list-query", "limit=50");
+        String budgets = System.getProperty("loadtest.budgets", "");
+        String output = System.getProperty("loadtest.output", "target/loadtest-result.json");
+
+        // DevTools would run the application in a restarted thread, which swallows failures
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        List<String> arguments = new ArrayList<>(List.of(
+            "--server.port=0",
+            // the test resources also set a context path, which would double the /api/v1 prefix;
+            // passed as arguments, since default properties do not override application.properties
+            "--server.servlet.context-path=",
+            "--logging.level.web=WARN"));
+        arguments.addAll(Arrays.asList(args));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+            .run(arguments.toArray(new String[0]));
+        List<String> violations;
+        try {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            LoadTestHarness loadTest = new LoadTestHarness("http://localhost:" + port + "/api/v1", parseMix(mix),
+                listQuery);
+
+            System.out.printf("Seeding %d assignees and %d todos...%n", assignees, todos);
+            loadTest.seed(assignees, todos);
+
+            System.out.printf("Warming up for %d s...%n", warmupSeconds);
+            loadTest.drive(concurrency, rate, warmupSeconds, false);
+            System.out.printf("Measuring for %d s at concurrency %d and %s...%n",
+                durationSeconds, concurrency, rate > 0 ? rate + " requests/s" : "maximum rate");
+            long duration = loadTest.drive(concurrency, rate, durationSeconds, true);
+
+            Map<String, Map<String, Object>> summaries = loadTest.summarize(duration);
+            violations = checkBudgets(summaries, budgets);
+            printReport(summaries, violations);
+
+            ObjectNode result = loadTest.objectMapper.createObjectNode();
+            ObjectNode config = result.putObject("config");
+            config.put("assignees", assignees);
+            config.put("todos", todos);
+            config.put("concurrency", concurrency);
+            config.put("rate", rate);
+            config.put("warmupSeconds", warmupSeconds);
+            config.put("durationSeconds", durationSeconds);
+            config.put("mix", mix);
+            config.put("budgets", budgets);
+            result.set("endpoints", loadTest.objectMapper.valueToTree(summaries));
+            ArrayNode violationsNode = result.putArray("budgetViolations");
+            violations.forEach(violationsNode::add);
+            File outputFile = new File(output);
+            if (outputFile.getParentFile() != null) {
+                outputFile.getParentFile().mkdirs();
+            }
+            loadTest.objectMapper.writer().with(SerializationFeature.INDENT_OUTPUT).writeValue(outputFile, result);
+            System.out.println("Results written to " + outputFile.getAbsolutePath());
+        } finally {
+            context.close();
+        }
+        System.exit(violations.isEmpty() ? 0 : 1);
+    }
+
+    /**
+     * Creates the assignees one by one and the todos with the batch endpoint.
+     */
+    private void seed(int assignees, int todos) throws IOException, InterruptedException {
+        for (int i = 0; i < assignees; i++) {
+            HttpResponse<String> response = sendExpectingSuccess(post("/assignees", assigneeJson()));
+            assigneeIds.add(objectMapper.readTree(response.body()).get("id").asLong());
+        }
+
+        Random random = new Random(42);
+        for (int from = 0; from < todos; from += SEED_BATCH_SIZE) {
+            ArrayNode batch = objectMapper.createArrayNode();
+            for (int i = from; i < Math.min(from + SEED_BATCH_SIZE, todos); i++) {
+                batch.add(todoJson(random));
+            }
+            HttpResponse<String> response = sendExpectingSuccess(post("/todos/batch", batch.toString()));
+            for (JsonNode item : objectMapper.readTree(response.body())) {
+                if (item.has("todo")) {
+                    todoIds.add(item.get("todo").get("id").asLong());
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the mix for a fixed time.
+     *
+     * @param record Whether to record the latencies
+     * @return The length of the run in nanoseconds
+     */
+    private long drive(int concurrency, int rate, int seconds, boolean record) throws InterruptedException {
+        long intervalNanos = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicLong sequence = new AtomicLong();
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            workers.submit(() -> {
+                while (true) {
+                    long scheduled = rate > 0 ? start + sequence.getAndIncrement() * intervalNanos : System.nanoTime();
+                    if (scheduled >= end) {
+                        return;
+                    }
+                    long wait;
+                    while ((wait = scheduled - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    try {
+                        runOperation(pickOperation(), scheduled, record);
+                    } catch (IOException e) {
+                        System.err.println("Request failed: " + e.getMessage());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+        return System.nanoTime() - start;
+    }
+
+    private String pickOperation() {
+        int pick = ThreadLocalRandom.current().nextInt(mixTotal);
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            pick -= entry.getValue();
+            if (pick < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty mix");
+    }
+
+    private void runOperation(String operation, long scheduled, boolean record) throws IOException, InterruptedException {
+        switch (operation) {
+            case "create" -> timed("create", post("/todos", todoJson(ThreadLocalRandom.current()).toString()),
+                scheduled, record, response -> todoIds.add(objectMapper.readTree(response.body()).get("id").asLong()));
+            case "toggle" -> toggle(scheduled, record);
+            case "list" -> timed("list", get("/todos?" + listQuery), scheduled, record, null);
+            case "csv" -> timed("csv", get("/csv-downloads/todos"), scheduled, record, null);
+            case "deleteAssignee" -> replaceAssignee(scheduled, record);
+            default -> throw new IllegalArgumentException("Unknown operation in mix: " + operation);
+        }
+    }
+
+    /**
+     * Reads a random todo and writes it back with the finished flag flipped.
+     */
+    private void toggle(long scheduled, boolean record) throws IOException, InterruptedException {
+        long id = randomElement(todoIds);
+        HttpResponse<String> response = timed("get", get("/todos/" + id), scheduled, record, null);
+        if (response.statusCode() != 200) {
+            return;
+        }
+        JsonNode todo = objectMapper.readTree(response.body());
+        ObjectNode update = objectMapper.createObjectNode();
+        update.put("title", todo.get("title").asText());
+        if (todo.hasNonNull("description")) {
+            update.put("description", todo.get("description").asText());
+        }
+        update.put("finished", !todo.get("finished").asBoolean());
+        ArrayNode assignees = update.putArray("assigneeIdList");
+        for (JsonNode assignee : todo.path("assigneeList")) {
+            assignees.add(assignee.get("id").asLong());
+        }
+        timed("toggle", put("/todos/" + id, update.toString()), System.nanoTime(), record, null);
+    }
+
+    /**
+     * Deletes a random assignee and creates a new one, so the pool keeps its size.
+     */
+    private void replaceAssignee(long scheduled, boolean record) throws IOException, InterruptedException {
+        Long id = null;
+        synchronized (assigneeIds) {
+            if (assigneeIds.size() > 1) {
+                id = assigneeIds.remove(ThreadLocalRandom.current().nextInt(assigneeIds.size()));
+            }
+        }
+        if (id != null) {
+            timed("deleteAssignee", delete("/assignees/" + id), scheduled, record, null);
+        }
+        timed("createAssignee", post("/assignees", assigneeJson()), System.nanoTime(), record,
+            response -> assigneeIds.add(objectMapper.readTree(response.body()).get("id").asLong()));
+    }
+
+    private interface ResponseHandler {
+        void handle(HttpResponse<String> response) throws IOException;
+    }
+
+    private HttpResponse<String> timed(String endpoint, HttpRequest request, long start, boolean record,
+                                       ResponseHandler onSuccess) throws IOException, InterruptedException {
+        HttpResponse<String> response = send(request);
+        long latency = System.nanoTime() - start;
+        boolean success = response.statusCode() / 100 == 2;
+        if (record) {
+            stats.get(endpoint).record(latency, success);
+        }
+        if (success && onSuccess != null) {
+            onSuccess.handle(response);
+        }
+        return response;
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Sends a request that has to succeed, like the seeding requests.
+     */
+    private HttpResponse<String> sendExpectingSuccess(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = send(request);
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException(request.uri() + " responded with " + response.statusCode());
+        }
+        return response;
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json))
+            .build();
+    }
+
+    private HttpRequest put(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .header("Content-Type", "application/json")
+            .PUT(HttpRequest.BodyPublishers.ofString(json))
+            .build();
+    }
+
+    private HttpRequest delete(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).DELETE().build();
+    }
+
+    private String assigneeJson() {
+        long n = assigneeCounter.incrementAndGet();
+        ObjectNode assignee = objectMapper.createObjectNode();
+        assignee.put("prename", "Load");
+        assignee.put("name", "Tester " + n);
+        assignee.put("email", "load.tester." + n + "@iste.uni-stuttgart.de");
+        return assignee.toString();
+    }
+
+    private ObjectNode todoJson(Random random) {
+        StringBuilder title = new StringBuilder();
+        int words = 1 + random.nextInt(6);
+        for (int i = 0; i < words; i++) {
+            title.append(i > 0 ? " " : "").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        ObjectNode todo = objectMapper.createObjectNode();
+        todo.put("title", title.toString());
+        todo.put("description", random.nextBoolean() ? "Generated by the load test, with a comma" : null);
+        Set<Long> assignees = new HashSet<>();
+        int count = random.nextInt(3);
+        synchronized (assigneeIds) {
+            for (int i = 0; i < count && !assigneeIds.isEmpty(); i++) {
+                assignees.add(assigneeIds.get(random.nextInt(assigneeIds.size())));
+            }
+        }
+        ArrayNode assigneeIdList = todo.putArray("assigneeIdList");
+        assignees.forEach(assigneeIdList::add);
+        return todo;
+    }
+
+    private static long randomElement(List<Long> list) {
+        synchronized (list) {
+            return list.get(ThreadLocalRandom.current().nextInt(list.size()));
+        }
+    }
+
+    private Map<String, Map<String, Object>> summarize(long durationNanos) {
+        Map<String, Map<String, Object>> summaries = new LinkedHashMap<>();
+        for (EndpointStats endpoint : stats.values()) {
+            Map<String, Object> summary = endpoint.summarize(durationNanos);
+            if ((int) summary.get("count") > 0) {
+                summaries.put(endpoint.getName(), summary);
+            }
+        }
+        return summaries;
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] weight = part.trim().split("=");
+            weights.put(weight[0].trim(), Integer.parseInt(weight[1].trim()));
+        }
+        return weights;
+    }
+
+    /**
+     * Checks budgets like {@code list.p99=50,create.errors=0} against the summaries.
+     *
+     * @return A description of every exceeded budget
+     */
+    private static List<String> checkBudgets(Map<String, Map<String, Object>> summaries, String budgets) {
+        List<String> violations = new ArrayList<>();
+        if (budgets.isBlank()) {
+            return violations;
+        }
+        for (String budget : budgets.split(",")) {
+            String[] parts = budget.trim().split("=");
+            String[] key = parts[0].trim().split("\\.");
+            double limit = Double.parseDouble(parts[1].trim());
+            Map<String, Object> summary = summaries.get(key[0]);
+            Object value = summary != null ? summary.get(key[1]) : null;
+            if (value == null) {
+                violations.add(String.format("%s: no measurement", parts[0].trim()));
+            } else if (((Number) value).doubleValue() > limit) {
+                violations.add(String.format("%s: %s exceeds budget %s", parts[0].trim(), value, parts[1].trim()));
+            }
+        }
+        return violations;
+    }
+
+    private static void printReport(Map<String, Map<String, Object>> summaries, List<String> violations) {
+        System.out.printf("%n%-16s %8s %7s %10s %9s %9s %9s %9s%n",
+            "endpoint", "count", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        summaries.forEach((endpoint, summary) -> System.out.printf("%-16s %8d %7d %10.2f %9.2f %9.2f %9.2f %9.2f%n",
+            endpoint, summary.get("count"), summary.get("errors"), summary.get("throughput"),
+            summary.get("p50"), summary.get("p95"), summary.get("p99"), summary.get("max")));
+        if (violations.isEmpty()) {
+            System.out.println("\nAll latency budgets met.");
+        } else {
+            System.out.println("\nLatency budgets exceeded:");
+            violations.forEach(violation -> System.out.println("  " + violation));
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package de.unistuttgart.iste.ese.api;
+
+import de.unistuttgart.iste.ese.api.Config.ReplicaRoutingDataSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Checks the read/write routing with two embedded H2 databases standing in for primary
+ * and replica. Replication is simulated by copying the primary into the replica with
+ * SCRIPT/RUNSCRIPT, and the replica's lag is read from a table this test controls.
+ * <p>
+ * A todo written straight into the primary, behind the application's back, tells which
+ * database answered a list request: it is missing on the replica until the next copy.
+ * The harness checks that lists are read from a caught-up replica, that a client reads
+ * its own writes back from the primary (it keeps the last write cookie like a browser)
+ * while other clients keep reading the replica, without a list ETag, and that reads fall
+ * back to the primary when the replica lags or goes away. Exits with status 1 if a check
+ * fails.
+ * <p>
+ * Run with {@code ./mvnw -Preplica verify -DskipTests}.
+ */
+public final class ReplicaRoutingHarness {
+    private static final String PRIMARY_URL = "jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1";
+    private static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+    // the user the application creates both databases with
+    private static final String USER = "sa";
+    private static final long TIMEOUT_MS = 10_000;
+
+    // sends the last write cookie back
+    private final HttpClient writer = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+        .cookieHandler(new CookieManager()).build();
+    // has never written
+    private final HttpClient reader = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final List<String> failures = new ArrayList<>();
+    private final String baseUrl;
+    private int directInserts;
+
+    private ReplicaRoutingHarness(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        // a restart would boot the application a second time in a new class loader
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+            .run(
+                "--server.port=0",
+                // the test resources also set a context path, which would double the /api/v1 prefix
+                "--server.servlet.context-path=",
+                "--logging.level.web=WARN",
+                "--spring.datasource.url=" + PRIMARY_URL,
+                "--spring.datasource.username=" + USER,
+                "--spring.datasource.password=",
+                "--todo.datasource.replica.url=" + REPLICA_URL,
+                "--todo.datasource.replica.lag-query=SELECT LAG_SECONDS FROM REPLICATION_STATUS",
+                "--todo.datasource.replica.max-lag=PT5S",
+                "--todo.datasource.replica.check-interval=PT0.2S");
+        List<String> failures;
+        try {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            ReplicaRoutingHarness harness = new ReplicaRoutingHarness("http://localhost:" + port + "/api/v1");
+            harness.run(context.getBean(ReplicaRoutingDataSource.class));
+            failures = harness.failures;
+        } finally {
+            context.close();
+        }
+        failures.forEach(failure -> System.out.println("FAILED: " + failure));
+        System.out.println(failures.isEmpty() ? "All routing checks passed" : failures.size() + " routing checks failed");
+        System.exit(failures.isEmpty() ? 0 : 1);
+    }
+
+    private void run(ReplicaRoutingDataSource routing) throws Exception {
+        send(post("/todos", "{\"title\":\"Replica A\",\"assigneeIdList\":[]}"));
+        replicate(0);
+        insertIntoPrimaryOnly("Replica B");
+
+        check("lists are read from the caught-up replica",
+            body -> body.contains("\"Replica A\"") && !body.contains("\"Replica B\""));
+        long replicaConnections = routing.getReplicaConnections();
+        System.out.printf("Replica connections so far: %d%n", replicaConnections);
+
+        HttpResponse<String> written = writer.send(post("/todos", "{\"title\":\"Replica C\",\"assigneeIdList\":[]}"),
+            HttpResponse.BodyHandlers.ofString());
+        expect("writes return the last write cookie",
+            written.headers().firstValue("Set-Cookie").orElse("").startsWith("todo-last-write="));
+        String afterWrite = send(get("/todos"));
+        expect("own writes are read back right away", afterWrite.contains("\"Replica C\""));
+        HttpResponse<String> otherClient = reader.send(get("/todos"), HttpResponse.BodyHandlers.ofString());
+        expect("other clients keep reading the replica", !otherClient.body().contains("\"Replica C\""));
+        expect("lists read from a replica behind the latest write have no ETag",
+            otherClient.headers().firstValue("ETag").isEmpty());
+
+        replicate(0);
+        insertIntoPrimaryOnly("Replica C2");
+        check("the writer reads from the replica again once it applied the write",
+            body -> body.contains("\"Replica C\"") && !body.contains("\"Replica C2\""));
+        expect("lists read from a caught-up replica have an ETag",
+            writer.send(get("/todos"), HttpResponse.BodyHandlers.discarding()).headers().firstValue("ETag").isPresent());
+
+        replicate(60);
+        insertIntoPrimaryOnly("Replica D");
+        check("lagging replica is skipped", body -> body.contains("\"Replica D\""));
+
+        replicate(0);
+        insertIntoPrimaryOnly("Replica E");
+        check("replica is used again once it caught up", body -> !body.contains("\"Replica E\""));
+
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, USER, "");
+             Statement statement = replica.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+        check("unavailable replica falls back to the primary", body -> body.contains("\"Replica E\""));
+        System.out.printf("Connections: primary %d, replica %d, fallbacks %d%n",
+            routing.getPrimaryConnections(), routing.getReplicaConnections(), routing.getFallbacks());
+    }
+
+    /**
+     * Copies the primary into the replica and sets the lag the replica reports.
+     */
+    private static void replicate(int lagSeconds) throws SQLException, IOException {
+        File script = File.createTempFile("replica", ".sql");
+        try {
+            try (Connection primary = DriverManager.getConnection(PRIMARY_URL, USER, "");
+                 Statement statement = primary.createStatement()) {
+                statement.execute("SCRIPT TO '" + script.getAbsolutePath() + "'");
+            }
+            try (Connection replica = DriverManager.getConnection(REPLICA_URL, USER, "");
+                 Statement statement = replica.createStatement()) {
+                statement.execute("DROP ALL OBJECTS");
+                statement.execute("RUNSCRIPT FROM '" + script.getAbsolutePath() + "'");
+                statement.execute("CREATE TABLE REPLICATION_STATUS (LAG_SECONDS INT)");
+                statement.execute("INSERT INTO REPLICATION_STATUS VALUES (" + lagSeconds + ")");
+            }
+        } finally {
+            script.delete();
+        }
+    }
+
+    private void insertIntoPrimaryOnly(String title) throws SQLException {
+        try (Connection primary = DriverManager.getConnection(PRIMARY_URL, USER, "");
+             Statement statement = primary.createStatement()) {
+            // IDs far above the ones Hibernate allocates from the sequence
+            statement.execute("INSERT INTO TO_DO (ID, TITLE, DESCRIPTION, FINISHED, CREATED_DATE, CATEGORY, VERSION) "
+                + "VALUES (" + (1_000_000 + ++directInserts) + ", '" + title + "', '', FALSE, CURRENT_TIMESTAMP, 'work', 0)");
+        }
+    }
+
+    /**
+     * Lists the todos until the body matches, since routing follows the periodic replica check.
+     */
+    private void check(String name, Predicate<String> matches) throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        while (System.currentTimeMillis() - start < TIMEOUT_MS) {
+            HttpResponse<String> response = writer.send(get("/todos"), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 200 && matches.test(response.body())) {
+                System.out.printf("OK: %s (after %d ms)%n", name, System.currentTimeMillis() - start);
+                return;
+            }
+            Thread.sleep(100);
+        }
+        failures.add(name);
+    }
+
+    private void expect(String name, boolean condition) {
+        if (condition) {
+            System.out.println("OK: " + name);
+        } else {
+            failures.add(name);
+        }
+    }
+
+    private String send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = writer.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            throw new IOException(request.uri() + " responded with " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json))
+            .build();
+    }
+}
@@ -0,0 +1,156 @@
+package de.unistuttgart.iste.ese.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start measurement. Boots the application on the embedded H2 database of the test
+ * resources and reports, in milliseconds since JVM start:
+ * <ul>
+ *     <li>{@code contextStartedMs}: when the application context has started</li>
+ *     <li>{@code timeToReadyMs}: when {@code /actuator/health/readiness} first reports UP</li>
+ *     <li>{@code timeToFirstFastRequestMs}: when a create and a list request first both
+ *     complete within {@code startup.fast-request-ms}</li>
+ * </ul>
+ * Requests are sent as soon as the context has started, without waiting for readiness,
+ * so the latency of the first requests ({@code firstCreateMs}, {@code firstListMs}) shows
+ * what a client sees that does not respect the probe.
+ * <p>
+ * Each run needs a fresh JVM. Run with {@code ./mvnw -Pstartup verify -DskipTests}; the
+ * profile in pom.xml measures the blocking startup without warm-up and the background
+ * startup with warm-up and binary model cache.
+ */
+public final class StartupHarness {
+    private static final long TIMEOUT_MS = TimeUnit.MINUTES.toMillis(5);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final String baseUrl;
+    private final long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+    private StartupHarness(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        long fastRequestMs = Long.getLong("startup.fast-request-ms", 5);
+        String output = System.getProperty("startup.output", "target/startup-result.json");
+
+        // a restart would boot the application a second time in a new class loader
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        List<String> arguments = new ArrayList<>(List.of(
+            "--server.port=0",
+            // the test resources also set a context path, which would double the /api/v1 prefix
+            "--server.servlet.context-path=",
+            "--logging.level.web=WARN",
+            // the test resources replace application.properties, so the probes are configured here
+            "--management.endpoint.health.probes.enabled=true",
+            "--management.endpoint.health.group.liveness.include=livenessState",
+            "--management.endpoint.health.group.readiness.include=readinessState,startup"));
+        // command line arguments, unlike default properties, override the test resources
+        arguments.addAll(List.of(args));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+            .run(arguments.toArray(String[]::new));
+        try {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            StartupHarness harness = new StartupHarness("http://localhost:" + port);
+            long contextStarted = harness.sinceJvmStart();
+
+            long firstCreate = -1;
+            long firstList = -1;
+            long timeToReady = -1;
+            long timeToFastRequest = -1;
+            int requests = 0;
+            while ((timeToReady < 0 || timeToFastRequest < 0) && harness.sinceJvmStart() < TIMEOUT_MS) {
+                if (timeToReady < 0 && harness.isReady()) {
+                    timeToReady = harness.sinceJvmStart();
+                }
+                if (timeToFastRequest < 0) {
+                    long create = harness.time(harness.post("/api/v1/todos",
+                        "{\"title\":\"Startup " + requests + "\",\"assigneeIdList\":[]}"));
+                    long list = harness.time(harness.get("/api/v1/todos?limit=50"));
+                    if (requests++ == 0) {
+                        firstCreate = create;
+                        firstList = list;
+                    }
+                    if (create <= fastRequestMs && list <= fastRequestMs) {
+                        timeToFastRequest = harness.sinceJvmStart();
+                    }
+                } else {
+                    Thread.sleep(10);
+                }
+            }
+
+            ObjectNode result = harness.objectMapper.createObjectNode();
+            ObjectNode config = result.putObject("config");
+            config.put("modelStartup", context.getEnvironment().getProperty("todo.model.startup"));
+            config.put("binaryCacheDir", context.getEnvironment().getProperty("todo.model.binary-cache-dir"));
+            config.put("warmupIterations", context.getEnvironment().getProperty("todo.startup.warmup-iterations"));
+            config.put("warmupWrites", context.getEnvironment().getProperty("todo.startup.warmup-writes"));
+            config.put("fastRequestMs", fastRequestMs);
+            result.put("contextStartedMs", contextStarted);
+            result.put("timeToReadyMs", timeToReady);
+            result.put("firstCreateMs", firstCreate);
+            result.put("firstListMs", firstList);
+            result.put("requestsUntilFast", requests);
+            result.put("timeToFirstFastRequestMs", timeToFastRequest);
+            System.out.println(result.toPrettyString());
+
+            File outputFile = new File(output);
+            if (outputFile.getParentFile() != null) {
+                outputFile.getParentFile().mkdirs();
+            }
+            harness.objectMapper.writer().with(SerializationFeature.INDENT_OUTPUT).writeValue(outputFile, result);
+            System.out.println("Results written to " + outputFile.getAbsolutePath());
+        } finally {
+            context.close();
+        }
+        System.exit(0);
+    }
+
+    private long sinceJvmStart() {
+        return System.currentTimeMillis() - jvmStart;
+    }
+
+    private boolean isReady() throws IOException, InterruptedException {
+        return client.send(get("/actuator/health/readiness"), HttpResponse.BodyHandlers.discarding())
+            .statusCode() == 200;
+    }
+
+    /**
+     * Sends a request and returns its latency in milliseconds.
+     */
+    private long time(HttpRequest request) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() >= 400) {
+            throw new IOException(request.uri() + " responded with " + response.statusCode());
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json))
+            .build();
+    }
+}
@@ -4,10 +4,12 @@ import jakarta.annotation.Nonnull;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @SpringBootApplication
+@EnableScheduling
 public class Application {
 
     public static void main(String[] args) {
@@ -22,8 +24,9 @@ public class Application {
             public void addCorsMappings(@Nonnull CorsRegistry registry) {
                 // allow CORS requests for all resources and HTTP methods from the frontend origin
                 registry.addMapping("/**")
-                        .allowedMethods("OPTIONS", "HEAD", "GET", "PUT", "POST", "DELETE")
+                        .allowedMethods("OPTIONS", "HEAD", "GET", "PUT", "PATCH", "POST", "DELETE")
                         .allowedOrigins("http://localhost:5173")
+                        .exposedHeaders("X-Next-Cursor", "ETag")
                         .allowCredentials(true);
             }
         };
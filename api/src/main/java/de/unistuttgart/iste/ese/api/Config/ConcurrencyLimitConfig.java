@@ -0,0 +1,85 @@
+package de.unistuttgart.iste.ese.api.Config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the number of requests processed at the same time when requests run on
+ * virtual threads ({@code spring.threads.virtual.enabled=true}).
+ * <p>
+ * With platform threads, Tomcat's thread pool bounds concurrency. Virtual threads are
+ * unbounded, so without a limit every request would queue up for a database
+ * connection. Requests that cannot get a permit within the timeout are answered
+ * with 503 instead.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> concurrencyLimitFilter(
+            @Value("${todo.concurrency.max-requests:200}") int maxRequests,
+            @Value("${todo.concurrency.acquire-timeout:2s}") Duration acquireTimeout,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        // fair, so waiting requests are served in arrival order
+        Semaphore permits = new Semaphore(maxRequests, true);
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        Counter rejected = registry == null ? null
+            : Counter.builder("todo.requests.rejected")
+                .description("Requests rejected because the concurrency limit was reached")
+                .register(registry);
+
+        OncePerRequestFilter filter = new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain chain) throws ServletException, IOException {
+                boolean acquired;
+                try {
+                    acquired = permits.tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    acquired = false;
+                }
+                if (!acquired) {
+                    if (rejected != null) {
+                        rejected.increment();
+                    }
+                    response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                    response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+                    return;
+                }
+                try {
+                    // async requests (SSE, streaming) release their permit when the handler returns
+                    chain.doFilter(request, response);
+                } finally {
+                    permits.release();
+                }
+            }
+        };
+
+        FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
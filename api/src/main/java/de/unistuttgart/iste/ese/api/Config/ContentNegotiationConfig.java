@@ -0,0 +1,97 @@
+package de.unistuttgart.iste.ese.api.Config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import jakarta.annotation.Nonnull;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Offers compact encodings of request and response bodies besides the pretty-printed
+ * JSON, selected with the Accept (responses) and Content-Type (requests) headers:
+ * <ul>
+ *     <li>{@code application/json}: pretty-printed JSON, as configured by
+ *     {@code spring.jackson.serialization.indent-output}; also the default for {@code *}{@code /*}</li>
+ *     <li>{@link #COMPACT_JSON_VALUE}: the same JSON without whitespace</li>
+ *     <li>{@code application/x-jackson-smile}: binary JSON, repeated names and short
+ *     strings (like the assignees embedded in every todo) are written once and referenced</li>
+ *     <li>{@code application/cbor}: binary JSON as of RFC 8949</li>
+ * </ul>
+ * All encodings use the ObjectMapper settings of Spring Boot and carry the same data.
+ * Since each encoding is a representation of its own, responses vary by Accept and
+ * their ETags name the encoding, see the ETags class of the controllers.
+ */
+@Configuration
+public class ContentNegotiationConfig {
+    public static final String COMPACT_JSON_VALUE = "application/vnd.todo.compact+json";
+    public static final MediaType COMPACT_JSON = MediaType.parseMediaType(COMPACT_JSON_VALUE);
+    /**
+     * The encodings of response bodies, in the order the message converters prefer them.
+     */
+    public static final List<MediaType> ENCODINGS = List.of(
+        MediaType.APPLICATION_JSON,
+        COMPACT_JSON,
+        MediaType.valueOf("application/x-jackson-smile"),
+        MediaType.APPLICATION_CBOR
+    );
+
+    /**
+     * Replaces Spring MVC's default Smile converter with one built from Spring Boot's
+     * ObjectMapper settings.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        SmileFactory factory = SmileFactory.builder()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+            .build();
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(factory).indentOutput(false).build());
+    }
+
+    /**
+     * Replaces Spring MVC's default CBOR converter with one built from Spring Boot's
+     * ObjectMapper settings.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(
+            builder.factory(new CBORFactory()).indentOutput(false).build());
+    }
+
+    /**
+     * Lets the JSON converter write and read {@link #COMPACT_JSON_VALUE} with an
+     * ObjectMapper that does not indent.
+     */
+    @Bean
+    public WebMvcConfigurer compactJsonConfigurer(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper compactMapper = builder.indentOutput(false).build();
+        return new WebMvcConfigurer() {
+            @Override
+            public void extendMessageConverters(@Nonnull List<HttpMessageConverter<?>> converters) {
+                // the JSON converter already handles application/*+json; only the mapper differs.
+                // Registered types replace the supported ones, in this order, so application/json
+                // stays the first choice for */*
+                for (HttpMessageConverter<?> converter : converters) {
+                    if (converter instanceof MappingJackson2HttpMessageConverter jsonConverter) {
+                        ObjectMapper defaultMapper = jsonConverter.getObjectMapper();
+                        jsonConverter.registerObjectMappersForType(Object.class, mappers -> {
+                            mappers.put(MediaType.APPLICATION_JSON, defaultMapper);
+                            mappers.put(COMPACT_JSON, compactMapper);
+                            mappers.put(new MediaType("application", "*+json"), defaultMapper);
+                        });
+                    }
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,193 @@
+package de.unistuttgart.iste.ese.api.Config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseCookie;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Routes read-only transactions to a replica database if {@code todo.datasource.replica.url}
+ * is set; see {@link ReplicaRoutingDataSource} for when the replica is used.
+ * <p>
+ * The primary pool is still configured with {@code spring.datasource.*}, the replica pool
+ * with {@code todo.datasource.replica.*}: url, username and password (defaulting to the
+ * primary's), and Hikari settings under {@code todo.datasource.replica.hikari}. Schema
+ * changes ({@code spring.jpa.hibernate.ddl-auto}) only apply to the primary; the replica
+ * gets them through replication.
+ */
+@Configuration
+@ConditionalOnExpression("!'${todo.datasource.replica.url:}'.isEmpty()")
+public class DataSourceRoutingConfig {
+    /**
+     * The cookie carrying the time (epoch ms) of the client's latest write.
+     */
+    public static final String LAST_WRITE_COOKIE = "todo-last-write";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("todo.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            DataSourceProperties primaryProperties,
+            @Value("${todo.datasource.replica.url}") String url,
+            @Value("${todo.datasource.replica.username:}") String username,
+            @Value("${todo.datasource.replica.password:}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+            .type(HikariDataSource.class)
+            .url(url)
+            .username(username.isEmpty() ? primaryProperties.determineUsername() : username)
+            .password(password.isEmpty() ? primaryProperties.determinePassword() : password)
+            .build();
+        dataSource.setPoolName("replica");
+        // fail fast to the primary instead of waiting for a lost replica
+        dataSource.setConnectionTimeout(1000);
+        // connections are only used by read-only transactions
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    /**
+     * The routing data source. It is also a transaction execution listener, which Spring
+     * Boot registers with the transaction manager, to learn when writes commit.
+     *
+     * @param lagQuery      Query returning the replica's lag in seconds, e.g. {@code SHOW REPLICA STATUS}
+     *                      for MariaDB; blank to only check that the replica is reachable
+     * @param maxLag        Maximum lag at which reads use the replica
+     * @param checkInterval Time between two checks of the replica
+     */
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public ReplicaRoutingDataSource routingDataSource(
+            @Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica,
+            @Value("${todo.datasource.replica.lag-query:}") String lagQuery,
+            @Value("${todo.datasource.replica.max-lag:PT5S}") Duration maxLag,
+            @Value("${todo.datasource.replica.check-interval:PT1S}") Duration checkInterval) {
+        return new ReplicaRoutingDataSource(primary, replica, lagQuery, maxLag, checkInterval);
+    }
+
+    /**
+     * The data source used by JPA and JDBC. Connections are obtained on the first
+     * statement, once the transaction's read-only flag decides where they come from.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * Lets each client read its own writes: successful writes return the time they
+     * completed, which is after their commit, in the {@value #LAST_WRITE_COOKIE} cookie,
+     * and the client's reads go to the primary until the replica has applied that time.
+     * The cookie expires once it no longer matters for routing.
+     *
+     * @param routingDataSource The routing data source
+     * @return The registration of the filter
+     */
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> readYourWritesFilter(ReplicaRoutingDataSource routingDataSource) {
+        Duration maxAge = routingDataSource.getReadYourWritesWindow();
+        OncePerRequestFilter filter = new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain chain) throws ServletException, IOException {
+                routingDataSource.beginRequest(lastWrite(request));
+                try {
+                    if (HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod())) {
+                        chain.doFilter(request, response);
+                        return;
+                    }
+                    // buffered, so the cookie can still be set once the write has committed
+                    ContentCachingResponseWrapper buffered = new ContentCachingResponseWrapper(response);
+                    chain.doFilter(request, buffered);
+                    if (buffered.getStatus() < 400) {
+                        ResponseCookie cookie = ResponseCookie.from(LAST_WRITE_COOKIE,
+                                Long.toString(System.currentTimeMillis()))
+                            .path(request.getContextPath().isEmpty() ? "/" : request.getContextPath())
+                            .maxAge(maxAge)
+                            .httpOnly(true)
+                            .sameSite("Lax")
+                            .build();
+                        buffered.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+                    }
+                    buffered.copyBodyToResponse();
+                } finally {
+                    routingDataSource.endRequest();
+                }
+            }
+        };
+
+        FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+    @Bean
+    public MeterBinder replicaRoutingMetrics(ReplicaRoutingDataSource routingDataSource) {
+        return registry -> {
+            Gauge.builder("todo.datasource.replica.up", routingDataSource, ds -> ds.isReplicaUp() ? 1 : 0)
+                .description("Whether the replica passed its last check")
+                .register(registry);
+            FunctionCounter.builder("todo.datasource.connections", routingDataSource,
+                    ReplicaRoutingDataSource::getPrimaryConnections)
+                .tag("target", "primary")
+                .description("Connections obtained by the routing data source")
+                .register(registry);
+            FunctionCounter.builder("todo.datasource.connections", routingDataSource,
+                    ReplicaRoutingDataSource::getReplicaConnections)
+                .tag("target", "replica")
+                .description("Connections obtained by the routing data source")
+                .register(registry);
+            FunctionCounter.builder("todo.datasource.replica.fallbacks", routingDataSource,
+                    ReplicaRoutingDataSource::getFallbacks)
+                .description("Reads sent to the primary because the replica could not be reached")
+                .register(registry);
+        };
+    }
+
+    private static long lastWrite(HttpServletRequest request) {
+        if (request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (cookie.getName().equals(LAST_WRITE_COOKIE)) {
+                    try {
+                        return Long.parseLong(cookie.getValue());
+                    } catch (NumberFormatException e) {
+                        return Long.MIN_VALUE;
+                    }
+                }
+            }
+        }
+        return Long.MIN_VALUE;
+    }
+}
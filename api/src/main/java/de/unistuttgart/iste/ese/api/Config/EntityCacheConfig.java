@@ -0,0 +1,111 @@
+package de.unistuttgart.iste.ese.api.Config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Configures the Hibernate second-level cache for {@code Assignee} and {@code ToDo} on an
+ * in-process Caffeine JCache with bounded size and TTL, and publishes per-region hit/miss
+ * metrics.
+ * <p>
+ * Entity writes through the repositories update the cache automatically; bulk and
+ * native statements invalidate the regions of the tables they touch.
+ */
+@Configuration
+public class EntityCacheConfig {
+
+    public static final String ASSIGNEE_REGION = "todo-app.assignee";
+    public static final String TODO_REGION = "todo-app.todo";
+
+    private static final List<String> REGIONS = List.of(ASSIGNEE_REGION, TODO_REGION);
+
+    /**
+     * Creates the bounded cache regions and hands the cache manager to Hibernate.
+     *
+     * @param maximumSize Maximum number of entries per region
+     * @param timeToLive  Time after which an entry is evicted once written
+     * @return The customizer registering the second-level cache settings
+     */
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheCustomizer(
+            @Value("${todo.cache.maximum-size:10000}") long maximumSize,
+            @Value("${todo.cache.ttl:10m}") Duration timeToLive) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+            .getCacheManager();
+        for (String region : REGIONS) {
+            if (cacheManager.getCache(region) == null) {
+                CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+                configuration.setMaximumSize(OptionalLong.of(maximumSize));
+                configuration.setExpireAfterWrite(OptionalLong.of(timeToLive.toNanos()));
+                cacheManager.createCache(region, configuration);
+            }
+        }
+
+        return properties -> {
+            properties.put("hibernate.cache.use_second_level_cache", true);
+            properties.put("hibernate.cache.region.factory_class", "jcache");
+            properties.put("hibernate.javax.cache.cache_manager", cacheManager);
+            properties.put("hibernate.generate_statistics", true);
+            // statistics are only read by the meters, not logged for every session
+            properties.put("hibernate.session.events.log", false);
+        };
+    }
+
+    /**
+     * Publishes hits, misses and the hit ratio of every cache region.
+     *
+     * @param entityManagerFactory The JPA entity manager factory
+     * @return The binder registering the cache meters
+     */
+    @Bean
+    public MeterBinder entityCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return registry -> {
+            for (String region : REGIONS) {
+                Tags tags = Tags.of("region", region);
+                FunctionCounter.builder("todo.entity.cache.requests", statistics,
+                        regionStatistic(region, CacheRegionStatistics::getHitCount))
+                    .tags(tags).tag("result", "hit")
+                    .description("Second-level cache lookups")
+                    .register(registry);
+                FunctionCounter.builder("todo.entity.cache.requests", statistics,
+                        regionStatistic(region, CacheRegionStatistics::getMissCount))
+                    .tags(tags).tag("result", "miss")
+                    .description("Second-level cache lookups")
+                    .register(registry);
+                Gauge.builder("todo.entity.cache.hit.ratio", statistics, stats -> {
+                        CacheRegionStatistics regionStats = stats.getDomainDataRegionStatistics(region);
+                        long requests = regionStats.getHitCount() + regionStats.getMissCount();
+                        return requests == 0 ? Double.NaN : (double) regionStats.getHitCount() / requests;
+                    })
+                    .tags(tags)
+                    .description("Second-level cache hit ratio")
+                    .register(registry);
+            }
+        };
+    }
+
+    private static ToDoubleFunction<Statistics> regionStatistic(
+            String region, ToDoubleFunction<CacheRegionStatistics> statistic) {
+        return statistics -> statistic.applyAsDouble(statistics.getDomainDataRegionStatistics(region));
+    }
+}
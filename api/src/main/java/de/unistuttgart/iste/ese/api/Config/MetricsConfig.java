@@ -0,0 +1,136 @@
+package de.unistuttgart.iste.ese.api.Config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.config.MeterFilter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Instruments the application with Micrometer, tagged by the HTTP endpoint that caused
+ * the work:
+ * <ul>
+ *     <li>{@code todo.service} timers with percentile histograms for all public methods of
+ *     the services annotated with {@code @Timed}</li>
+ *     <li>{@code todo.jdbc.statements}, the number of JDBC statements per request</li>
+ * </ul>
+ * With {@code todo.metrics.enabled=false} all {@code todo.*} meters become no-ops and the
+ * aspect and filter are not registered, so instrumentation costs next to nothing.
+ */
+@Configuration
+public class MetricsConfig {
+    public static final String NO_ENDPOINT = "none";
+
+    // statements prepared by the current thread since its request started, null outside requests
+    private static final ThreadLocal<int[]> STATEMENT_COUNT = new ThreadLocal<>();
+
+    /**
+     * Returns the endpoint of the request handled by the current thread.
+     *
+     * @return The HTTP method and matched path pattern, e.g. "GET /api/v1/todos/{id}",
+     *         or {@link #NO_ENDPOINT} outside a request
+     */
+    public static String currentEndpoint() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return NO_ENDPOINT;
+        }
+        return endpoint(servletAttributes.getRequest());
+    }
+
+    private static String endpoint(HttpServletRequest request) {
+        // the pattern keeps the tag cardinality low, unlike the request URI
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? request.getMethod() + " " + pattern : NO_ENDPOINT;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "todo.metrics.enabled", matchIfMissing = true)
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry, (ProceedingJoinPoint joinPoint) -> Tags.of(
+            "class", joinPoint.getStaticPart().getSignature().getDeclaringType().getSimpleName(),
+            "method", joinPoint.getStaticPart().getSignature().getName(),
+            "endpoint", currentEndpoint()));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "todo.metrics.enabled", havingValue = "false")
+    public MeterFilter disableTodoMetrics() {
+        return MeterFilter.denyNameStartsWith("todo.");
+    }
+
+    /**
+     * Counts the statements Hibernate prepares on each thread. Global Hibernate
+     * statistics cannot be attributed to concurrent requests, so this hooks in where
+     * every statement passes through.
+     *
+     * @return The customizer registering the statement inspector
+     */
+    @Bean
+    @ConditionalOnProperty(name = "todo.metrics.enabled", matchIfMissing = true)
+    public HibernatePropertiesCustomizer statementCountingCustomizer() {
+        StatementInspector inspector = sql -> {
+            int[] count = STATEMENT_COUNT.get();
+            if (count != null) {
+                count[0]++;
+            }
+            return sql;
+        };
+        return properties -> properties.put("hibernate.session_factory.statement_inspector", inspector);
+    }
+
+    /**
+     * Records the number of JDBC statements of every request. Statements of streamed
+     * response bodies run on another thread after the request returns and are not included.
+     *
+     * @param registry The meter registry
+     * @return The registration of the counting filter
+     */
+    @Bean
+    @ConditionalOnProperty(name = "todo.metrics.enabled", matchIfMissing = true)
+    public FilterRegistrationBean<OncePerRequestFilter> statementCountFilter(MeterRegistry registry) {
+        OncePerRequestFilter filter = new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain chain) throws ServletException, IOException {
+                int[] count = new int[1];
+                STATEMENT_COUNT.set(count);
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    STATEMENT_COUNT.remove();
+                    DistributionSummary.builder("todo.jdbc.statements")
+                        .description("JDBC statements per request")
+                        .tag("endpoint", endpoint(request))
+                        .publishPercentileHistogram()
+                        .register(registry)
+                        .record(count[0]);
+                }
+            }
+        };
+
+        FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE);
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
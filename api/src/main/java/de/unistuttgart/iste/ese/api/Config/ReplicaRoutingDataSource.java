@@ -0,0 +1,323 @@
+package de.unistuttgart.iste.ese.api.Config;
+
+import jakarta.annotation.Nonnull;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends the connections of read-only transactions to a replica and everything else to
+ * the primary.
+ * <p>
+ * A background check measures the replica's lag every {@code checkInterval}. A read-only
+ * transaction uses the replica only if it is reachable, at most {@code maxLag} behind, and
+ * has applied the writes its reader must see: the replica counts as caught up with a write
+ * once a later check shows it was less than its lag (rounded up to whole seconds) behind
+ * the write's commit.
+ * <p>
+ * Within a request (see {@link #beginRequest(long)}), these are the writes the client has
+ * seen, which it passes back as the time of its latest write; so a client reads its own
+ * writes while other clients keep reading from the replica. Reads outside of requests
+ * must see every write committed through this data source; as a
+ * {@link TransactionExecutionListener}, it marks the time of each commit of a read-write
+ * transaction. A request that read from a replica behind that time may have read older
+ * data than other caches, such as the list ETags, describe, see {@link #hasReadStaleData()}.
+ * Reads that must not be older than this instance's in-memory state, like the change log
+ * up to a revision handed out here, use the primary instead, see {@link #usePrimary()}.
+ * Client write times work across application instances with synchronized clocks; the
+ * commit times only cover this instance's writes.
+ * <p>
+ * If a replica connection cannot be obtained, the read falls back to the primary and the
+ * replica is skipped until the next successful check. Must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, so the
+ * connection is obtained once the transaction's read-only flag is known.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource
+    implements TransactionExecutionListener, AutoCloseable {
+    private static final Log LOG = LogFactory.getLog(ReplicaRoutingDataSource.class);
+    // the column of MariaDB's SHOW REPLICA STATUS; other lag queries return the lag as first column
+    private static final String LAG_COLUMN = "Seconds_Behind_Master";
+    // set while the current transaction must read from the primary, see usePrimary
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final String lagQuery;
+    private final long maxLagSeconds;
+    private final Duration checkInterval;
+
+    private volatile boolean replicaUp;
+    // writes committed before this time (epoch ms) are on the replica
+    private volatile long replicaCaughtUpTo = Long.MIN_VALUE;
+    // when the last write through this data source started to commit (epoch ms)
+    private volatile long lastWriteAt;
+    // the reads of the current request, see beginRequest
+    private final ThreadLocal<RequestReads> requestReads = new ThreadLocal<>();
+
+    private final AtomicLong primaryConnections = new AtomicLong();
+    private final AtomicLong replicaConnections = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    private Thread checker;
+    private volatile boolean running;
+
+    /**
+     * @param primary       The data source for writes and consistent reads
+     * @param replica       The data source for read-only transactions
+     * @param lagQuery      Returns the replica's lag in seconds, or blank to only check
+     *                      that the replica is reachable
+     * @param maxLag        The maximum lag at which the replica is used
+     * @param checkInterval The time between two checks of the replica
+     */
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, String lagQuery, Duration maxLag,
+                                    Duration checkInterval) {
+        this.primary = primary;
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLag.toSeconds();
+        this.checkInterval = checkInterval;
+        // whatever was written before the start counts as a write, so the replica is only
+        // used once a check shows it has caught up with the previous run
+        this.lastWriteAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Checks the replica once and starts the periodic checks.
+     */
+    public void start() {
+        check();
+        running = true;
+        checker = Thread.ofPlatform().name("todo-replica-check").daemon().start(() -> {
+            while (running) {
+                try {
+                    Thread.sleep(checkInterval);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                check();
+            }
+        });
+    }
+
+    /**
+     * Stops the periodic checks.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        if (checker != null) {
+            checker.interrupt();
+            checker.join(Duration.ofSeconds(5));
+        }
+    }
+
+    @Override
+    @Nonnull
+    public Connection getConnection() throws SQLException {
+        RequestReads reads = requestReads.get();
+        if (isReplicaReadable(reads)) {
+            try {
+                Connection connection = replica.getConnection();
+                replicaConnections.incrementAndGet();
+                if (reads != null && lastWriteAt >= replicaCaughtUpTo) {
+                    reads.stale = true;
+                }
+                return connection;
+            } catch (SQLException | RuntimeException e) {
+                // Hikari reports a failed pool start with a RuntimeException
+                replicaUp = false;
+                fallbacks.incrementAndGet();
+                LOG.warn("Replica unavailable, reading from the primary: " + e.getMessage());
+            }
+        }
+        primaryConnections.incrementAndGet();
+        return primary.getConnection();
+    }
+
+    @Override
+    @Nonnull
+    public Connection getConnection(@Nonnull String username, @Nonnull String password) throws SQLException {
+        primaryConnections.incrementAndGet();
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * Sends the reads of the current transaction to the primary, even if it is read-only.
+     * For reads that are combined with state only the primary is guaranteed to have, such
+     * as revisions or counters this instance keeps in memory. Takes effect if called before
+     * the transaction's first statement and lasts until the transaction completes. Does
+     * nothing outside of transactions, which use the primary anyway, or if no replica is
+     * configured.
+     */
+    public static void usePrimary() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || PRIMARY_REQUIRED.get() != null) {
+            return;
+        }
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                PRIMARY_REQUIRED.remove();
+            }
+        });
+    }
+
+    /**
+     * Starts routing the reads of a request on the current thread by the writes its client
+     * has seen, instead of all writes.
+     *
+     * @param clientLastWrite The time (epoch ms) of the client's latest write, or
+     *                        {@link Long#MIN_VALUE} if it has not written recently
+     */
+    public void beginRequest(long clientLastWrite) {
+        requestReads.set(new RequestReads(clientLastWrite));
+    }
+
+    /**
+     * Ends the request started by {@link #beginRequest(long)}.
+     */
+    public void endRequest() {
+        requestReads.remove();
+    }
+
+    /**
+     * Checks whether the current request read from the replica before it applied every
+     * write committed through this data source.
+     *
+     * @return true if the request may have read data older than the latest writes
+     */
+    public boolean hasReadStaleData() {
+        RequestReads reads = requestReads.get();
+        return reads != null && reads.stale;
+    }
+
+    /**
+     * Returns how long after a write its client may have to read from the primary: by then
+     * the replica has either applied the write or lags too far behind to be used at all.
+     *
+     * @return The time a client's latest write is relevant for routing
+     */
+    public Duration getReadYourWritesWindow() {
+        // a check starting after the write, plus the rounding of the lag
+        return Duration.ofSeconds(maxLagSeconds + 2).plus(checkInterval.multipliedBy(2));
+    }
+
+    /**
+     * Checks whether the replica passed its last check.
+     *
+     * @return true if the replica is reachable and its lag is acceptable
+     */
+    public boolean isReplicaUp() {
+        return replicaUp;
+    }
+
+    public long getPrimaryConnections() {
+        return primaryConnections.get();
+    }
+
+    public long getReplicaConnections() {
+        return replicaConnections.get();
+    }
+
+    /**
+     * Returns how often a read fell back to the primary because no replica connection could
+     * be obtained.
+     *
+     * @return The number of fallbacks
+     */
+    public long getFallbacks() {
+        return fallbacks.get();
+    }
+
+    private boolean isReplicaReadable(RequestReads reads) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+            || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+            || PRIMARY_REQUIRED.get() != null
+            || !replicaUp) {
+            return false;
+        }
+        return (reads != null ? reads.clientLastWrite : lastWriteAt) < replicaCaughtUpTo;
+    }
+
+    /**
+     * Marks the commit of a transaction as a write, unless it is read-only. Registered
+     * with the transaction manager, since a transaction may only obtain its connection
+     * while committing, when it flushes. The lag is rounded up to whole seconds, which
+     * covers the time the commit takes.
+     *
+     * @param transaction The committing transaction
+     */
+    @Override
+    public void beforeCommit(@Nonnull TransactionExecution transaction) {
+        if (!transaction.isReadOnly()) {
+            lastWriteAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * The writes a request's reads must see, and whether they missed some of the others.
+     */
+    private static final class RequestReads {
+        private final long clientLastWrite;
+        private boolean stale;
+
+        private RequestReads(long clientLastWrite) {
+            this.clientLastWrite = clientLastWrite;
+        }
+    }
+
+    private void check() {
+        long started = System.currentTimeMillis();
+        boolean wasUp = replicaUp;
+        try (Connection connection = replica.getConnection()) {
+            long lag = lagQuery.isBlank() ? 0 : queryLag(connection);
+            // the lag is rounded down to whole seconds
+            replicaCaughtUpTo = started - (lag + 1) * 1000;
+            replicaUp = lag <= maxLagSeconds;
+            if (!replicaUp && wasUp) {
+                LOG.warn(String.format("Replica lags %d s behind, reading from the primary", lag));
+            }
+        } catch (SQLException | RuntimeException e) {
+            replicaUp = false;
+            if (wasUp) {
+                LOG.warn("Replica unavailable, reading from the primary: " + e.getMessage());
+            }
+        }
+        if (replicaUp && !wasUp) {
+            LOG.info("Replica available, read-only transactions use it");
+        }
+    }
+
+    private long queryLag(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(lagQuery)) {
+            if (!result.next()) {
+                throw new SQLException("Lag query returned no rows; is replication configured?");
+            }
+            int column;
+            try {
+                column = result.findColumn(LAG_COLUMN);
+            } catch (SQLException e) {
+                column = 1;
+            }
+            long lag = result.getLong(column);
+            if (result.wasNull()) {
+                // MariaDB reports no lag while replication is stopped
+                throw new SQLException("Replication is not running");
+            }
+            return lag;
+        }
+    }
+}
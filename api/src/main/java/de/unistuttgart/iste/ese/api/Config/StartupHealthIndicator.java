@@ -0,0 +1,27 @@
+package de.unistuttgart.iste.ese.api.Config;
+
+import de.unistuttgart.iste.ese.api.Services.StartupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Health indicator "startup": OUT_OF_SERVICE until the AI model is loaded and the
+ * warm-up of {@link StartupService} has finished. Part of the readiness group only, so
+ * a slow start does not make the liveness probe restart the application.
+ */
+@Component
+public class StartupHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private StartupService startupService;
+
+    @Override
+    public Health health() {
+        if (!startupService.isReady()) {
+            return Health.outOfService().build();
+        }
+        return Health.up().withDetail("timeToReadyMs", startupService.getTimeToReadyMs()).build();
+    }
+}
@@ -2,10 +2,13 @@ package de.unistuttgart.iste.ese.api.Controller;
 
 import de.unistuttgart.iste.ese.api.ApiVersion1;
 import de.unistuttgart.iste.ese.api.Services.AssigneeService;
+import de.unistuttgart.iste.ese.api.Services.RevisionService;
 import de.unistuttgart.iste.ese.api.Models.Assignee;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
 
@@ -16,25 +19,52 @@ public class AssigneeController {
     @Autowired
     private AssigneeService assigneeService;
 
+    @Autowired
+    private RevisionService revisionService;
+
     /**
      * Retrieves all assignees.
      *
-     * @return List of all assignees
+     * @param ifNoneMatch The ETag of the client's copy, optional
+     * @param accept The accepted encodings, optional
+     * @return List of all assignees, or 304 if the client's copy is current
      */
     @GetMapping("/assignees")
-    public List<Assignee> getAssignees() {
-        return assigneeService.getAllAssignees();
+    public ResponseEntity<List<Assignee>> getAssignees(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        // read the revision before the data, so the ETag is never newer than the body
+        String etag = revisionService.getAssigneeListETag();
+        if (ETags.matches(ifNoneMatch, etag, accept)) {
+            return ETags.notModified(etag, accept);
+        }
+        List<Assignee> assignees = assigneeService.getAllAssignees();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (revisionService.isReadCurrent()) {
+            response.eTag(etag);
+        }
+        return response.body(assignees);
     }
 
     /**
      * Retrieves a specific assignee by ID.
      *
      * @param id The ID of the assignee
-     * @return The requested assignee
+     * @param ifNoneMatch The ETag of the client's copy, optional
+     * @param accept The accepted encodings, optional
+     * @return The requested assignee, or 304 if the client's copy is current
      */
     @GetMapping("/assignees/{id}")
-    public Assignee getAssignee(@PathVariable("id") long id) {
-        return assigneeService.getAssigneeById(id);
+    public ResponseEntity<Assignee> getAssignee(@PathVariable("id") long id,
+                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        // loaded by ID from the second-level cache, so revalidating a cached assignee does not reach the database
+        Assignee assignee = assigneeService.getAssigneeById(id);
+        String etag = ETags.of(assignee);
+        if (ETags.matches(ifNoneMatch, etag, accept)) {
+            return ETags.notModified(etag, accept);
+        }
+        return ResponseEntity.ok().eTag(etag).body(assignee);
     }
 
     /**
@@ -44,9 +74,9 @@ public class AssigneeController {
      * @return The created assignee
      */
     @PostMapping("/assignees")
-    @ResponseStatus(HttpStatus.CREATED)
-    public Assignee createAssignee(@Valid @RequestBody Assignee requestBody) {
-        return assigneeService.createAssignee(requestBody);
+    public ResponseEntity<Assignee> createAssignee(@Valid @RequestBody Assignee requestBody) {
+        Assignee created = assigneeService.createAssignee(requestBody);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(ETags.of(created)).body(created);
     }
 
     /**
@@ -54,21 +84,26 @@ public class AssigneeController {
      *
      * @param id The ID of the assignee to update
      * @param requestBody The updated assignee data
+     * @param ifMatch The ETag the changes are based on, optional
      * @return The updated assignee
      */
     @PutMapping("/assignees/{id}")
-    public Assignee updateAssignee(@PathVariable("id") long id,
-                                   @Valid @RequestBody Assignee requestBody) {
-        return assigneeService.updateAssignee(id, requestBody);
+    public ResponseEntity<Assignee> updateAssignee(@PathVariable("id") long id,
+                                                   @Valid @RequestBody Assignee requestBody,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Assignee updated = assigneeService.updateAssignee(id, requestBody, ETags.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(updated)).body(updated);
     }
 
     /**
      * Deletes an assignee.
      *
      * @param id The ID of the assignee to delete
+     * @param ifMatch The ETag the deletion is based on, optional
      */
     @DeleteMapping("/assignees/{id}")
-    public void deleteAssignee(@PathVariable("id") long id) {
-        assigneeService.deleteAssignee(id);
+    public void deleteAssignee(@PathVariable("id") long id,
+                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        assigneeService.deleteAssignee(id, ETags.expectedVersion(ifMatch));
     }
 }
@@ -0,0 +1,57 @@
+package de.unistuttgart.iste.ese.api.Controller;
+
+import de.unistuttgart.iste.ese.api.ApiVersion1;
+import de.unistuttgart.iste.ese.api.DTOs.ChangeFeedDTO;
+import de.unistuttgart.iste.ese.api.Services.ChangeFeedService;
+import de.unistuttgart.iste.ese.api.Services.ChangeLogService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@ApiVersion1
+public class ChangeController {
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    /**
+     * Retrieves the changes of todos and assignees after a revision. Responds with 410 if
+     * the changes are no longer available; the client then reloads the full lists.
+     *
+     * @param since The "revision" of the previous response
+     * @param limit The maximum number of changes to read, at most 1000
+     * @return The changes and the revision to continue from
+     */
+    @GetMapping("/changes")
+    public ChangeFeedDTO getChanges(@RequestParam("since") long since,
+                                    @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+        if (limit < 1 || limit > ChangeLogService.MAX_CHANGES) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                String.format("Limit must be between 1 and %d", ChangeLogService.MAX_CHANGES));
+        }
+        return changeLogService.getChanges(since, limit);
+    }
+
+    /**
+     * Subscribes to the changes of todos and assignees as server-sent events. Every
+     * "changes" event carries the revision as its ID, so EventSource resumes where it
+     * left off via Last-Event-ID; a "reset" event asks the client to reload its lists.
+     * "deadline" events without ID report todos that became due soon or overdue.
+     *
+     * @param lastEventId The last revision received, sent by EventSource on reconnect
+     * @param since       The revision to start from on the first connection, optional
+     * @return The event stream
+     */
+    @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                                    @RequestParam(value = "since", required = false) Long since) {
+        return changeFeedService.subscribe(lastEventId != null ? lastEventId : since);
+    }
+}
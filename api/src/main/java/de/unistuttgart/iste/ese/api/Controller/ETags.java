@@ -0,0 +1,184 @@
+package de.unistuttgart.iste.ese.api.Controller;
+
+import de.unistuttgart.iste.ese.api.Config.ContentNegotiationConfig;
+import de.unistuttgart.iste.ese.api.DTOs.TodoDTO;
+import de.unistuttgart.iste.ese.api.Models.Assignee;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Builds and parses the strong ETags of single todos and assignees.
+ * An ETag starts with the entity's version, which is what If-Match is checked against.
+ * <p>
+ * The same data in another encoding is another representation, so bodies not encoded
+ * as plain JSON get the ETag suffixed with their media subtype, e.g.
+ * {@code "3-1f;x-jackson-smile"}. Bodies are suffixed by {@link EncodingETagAdvice}
+ * once the encoding is chosen; conditional requests, which are answered before, pick
+ * the encoding from the Accept header like the message converters do.
+ */
+final class ETags {
+
+    private ETags() {}
+
+    /**
+     * Builds the ETag of a todo. Todos embed their assignees, so their versions are
+     * part of the ETag as well. The assignees are combined independently of their order,
+     * which the join table does not keep.
+     *
+     * @param todo The todo
+     * @return The strong ETag
+     */
+    static String of(TodoDTO todo) {
+        int assignees = 1;
+        if (todo.getAssigneeList() != null) {
+            for (Assignee assignee : todo.getAssigneeList()) {
+                assignees += Objects.hash(assignee.getId(), assignee.getVersion());
+            }
+        }
+        return String.format("\"%d-%s\"", todo.getVersion(), Integer.toHexString(assignees));
+    }
+
+    /**
+     * Builds the ETag of an assignee.
+     *
+     * @param assignee The assignee
+     * @return The strong ETag
+     */
+    static String of(Assignee assignee) {
+        return String.format("\"%d\"", assignee.getVersion());
+    }
+
+    /**
+     * Suffixes an ETag with the encoding of the body it describes, replacing any
+     * encoding it was already suffixed with.
+     *
+     * @param etag     The ETag of the data
+     * @param encoding The media type of the body, or null if unknown
+     * @return The ETag of the representation
+     */
+    static String forEncoding(String etag, MediaType encoding) {
+        int suffix = etag.indexOf(';');
+        String data = suffix >= 0 ? etag.substring(0, suffix) : etag.substring(0, etag.length() - 1);
+        if (encoding == null || encoding.equalsTypeAndSubtype(MediaType.APPLICATION_JSON)) {
+            return data + "\"";
+        }
+        return data + ";" + encoding.getSubtype() + "\"";
+    }
+
+    /**
+     * Picks the encoding of {@link ContentNegotiationConfig#ENCODINGS} an Accept header
+     * selects: the first one compatible with the most preferred accepted type.
+     *
+     * @param accept The Accept header value, may be null
+     * @return The encoding, or null if none is acceptable
+     */
+    static MediaType negotiate(String accept) {
+        List<MediaType> accepted;
+        try {
+            accepted = accept == null || accept.isBlank() ? List.of(MediaType.ALL)
+                : new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        // most preferred first: by quality, then by specificity
+        MimeTypeUtils.sortBySpecificity(accepted);
+        for (MediaType type : accepted) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            for (MediaType encoding : ContentNegotiationConfig.ENCODINGS) {
+                if (type.isCompatibleWith(encoding)) {
+                    return encoding;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether an If-None-Match header matches the current ETag in the encoding
+     * the Accept header selects.
+     *
+     * @param ifNoneMatch The If-None-Match header value, may be null
+     * @param etag        The current ETag of the data
+     * @param accept      The Accept header value, may be null
+     * @return true if the client's copy is current
+     */
+    static boolean matches(String ifNoneMatch, String etag, String accept) {
+        return matches(ifNoneMatch, forEncoding(etag, negotiate(accept)));
+    }
+
+    /**
+     * Builds the 304 response to a conditional request that {@link #matches(String, String, String)}.
+     *
+     * @param etag   The current ETag of the data
+     * @param accept The Accept header value, may be null
+     * @return The response, with the ETag of the client's representation
+     */
+    static <T> ResponseEntity<T> notModified(String etag, String accept) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+            .eTag(forEncoding(etag, negotiate(accept)))
+            .varyBy(HttpHeaders.ACCEPT)
+            .build();
+    }
+
+    /**
+     * Checks whether an If-None-Match header matches the current ETag.
+     *
+     * @param ifNoneMatch The If-None-Match header value, may be null
+     * @param etag        The current ETag
+     * @return true if the client's copy is current
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Extracts the expected entity version from an If-Match header.
+     *
+     * @param ifMatch The If-Match header value, may be null
+     * @return The expected version, or null if any version is acceptable
+     * @throws ResponseStatusException if the header is not an ETag issued by this API
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (!tag.startsWith("\"") || !tag.endsWith("\"") || tag.length() < 3) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match must be a strong ETag");
+        }
+        tag = tag.substring(1, tag.length() - 1);
+        int encoding = tag.indexOf(';');
+        if (encoding >= 0) {
+            tag = tag.substring(0, encoding);
+        }
+        int separator = tag.indexOf('-');
+        try {
+            return Long.parseLong(separator >= 0 ? tag.substring(0, separator) : tag);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Unknown ETag in If-Match");
+        }
+    }
+}
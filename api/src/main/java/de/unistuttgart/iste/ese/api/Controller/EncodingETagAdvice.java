@@ -0,0 +1,52 @@
+package de.unistuttgart.iste.ese.api.Controller;
+
+import jakarta.annotation.Nonnull;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Marks the bodies written by the Jackson converters as varying by Accept, since each
+ * of them can be encoded several ways, and suffixes their ETags with the chosen
+ * encoding, see {@link ETags}.
+ */
+@RestControllerAdvice
+public class EncodingETagAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(@Nonnull MethodParameter returnType,
+                            @Nonnull Class<? extends HttpMessageConverter<?>> converterType) {
+        return AbstractJackson2HttpMessageConverter.class.isAssignableFrom(converterType);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, @Nonnull MethodParameter returnType,
+                                  @Nonnull MediaType selectedContentType,
+                                  @Nonnull Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  @Nonnull ServerHttpRequest request, @Nonnull ServerHttpResponse response) {
+        HttpHeaders headers = response.getHeaders();
+        if (!headers.getVary().contains(HttpHeaders.ACCEPT)) {
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        String etag = headers.getETag();
+        if (etag != null) {
+            String encoded = ETags.forEncoding(etag, selectedContentType);
+            // the conditional request check has already copied the ETag to the servlet response
+            if (response instanceof ServletServerHttpResponse servletResponse
+                && servletResponse.getServletResponse().containsHeader(HttpHeaders.ETAG)) {
+                servletResponse.getServletResponse().setHeader(HttpHeaders.ETAG, encoded);
+                headers.remove(HttpHeaders.ETAG);
+            } else {
+                headers.setETag(encoded);
+            }
+        }
+        return body;
+    }
+}
@@ -0,0 +1,39 @@
+package de.unistuttgart.iste.ese.api.Controller;
+
+import de.unistuttgart.iste.ese.api.Models.TodoModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint for the AI model: GET /actuator/model reports the active model
+ * version and the reload state, POST /actuator/model reloads the model from
+ * {@code todo.model.location} without downtime.
+ */
+@Component
+@Endpoint(id = "model")
+public class ModelEndpoint {
+
+    @Autowired
+    private TodoModel todoModel;
+
+    @ReadOperation
+    public TodoModel.ModelStatus status() {
+        return todoModel.getStatus();
+    }
+
+    /**
+     * Starts a reload in the background. Responds with 202 and the status, or with 409
+     * if a reload is already in progress.
+     */
+    @WriteOperation
+    public WebEndpointResponse<TodoModel.ModelStatus> reload() {
+        boolean started = todoModel.reloadModel();
+        return new WebEndpointResponse<>(todoModel.getStatus(),
+            (started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT).value());
+    }
+}
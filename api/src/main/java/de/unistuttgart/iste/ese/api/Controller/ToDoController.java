@@ -1,53 +1,266 @@
 package de.unistuttgart.iste.ese.api.Controller;
 
 import de.unistuttgart.iste.ese.api.ApiVersion1;
+import de.unistuttgart.iste.ese.api.DTOs.CsvImportResultDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoBatchResultDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoBulkResultDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoBulkStatusDTO;
 import de.unistuttgart.iste.ese.api.DTOs.TodoDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoFilterDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoPageDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoPatchDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoStatsDTO;
+import de.unistuttgart.iste.ese.api.Services.CsvImportService;
+import de.unistuttgart.iste.ese.api.Services.DeadlineService;
+import de.unistuttgart.iste.ese.api.Services.RevisionService;
+import de.unistuttgart.iste.ese.api.Services.SearchService;
+import de.unistuttgart.iste.ese.api.Services.StatsService;
 import de.unistuttgart.iste.ese.api.Services.ToDoService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.List;
 
 @RestController
 @ApiVersion1
 public class ToDoController {
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private ToDoService toDoService;
 
+    @Autowired
+    private RevisionService revisionService;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private CsvImportService csvImportService;
+
+    @Autowired
+    private StatsService statsService;
+
+    @Autowired
+    private DeadlineService deadlineService;
+
+    /**
+     * Retrieves todos, optionally filtered and paginated. Without "limit" and "after" all
+     * matching todos are returned. With them, one page is returned and the cursor for the
+     * next page is sent in the X-Next-Cursor header (absent on the last page).
+     */
     @GetMapping("/todos")
-    public List<TodoDTO> getToDos() {
-        return toDoService.getAllToDos();
+    public ResponseEntity<List<TodoDTO>> getToDos(TodoFilterDTO filter,
+                                                  @RequestParam(value = "after", required = false) Long after,
+                                                  @RequestParam(value = "limit", required = false) Integer limit,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                  @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        // read the revision before the data, so the ETag is never newer than the body
+        String etag = revisionService.getToDoListETag();
+        if (ETags.matches(ifNoneMatch, etag, accept)) {
+            return ETags.notModified(etag, accept);
+        }
+
+        TodoPageDTO page = toDoService.getToDoPage(filter, after, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (revisionService.isReadCurrent()) {
+            response.eTag(etag);
+        }
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
+    /**
+     * Searches the titles and descriptions of all todos. Returns the todos containing
+     * all words of "q", best matches first.
+     */
+    @GetMapping("/todos/search")
+    public List<TodoDTO> searchToDos(@RequestParam("q") String query,
+                                     @RequestParam(value = "limit", required = false) Integer limit) {
+        return searchService.search(query, limit);
+    }
+
+    /**
+     * Returns aggregate figures over all todos: counts by status, category and assignee,
+     * overdue todos and the distribution of completion times.
+     */
+    @GetMapping("/todos/stats")
+    public TodoStatsDTO getToDoStats() {
+        return statsService.getStats();
+    }
+
+    /**
+     * Retrieves the open todos due within an ISO-8601 duration from now (default one
+     * day), earliest due date first. Returns at most "limit" todos (default 1000) and
+     * the cursor for the next page in the X-Next-Cursor header, to pass as "after".
+     */
+    @GetMapping("/todos/due")
+    public ResponseEntity<List<TodoDTO>> getDueToDos(@RequestParam(value = "within", defaultValue = "PT24H") Duration within,
+                                                     @RequestParam(value = "after", required = false) String after,
+                                                     @RequestParam(value = "limit", required = false) Integer limit) {
+        return page(deadlineService.getDueToDos(within, after, limit));
+    }
+
+    /**
+     * Retrieves the open todos whose due date has passed, earliest due date first,
+     * paginated like "/todos/due".
+     */
+    @GetMapping("/todos/overdue")
+    public ResponseEntity<List<TodoDTO>> getOverdueToDos(@RequestParam(value = "after", required = false) String after,
+                                                         @RequestParam(value = "limit", required = false) Integer limit) {
+        return page(deadlineService.getOverdueToDos(after, limit));
     }
 
     @GetMapping("/todos/{id}")
-    public TodoDTO getToDo(@PathVariable("id") long id) {
-        return toDoService.getToDoById(id);
+    public ResponseEntity<TodoDTO> getToDo(@PathVariable("id") long id,
+                                           @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                           @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (ifNoneMatch != null) {
+            // revalidation only needs the versions, not the todo
+            TodoDTO versions = toDoService.getToDoVersions(id);
+            if (versions != null && ETags.matches(ifNoneMatch, ETags.of(versions), accept)) {
+                return ETags.notModified(ETags.of(versions), accept);
+            }
+        }
+        TodoDTO todo = toDoService.getToDoById(id);
+        String etag = ETags.of(todo);
+        if (ETags.matches(ifNoneMatch, etag, accept)) {
+            return ETags.notModified(etag, accept);
+        }
+        return ResponseEntity.ok().eTag(etag).body(todo);
     }
 
     @GetMapping("/csv-downloads/todos")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<String> getToDoCSV() {
-        return toDoService.exportToCSV();
+    public ResponseEntity<StreamingResponseBody> getToDoCSV(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return toDoService.exportToCSV(acceptsGzip(acceptEncoding));
+    }
+
+    private static ResponseEntity<List<TodoDTO>> page(TodoPageDTO page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
+    /**
+     * Checks whether an Accept-Encoding header accepts gzip: named as "gzip" or "x-gzip",
+     * or matched by "*" if not named, with a quality above 0.
+     *
+     * @param acceptEncoding The Accept-Encoding header value, may be null
+     * @return true if the response may be gzip-compressed
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase();
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim().toLowerCase();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzip = gzip == null ? quality : Math.max(gzip, quality);
+            } else if (name.equals("*")) {
+                any = quality;
+            }
+        }
+        Double quality = gzip != null ? gzip : any;
+        return quality != null && quality > 0;
+    }
+
+    /**
+     * Imports todos from a CSV file in the format of the CSV export, uploaded as the
+     * "file" part of a multipart request.
+     */
+    @PostMapping(value = "/csv-uploads/todos", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public CsvImportResultDTO importToDoCSV(@RequestParam("file") MultipartFile file) throws IOException {
+        try (InputStream input = file.getInputStream()) {
+            return csvImportService.importCSV(input, false);
+        }
+    }
+
+    /**
+     * Imports todos from a CSV request body in the format of the CSV export, optionally
+     * sent with "Content-Encoding: gzip". The body is parsed while it is received.
+     */
+    @PostMapping(value = "/csv-uploads/todos", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    public CsvImportResultDTO importToDoCSV(InputStream body,
+                                           @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding) throws IOException {
+        boolean gzip = contentEncoding != null && contentEncoding.toLowerCase().contains("gzip");
+        return csvImportService.importCSV(body, gzip);
     }
 
     @PostMapping("/todos")
-    @ResponseStatus(HttpStatus.CREATED)
-    public TodoDTO createToDo(@Valid @RequestBody TodoDTO todo) {
-        return toDoService.createToDo(todo);
+    public ResponseEntity<TodoDTO> createToDo(@Valid @RequestBody TodoDTO todo) {
+        TodoDTO created = toDoService.createToDo(todo);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(ETags.of(created)).body(created);
+    }
+
+    @PostMapping("/todos/batch")
+    @ResponseStatus(HttpStatus.OK)
+    public List<TodoBatchResultDTO> createToDos(@RequestBody List<TodoDTO> todos) {
+        return toDoService.createToDos(todos);
     }
 
     @PutMapping("/todos/{id}")
-    public TodoDTO updateTodo(@PathVariable("id") long id,
-                              @Valid @RequestBody TodoDTO todo) {
-        return toDoService.updateToDo(id, todo);
+    public ResponseEntity<TodoDTO> updateTodo(@PathVariable("id") long id,
+                                              @Valid @RequestBody TodoDTO todo,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        TodoDTO updated = toDoService.updateToDo(id, todo, ETags.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(updated)).body(updated);
+    }
+
+    /**
+     * Changes only the fields present in the request body, see {@link TodoPatchDTO}.
+     */
+    @PatchMapping("/todos/{id}")
+    public ResponseEntity<TodoDTO> patchTodo(@PathVariable("id") long id,
+                                             @RequestBody TodoPatchDTO patch,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        TodoDTO patched = toDoService.patchToDo(id, patch, ETags.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(patched)).body(patched);
+    }
+
+    /**
+     * Marks the todos with the given IDs, or all todos matching a filter, as finished or
+     * unfinished in one request.
+     */
+    @PatchMapping("/todos")
+    @ResponseStatus(HttpStatus.OK)
+    public TodoBulkResultDTO patchToDos(@Valid @RequestBody TodoBulkStatusDTO request) {
+        return toDoService.markToDosFinished(request);
     }
 
     @DeleteMapping("/todos/{id}")
     @ResponseStatus(HttpStatus.OK)
-    public void deleteToDo(@PathVariable("id") long id) {
-        toDoService.deleteToDo(id);
+    public void deleteToDo(@PathVariable("id") long id,
+                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        toDoService.deleteToDo(id, ETags.expectedVersion(ifMatch));
     }
 }
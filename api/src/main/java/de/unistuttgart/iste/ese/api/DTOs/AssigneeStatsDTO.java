@@ -0,0 +1,16 @@
+package de.unistuttgart.iste.ese.api.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssigneeStatsDTO {
+    private long total;     // todos assigned to the assignee
+    private long finished;  // of these, finished
+    private long open;      // of these, not finished
+}
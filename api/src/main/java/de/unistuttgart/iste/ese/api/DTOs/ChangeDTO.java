@@ -0,0 +1,26 @@
+package de.unistuttgart.iste.ese.api.DTOs;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import de.unistuttgart.iste.ese.api.Models.Assignee;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * The latest change of one todo or assignee. Todos embed their assignees, so clients
+ * apply assignee changes to the embedded copies as well.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChangeDTO {
+    private long revision;      // revision of the latest change of the entity
+    private String entity;      // "todo" or "assignee"
+    private long id;
+    private String operation;   // "created", "updated" or "deleted"
+    private TodoDTO todo;       // current state of a changed todo, null for deletes
+    private Assignee assignee;  // current state of a changed assignee, null for deletes
+}
@@ -0,0 +1,18 @@
+package de.unistuttgart.iste.ese.api.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeFeedDTO {
+    private List<ChangeDTO> changes;
+    private long revision;    // revision to pass as "since" for the next request
+    private boolean hasMore;  // true if more changes are available right away
+}
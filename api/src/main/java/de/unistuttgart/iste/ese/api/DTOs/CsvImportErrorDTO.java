@@ -0,0 +1,15 @@
+package de.unistuttgart.iste.ese.api.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CsvImportErrorDTO {
+    private long line;      // line number the row starts at, the header is line 1
+    private String error;   // why the row was not imported
+}
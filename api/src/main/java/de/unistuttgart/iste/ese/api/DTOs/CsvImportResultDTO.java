@@ -0,0 +1,20 @@
+package de.unistuttgart.iste.ese.api.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CsvImportResultDTO {
+    private long rows;                      // data rows read, without the header
+    private long imported;                  // todos created
+    private long failed;                    // rows not imported
+    private List<CsvImportErrorDTO> errors; // the first failed rows, in file order
+    private boolean errorsTruncated;        // true if more rows failed than are listed
+}
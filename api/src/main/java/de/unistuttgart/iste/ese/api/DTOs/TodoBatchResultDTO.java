@@ -0,0 +1,19 @@
+package de.unistuttgart.iste.ese.api.DTOs;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TodoBatchResultDTO {
+    private int index;      // position of the item in the request list
+    private int status;     // HTTP status code for this item
+    private TodoDTO todo;   // set on success
+    private String error;   // set on failure
+}
@@ -0,0 +1,14 @@
+package de.unistuttgart.iste.ese.api.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoBulkResultDTO {
+    private int updated;  // todos whose status changed; todos already in the status are not counted
+}
@@ -0,0 +1,24 @@
+package de.unistuttgart.iste.ese.api.DTOs;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Marks several todos as finished or unfinished, selected either by ID or by filter.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoBulkStatusDTO {
+    private List<Long> ids;         // the todos to change, or null to use the filter
+    private TodoFilterDTO filter;  // selects the todos to change if no IDs are given
+
+    @NotNull(message = "Finished must be set")
+    private Boolean finished;
+}
@@ -29,4 +29,5 @@ public class TodoDTO {
     private Long dueDate;
     private Long finishedDate;
     private String category;
+    private Long version;                // used in responses, also sent as ETag
 }
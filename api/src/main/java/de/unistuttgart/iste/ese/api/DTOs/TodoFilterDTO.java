@@ -0,0 +1,28 @@
+package de.unistuttgart.iste.ese.api.DTOs;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Server-side filters for todo list queries, bound from request parameters.
+ * Date bounds are epoch milliseconds like in {@link TodoDTO}; lower bounds are
+ * inclusive, upper bounds exclusive.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class TodoFilterDTO {
+    private Boolean finished;
+    private String category;
+    private Long dueFrom;
+    private Long dueTo;
+    private Long createdFrom;
+    private Long createdTo;
+
+    public boolean isEmpty() {
+        return finished == null && category == null
+            && dueFrom == null && dueTo == null
+            && createdFrom == null && createdTo == null;
+    }
+}
@@ -0,0 +1,17 @@
+package de.unistuttgart.iste.ese.api.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoPageDTO {
+    private List<TodoDTO> items;
+    private String nextCursor; // to pass as "after" for the next page, null on the last page
+}
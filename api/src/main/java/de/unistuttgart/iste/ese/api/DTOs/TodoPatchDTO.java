@@ -0,0 +1,28 @@
+package de.unistuttgart.iste.ese.api.DTOs;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A partial update of a todo. Fields left out of the request stay unchanged; the
+ * optional fields can be cleared by sending them as null.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class TodoPatchDTO {
+    private String title;
+    private Optional<String> description;  // null if absent, empty if sent as null
+    private Boolean finished;
+    private List<Long> assigneeIdList;
+    private Optional<Long> dueDate;        // null if absent, empty if sent as null
+
+    public boolean isEmpty() {
+        return title == null && description == null && finished == null
+            && assigneeIdList == null && dueDate == null;
+    }
+}
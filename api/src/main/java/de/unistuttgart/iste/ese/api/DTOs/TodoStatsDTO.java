@@ -0,0 +1,26 @@
+package de.unistuttgart.iste.ese.api.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Map;
+
+/**
+ * Aggregate figures over all todos, see {@code GET /todos/stats}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoStatsDTO {
+    private long total;
+    private long finished;
+    private long open;
+    private long overdue;                            // open todos whose due date has passed
+    private Map<String, Long> byCategory;            // todos per category
+    private Map<Long, AssigneeStatsDTO> byAssignee;  // by assignee ID, only assignees with todos
+    private Map<String, Long> completionTime;        // finished todos by time from creation to finishing
+    private Long reconciledAt;                       // last check against the database (epoch ms), null before the first
+}
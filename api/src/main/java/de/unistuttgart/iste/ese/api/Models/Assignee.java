@@ -1,19 +1,26 @@
 package de.unistuttgart.iste.ese.api.Models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import de.unistuttgart.iste.ese.api.Config.EntityCacheConfig;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Getter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Setter;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCacheConfig.ASSIGNEE_REGION)
 @Table(name = "assignees")
 @Getter
 @Setter
 public class Assignee {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "assignee_seq")
+    @SequenceGenerator(name = "assignee_seq", sequenceName = "assignee_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -29,6 +36,11 @@ public class Assignee {
     @Email
     private String email;
 
+    // exposed as ETag header instead of in the body
+    @Version
+    @JsonIgnore
+    private Long version;
+
     public Assignee(String preName, String name, String email) {
         this.preName = preName;
         this.name = name;
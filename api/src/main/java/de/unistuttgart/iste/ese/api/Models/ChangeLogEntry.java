@@ -0,0 +1,58 @@
+package de.unistuttgart.iste.ese.api.Models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * One entry of the append-only change log. Every mutation of a todo or assignee writes
+ * an entry in the same transaction; deletes are kept as tombstones.
+ * <p>
+ * The revision is assigned by the application instead of a database sequence, so
+ * revisions become visible in order, see the change log service.
+ */
+@Entity
+@Table(name = "change_log", indexes = {
+    // pruning of old entries
+    @Index(name = "idx_change_log_changed_at", columnList = "changed_at")
+})
+@Getter
+public class ChangeLogEntry {
+    public static final String TODO = "todo";
+    public static final String ASSIGNEE = "assignee";
+
+    public static final String CREATED = "created";
+    public static final String UPDATED = "updated";
+    public static final String DELETED = "deleted";
+
+    @Id
+    @Column(name = "revision")
+    private Long revision;
+
+    @Column(name = "entity_type", nullable = false, length = 16)
+    private String entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "operation", nullable = false, length = 16)
+    private String operation;
+
+    @Column(name = "changed_at", nullable = false)
+    private Date changedAt;
+
+    public ChangeLogEntry(long revision, String entityType, long entityId, String operation, Date changedAt) {
+        this.revision = revision;
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.operation = operation;
+        this.changedAt = changedAt;
+    }
+
+    public ChangeLogEntry() {}
+}
@@ -0,0 +1,446 @@
+package de.unistuttgart.iste.ese.api.Models;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A specialized inference engine for the Todo classification model.
+ * <p>
+ * The PMML document is compiled once into primitive arrays (term table, combined
+ * IDF * coefficient weights and the intercept). A title is then scored in a single
+ * tokenizing pass over its characters without any per-call allocation: tokens are
+ * looked up in an open-addressing hash table directly from the input string.
+ * <p>
+ * Only the model shape produced by our training pipeline is supported: a
+ * {@code lowercase} step, single-word {@code TextIndex} TF-IDF features with default
+ * tokenization settings and a binary {@code RegressionModel}. Anything else is
+ * rejected with an {@link IllegalArgumentException}, so callers can fall back to the
+ * generic JPMML evaluator.
+ */
+public final class CompiledTodoModel {
+
+    private static final String PMML_NAMESPACE = "*";
+    // "TDMC" and the version of the binary format written by writeTo
+    private static final int BINARY_MAGIC = 0x54444d43;
+    private static final int BINARY_VERSION = 1;
+
+    private final String[] terms;
+    private final double[] weights;
+    private final double intercept;
+    private final String positiveLabel;
+    private final String negativeLabel;
+
+    // open-addressing hash table: slot -> term index (or -1 if empty)
+    private final char[][] slotKeys;
+    private final int[] slotHashes;
+    private final int[] slotTerms;
+    private final int slotMask;
+
+    private CompiledTodoModel(String[] terms, double[] weights, double intercept,
+                              String positiveLabel, String negativeLabel) {
+        this.terms = terms;
+        this.weights = weights;
+        this.intercept = intercept;
+        this.positiveLabel = positiveLabel;
+        this.negativeLabel = negativeLabel;
+
+        int capacity = Integer.highestOneBit(Math.max(4, terms.length * 4) - 1) << 1;
+        this.slotKeys = new char[capacity][];
+        this.slotHashes = new int[capacity];
+        this.slotTerms = new int[capacity];
+        this.slotMask = capacity - 1;
+        Arrays.fill(this.slotTerms, -1);
+        for (int i = 0; i < terms.length; i++) {
+            int hash = hash(terms[i], 0, terms[i].length());
+            int slot = mix(hash) & slotMask;
+            while (slotTerms[slot] >= 0) {
+                if (slotHashes[slot] == hash && matches(slotKeys[slot], terms[i], 0, terms[i].length())) {
+                    throw new IllegalArgumentException("Duplicate term in model: " + terms[i]);
+                }
+                slot = (slot + 1) & slotMask;
+            }
+            slotKeys[slot] = terms[i].toCharArray();
+            slotHashes[slot] = hash;
+            slotTerms[slot] = i;
+        }
+    }
+
+    /**
+     * Compiles a PMML document into a {@link CompiledTodoModel}.
+     *
+     * @param pmml The PMML document to compile
+     * @return The compiled model
+     * @throws IllegalArgumentException if the document uses features this engine does not support
+     * @throws IOException              if the document cannot be read or parsed
+     */
+    public static CompiledTodoModel compile(InputStream pmml) throws IOException {
+        Document document;
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            document = factory.newDocumentBuilder().parse(pmml);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Could not parse PMML document", e);
+        }
+
+        // Target labels are encoded in the target field name, e.g. "['private' 'work']"
+        String targetField = null;
+        for (Element miningField : elements(document.getDocumentElement(), "MiningField")) {
+            String usageType = miningField.getAttribute("usageType");
+            if ("target".equals(usageType) || "predicted".equals(usageType)) {
+                targetField = miningField.getAttribute("name");
+            }
+        }
+        if (targetField == null) {
+            throw new IllegalArgumentException("Model has no target field");
+        }
+        String[] labels = targetField.replaceAll("[\\['\\]]", "").split(" ");
+
+        // tfidf derived fields: name -> (term, idf)
+        Map<String, String> fieldTerms = new HashMap<>();
+        Map<String, Double> fieldIdfs = new HashMap<>();
+        for (Element derivedField : elements(document.getDocumentElement(), "DerivedField")) {
+            Element apply = firstChild(derivedField, "Apply");
+            if (apply == null) {
+                throw new IllegalArgumentException("Unsupported derived field: " + derivedField.getAttribute("name"));
+            }
+            String function = apply.getAttribute("function");
+            if ("lowercase".equals(function)) {
+                continue;
+            }
+            Element idf = firstChild(apply, "Constant");
+            Element textIndex = firstChild(apply, "TextIndex");
+            if (!"*".equals(function) || idf == null || textIndex == null) {
+                throw new IllegalArgumentException("Unsupported derived field: " + derivedField.getAttribute("name"));
+            }
+            checkDefaultTextIndex(textIndex);
+            Element term = firstChild(textIndex, "Constant");
+            if (term == null || term.getTextContent().isBlank()) {
+                throw new IllegalArgumentException("TextIndex without term: " + derivedField.getAttribute("name"));
+            }
+            String termText = term.getTextContent().trim().toLowerCase();
+            for (int i = 0; i < termText.length(); i++) {
+                if (isSeparator(termText.charAt(i))) {
+                    throw new IllegalArgumentException("Multi-word terms are not supported: " + termText);
+                }
+            }
+            fieldTerms.put(derivedField.getAttribute("name"), termText);
+            fieldIdfs.put(derivedField.getAttribute("name"), Double.parseDouble(idf.getTextContent().trim()));
+        }
+
+        // Binary logit regression: one scored table, one empty complement table
+        List<Element> models = elements(document.getDocumentElement(), "RegressionModel");
+        if (models.size() != 1 || !"classification".equals(models.get(0).getAttribute("functionName"))) {
+            throw new IllegalArgumentException("Expected exactly one classification RegressionModel");
+        }
+        String normalization = models.get(0).getAttribute("normalizationMethod");
+        if (!normalization.isEmpty() && !"logit".equals(normalization) && !"none".equals(normalization)) {
+            throw new IllegalArgumentException("Unsupported normalization method: " + normalization);
+        }
+        List<Element> tables = elements(models.get(0), "RegressionTable");
+        if (tables.size() != 2) {
+            throw new IllegalArgumentException("Expected a binary RegressionModel");
+        }
+        Element scored = tables.get(0);
+        Element complement = tables.get(1);
+        if (parseDouble(complement.getAttribute("intercept")) != 0.0
+            || !elements(complement, "NumericPredictor").isEmpty()) {
+            throw new IllegalArgumentException("Unsupported complement RegressionTable");
+        }
+
+        List<String> terms = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+        for (Element predictor : elements(scored, "NumericPredictor")) {
+            String name = predictor.getAttribute("name");
+            String exponent = predictor.getAttribute("exponent");
+            if (!fieldTerms.containsKey(name) || (!exponent.isEmpty() && Integer.parseInt(exponent) != 1)) {
+                throw new IllegalArgumentException("Unsupported predictor: " + name);
+            }
+            terms.add(fieldTerms.get(name));
+            weights.add(fieldIdfs.get(name) * Double.parseDouble(predictor.getAttribute("coefficient")));
+        }
+
+        return new CompiledTodoModel(
+            terms.toArray(new String[0]),
+            weights.stream().mapToDouble(Double::doubleValue).toArray(),
+            parseDouble(scored.getAttribute("intercept")),
+            labels[Integer.parseInt(scored.getAttribute("targetCategory"))],
+            labels[Integer.parseInt(complement.getAttribute("targetCategory"))]
+        );
+    }
+
+    /**
+     * Predicts the class/category of a given input text.
+     *
+     * @param inputString The input text to be classified.
+     * @return The predicted class/category for the input text.
+     */
+    public String predictClass(String inputString) {
+        double score = intercept;
+        int length = inputString.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && isSeparator(inputString.charAt(i))) i++;
+            int start = i;
+            while (i < length && !isSeparator(inputString.charAt(i))) i++;
+            int end = i;
+
+            while (start < end && isPunctuation(inputString.charAt(start))) start++;
+            while (end > start && isPunctuation(inputString.charAt(end - 1))) end--;
+            if (start < end) {
+                int term = lookup(inputString, start, end);
+                if (term >= 0) {
+                    score += weights[term];
+                }
+            }
+        }
+        return score > 0 ? positiveLabel : negativeLabel;
+    }
+
+    /**
+     * Writes the compiled model in a compact binary form that {@link #read} loads
+     * without parsing XML.
+     *
+     * @param out The stream to write to
+     * @throws IOException if the stream cannot be written
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(BINARY_MAGIC);
+        data.writeInt(BINARY_VERSION);
+        data.writeUTF(positiveLabel);
+        data.writeUTF(negativeLabel);
+        data.writeDouble(intercept);
+        data.writeInt(terms.length);
+        for (int i = 0; i < terms.length; i++) {
+            data.writeUTF(terms[i]);
+            data.writeDouble(weights[i]);
+        }
+        data.flush();
+    }
+
+    /**
+     * Reads a compiled model written by {@link #writeTo}.
+     *
+     * @param in The stream to read from
+     * @return The compiled model
+     * @throws IOException if the stream cannot be read or is not a compiled model of this version
+     */
+    public static CompiledTodoModel read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != BINARY_MAGIC || data.readInt() != BINARY_VERSION) {
+            throw new IOException("Not a compiled model of format version " + BINARY_VERSION);
+        }
+        String positiveLabel = data.readUTF();
+        String negativeLabel = data.readUTF();
+        double intercept = data.readDouble();
+        int count = data.readInt();
+        if (count < 0) {
+            throw new IOException("Corrupt compiled model");
+        }
+        String[] terms = new String[count];
+        double[] weights = new double[count];
+        for (int i = 0; i < count; i++) {
+            terms[i] = data.readUTF();
+            weights[i] = data.readDouble();
+        }
+        try {
+            return new CompiledTodoModel(terms, weights, intercept, positiveLabel, negativeLabel);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt compiled model", e);
+        }
+    }
+
+    /**
+     * Returns the labels the model predicts.
+     *
+     * @return The negative and the positive label
+     */
+    public List<String> getLabels() {
+        return List.of(negativeLabel, positiveLabel);
+    }
+
+    /**
+     * Returns the vocabulary of the compiled model.
+     *
+     * @return The terms the model scores, in model order
+     */
+    public List<String> getTerms() {
+        return List.of(terms);
+    }
+
+    /**
+     * Splits a text into the tokens the model sees: lowercased like the model's
+     * {@code lowercase} step, split at separators and trimmed of boundary punctuation.
+     *
+     * @param text The text to tokenize
+     * @return The tokens in text order, including duplicates
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        String lowercased = text.toLowerCase();
+        int length = lowercased.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && isSeparator(lowercased.charAt(i))) i++;
+            int start = i;
+            while (i < length && !isSeparator(lowercased.charAt(i))) i++;
+            int end = i;
+
+            while (start < end && isPunctuation(lowercased.charAt(start))) start++;
+            while (end > start && isPunctuation(lowercased.charAt(end - 1))) end--;
+            if (start < end) {
+                tokens.add(lowercased.substring(start, end));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Checks whether a character separates tokens. Mirrors the PMML default
+     * {@code wordSeparatorCharacterRE} of {@code \s+}.
+     *
+     * @param c The character to check
+     * @return true if the character is a word separator
+     */
+    public static boolean isSeparator(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Checks whether a character is punctuation that is trimmed from token boundaries.
+     *
+     * @param c The character to check
+     * @return true if the character is punctuation
+     */
+    public static boolean isPunctuation(char c) {
+        switch (Character.getType(c)) {
+            case Character.DASH_PUNCTUATION:
+            case Character.START_PUNCTUATION:
+            case Character.END_PUNCTUATION:
+            case Character.CONNECTOR_PUNCTUATION:
+            case Character.OTHER_PUNCTUATION:
+            case Character.INITIAL_QUOTE_PUNCTUATION:
+            case Character.FINAL_QUOTE_PUNCTUATION:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Lowercases a single character the way the model's {@code lowercase} step does.
+     * Returns 0 for characters whose lowercase form is not a single char, since they
+     * can never be part of a model term.
+     *
+     * @param c The character to lowercase
+     * @return The lowercased character, or 0 if it has no single-char lowercase form
+     */
+    public static char toLowerCase(char c) {
+        if (c < 0x80) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        // U+0130 lowercases to "i" followed by a combining dot
+        return c == '\u0130' ? 0 : Character.toLowerCase(c);
+    }
+
+    private int lookup(String text, int start, int end) {
+        int hash = hash(text, start, end);
+        int slot = mix(hash) & slotMask;
+        while (slotTerms[slot] >= 0) {
+            if (slotHashes[slot] == hash && matches(slotKeys[slot], text, start, end)) {
+                return slotTerms[slot];
+            }
+            slot = (slot + 1) & slotMask;
+        }
+        return -1;
+    }
+
+    private static int hash(String text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + toLowerCase(text.charAt(i));
+        }
+        return hash;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(char[] key, String text, int start, int end) {
+        if (key.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != toLowerCase(text.charAt(start + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void checkDefaultTextIndex(Element textIndex) {
+        String[][] defaults = {
+            {"localTermWeights", "termFrequency"},
+            {"isCaseSensitive", "false"},
+            {"maxLevenshteinDistance", "0"},
+            {"countHits", "allHits"},
+            {"wordSeparatorCharacterRE", "\\s+"},
+            {"tokenize", "true"}
+        };
+        for (String[] setting : defaults) {
+            String value = textIndex.getAttribute(setting[0]);
+            if (!value.isEmpty() && !value.equals(setting[1])) {
+                throw new IllegalArgumentException(
+                    String.format("Unsupported TextIndex setting %s=%s", setting[0], value));
+            }
+        }
+        if (firstChild(textIndex, "TextIndexNormalization") != null) {
+            throw new IllegalArgumentException("TextIndexNormalization is not supported");
+        }
+    }
+
+    private static double parseDouble(String value) {
+        return value.isEmpty() ? 0.0 : Double.parseDouble(value);
+    }
+
+    private static List<Element> elements(Element parent, String localName) {
+        NodeList nodes = parent.getElementsByTagNameNS(PMML_NAMESPACE, localName);
+        List<Element> result = new ArrayList<>(nodes.getLength());
+        for (int i = 0; i < nodes.getLength(); i++) {
+            result.add((Element) nodes.item(i));
+        }
+        return result;
+    }
+
+    private static Element firstChild(Element parent, String localName) {
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element element && localName.equals(element.getLocalName())) {
+                return element;
+            }
+        }
+        return null;
+    }
+}
@@ -1,40 +1,66 @@
 package de.unistuttgart.iste.ese.api.Models;
 
+import de.unistuttgart.iste.ese.api.Config.EntityCacheConfig;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.validation.constraints.NotNull;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCacheConfig.TODO_REGION)
+@Table(indexes = {
+    // composite indexes for keyset pagination (ordered by id) with server-side filters
+    @Index(name = "idx_todo_finished_id", columnList = "finished, id"),
+    @Index(name = "idx_todo_category_id", columnList = "category, id"),
+    @Index(name = "idx_todo_due_date_id", columnList = "due_date, id"),
+    @Index(name = "idx_todo_created_date_id", columnList = "created_date, id"),
+    // range queries over the due dates of open todos, in due date order
+    @Index(name = "idx_todo_finished_due_date_id", columnList = "finished, due_date, id")
+})
 public class ToDo {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "todo_seq")
+    @SequenceGenerator(name = "todo_seq", sequenceName = "todo_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
     @NotNull (message = "Title cannot be null")
     private String title;
     private String description;
+    @Column(name = "finished")
     private boolean finished;
 
-    @ManyToMany (fetch = FetchType.EAGER)
+    @ManyToMany (fetch = FetchType.LAZY)
+    // not cached: the set-based link delete in assignee deletion could leave a concurrently
+    // loaded list with a deleted assignee in the cache
     @JoinTable(
         name = "todo_assignee_list",
         joinColumns = @JoinColumn(name = "todo_id"),
-        inverseJoinColumns = @JoinColumn(name = "assignee_id")
+        inverseJoinColumns = @JoinColumn(name = "assignee_id"),
+        // reverse lookup for removing an assignee from all todos
+        indexes = @Index(name = "idx_todo_assignee_list_assignee_id", columnList = "assignee_id")
     )
     private List<Assignee> assigneeList;
+    @Column(name = "created_date")
     private Date createdDate;
+    @Column(name = "due_date")
     private Date dueDate;
     private Date finishedDate;
+    @Column(name = "category")
     private String category;
+    @Version
+    private Long version;
 
 
     public ToDo ( String title, String description, boolean finished, List<Assignee> assigneeList, Date createdDate, Date dueDate, Date finishedDate, String category){
@@ -54,6 +80,10 @@ public class ToDo {
     }
     // Get and Set functions
 
+    public Long getVersion() {
+        return version;
+    }
+
     public String getCategory() {
         return category;
     }
@@ -1,5 +1,12 @@
 package de.unistuttgart.iste.ese.api.Models;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.annotation.PostConstruct;
 import jakarta.xml.bind.JAXBException;
 import org.apache.commons.logging.Log;
@@ -7,88 +14,723 @@ import org.apache.commons.logging.LogFactory;
 import org.jpmml.evaluator.Evaluator;
 import org.jpmml.evaluator.LoadingModelEvaluatorBuilder;
 import org.jpmml.evaluator.OutputField;
-import org.jpmml.evaluator.TargetField;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 import org.xml.sax.SAXException;
 
 import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 
 /**
  * A class for loading and using a PMML-based Todo classification model.
+ * <p>
+ * By default, predictions are served by a {@link CompiledTodoModel}. Verifying it
+ * against the generic JPMML evaluator at load time is opt-in with
+ * {@code todo.model.verification-samples}; otherwise only CompiledTodoModelTest checks
+ * the bundled model at build time. Setting {@code todo.model.engine=jpmml} selects the
+ * JPMML evaluator instead.
+ * <p>
+ * The model is read from {@code todo.model.location} and can be replaced at runtime
+ * with {@link #reloadModel()}: the new model is loaded, validated and warmed up on a
+ * background thread while the current one keeps serving, and then swapped in with a
+ * single volatile write. Every prediction reads that reference once, so it is made
+ * entirely by one fully loaded model.
+ * <p>
+ * With {@code todo.model.startup=background}, the model is loaded and warmed up in
+ * parallel with the initialization of the application context; predictions requested
+ * before it is ready wait for it. With {@code todo.model.binary-cache-dir}, compiled
+ * models are cached by version, so later starts skip parsing the XML.
  */
 @Component
 public class TodoModel {
+    /**
+     * The category predicted while no model is loaded.
+     */
+    public static final String UNKNOWN_CATEGORY = "unknown";
 
     private static final Log LOG = LogFactory.getLog(TodoModel.class);
 
-    private Evaluator evaluator;
+    private static final String[] FILLER_WORDS = {
+        "buy", "call", "the", "for", "with", "mom", "new", "plan", "fix", "write", "and", "a", "to", "q3"
+    };
+    private static final String[] DECORATIONS = {"", "", "", ",", ".", "!", "?", ":", "(", ")", "\"", "-", "'s"};
+    private static final String[] SEPARATORS = {" ", " ", " ", "  ", "\t", "\n"};
+
+    /**
+     * The state of the active model and of the last reload, as reported by the model
+     * actuator endpoint.
+     *
+     * @param version         The first 12 hex digits of the SHA-256 of the PMML file, null without a model
+     * @param location        Where the active model was loaded from, null without a model
+     * @param engine          "compiled" or "jpmml", null without a model
+     * @param loadedAt        When the active model went live (epoch ms), null without a model
+     * @param reloading       Whether a reload is in progress
+     * @param lastReloadError Why the last reload failed, null if it succeeded or none ran yet
+     */
+    public record ModelStatus(String version, String location, String engine, Long loadedAt,
+                              boolean reloading, String lastReloadError) {
+    }
+
+    /**
+     * A prediction in the cache, with the generation of the model that made it.
+     */
+    private record Prediction(long generation, String category) {
+    }
+
+    /**
+     * A fully loaded model. Immutable once constructed, so it can be shared by all
+     * threads through a single volatile reference.
+     */
+    private static final class LoadedModel {
+        final long generation;
+        // null if the compiled model was read from the binary cache
+        final Evaluator evaluator;
+        final CompiledTodoModel compiledModel;
+        final String[] targetLabels;
+        final String version;
+        final String location;
+        final long loadedAt;
+
+        LoadedModel(long generation, Evaluator evaluator, CompiledTodoModel compiledModel, String[] targetLabels,
+                    String version, String location) {
+            this.generation = generation;
+            this.evaluator = evaluator;
+            this.compiledModel = compiledModel;
+            this.targetLabels = targetLabels;
+            this.version = version;
+            this.location = location;
+            this.loadedAt = System.currentTimeMillis();
+        }
+
+        /**
+         * Predicts the class/category of a normalized input text with the selected engine.
+         */
+        String predict(String normalizedInput) {
+            return compiledModel != null ? compiledModel.predictClass(normalizedInput) : evaluate(normalizedInput);
+        }
+
+        /**
+         * Predicts the classes/categories of several normalized input texts.
+         */
+        Map<String, String> predictAll(Set<? extends String> normalizedInputs) {
+            Map<String, String> predictions = new HashMap<>();
+            if (compiledModel != null) {
+                for (String normalizedInput : normalizedInputs) {
+                    predictions.put(normalizedInput, compiledModel.predictClass(normalizedInput));
+                }
+                return predictions;
+            }
+
+            // Reuse a single input map for the whole batch
+            Map<String, Object> input = new HashMap<>();
+            for (String normalizedInput : normalizedInputs) {
+                input.put("text", normalizedInput);
+                predictions.put(normalizedInput, parseModelOutput(evaluator.evaluate(input)));
+            }
+            return predictions;
+        }
+
+        /**
+         * Predicts the class/category of a given input text with the generic JPMML evaluator,
+         * regardless of the selected engine.
+         */
+        String evaluate(String inputString) {
+            // Prepare the input data
+            Map<String, Object> input = new HashMap<>();
+            input.put("text", inputString);
+
+            // Predict class and parse results
+            return parseModelOutput(evaluator.evaluate(input));
+        }
+
+        /**
+         * Parses the model's output to retrieve the predicted class/category.
+         */
+        private String parseModelOutput(Map<String, ?> results) {
+            // Secondary result (eg. probability(y), decision(y)) fields
+            List<OutputField> outputFields = evaluator.getOutputFields();
+
+            int predictedLabelIndex = Integer.parseInt(results.get(outputFields.get(2).getName()).toString());
+            return targetLabels[predictedLabelIndex];
+        }
+    }
+
+    @Value("${todo.model.engine:compiled}")
+    private String engine = "compiled";
+
+    @Value("${todo.model.verification-samples:0}")
+    private int verificationSamples = 0;
+
+    @Value("${todo.model.location:classpath:model.pmml}")
+    private String location = "classpath:model.pmml";
+
+    @Value("${todo.model.warmup-samples:20000}")
+    private int warmupSamples = 20000;
+
+    @Value("${todo.model.startup:blocking}")
+    private String startup = "blocking";
+
+    @Value("${todo.model.binary-cache-dir:}")
+    private String binaryCacheDir = "";
+
+    // completed once the model loaded at startup is active, or its loading failed
+    private final CompletableFuture<Void> initialLoad = new CompletableFuture<>();
+
+    // null without a loaded model
+    private volatile LoadedModel active;
+
+    private final AtomicLong generations = new AtomicLong();
+
+    private final AtomicBoolean reloading = new AtomicBoolean();
+
+    private volatile String lastReloadError;
+
+    private final Cache<String, Prediction> predictionCache;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Timer predictTimer;
+
+    private final Map<String, Counter> categoryCounters = new ConcurrentHashMap<>();
 
     /**
-     * Loads the PMML model from the specified file path and initializes the model
-     * evaluator.
-     * If the loading process encounters any exceptions, the evaluator is set to
-     * null.
+     * Creates the model with a bounded prediction cache. Caffeine's W-TinyLFU policy
+     * evicts by size and access frequency, so frequent titles survive bursts of
+     * one-off ones.
+     *
+     * @param cacheMaximumSize Maximum number of cached predictions
+     * @param meterRegistry    Registry for prediction and cache metrics, if available
+     */
+    public TodoModel(@Value("${todo.model.cache.maximum-size:10000}") long cacheMaximumSize,
+                     ObjectProvider<MeterRegistry> meterRegistry) {
+        this.predictionCache = Caffeine.newBuilder()
+            .maximumSize(cacheMaximumSize)
+            .recordStats()
+            .build();
+        this.meterRegistry = meterRegistry.getIfAvailable();
+        if (this.meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(this.meterRegistry, this.predictionCache, "todo.model.predictions");
+            this.predictTimer = Timer.builder("todo.model.predict")
+                .description("Latency of predictClass, including cache lookups")
+                .publishPercentileHistogram()
+                .register(this.meterRegistry);
+            Gauge.builder("todo.model.loaded", this, model -> model.isLoaded() ? 1 : 0)
+                .description("1 if a model is loaded, 0 if predictions fall back to \"unknown\"")
+                .register(this.meterRegistry);
+            Gauge.builder("todo.model.compiled", this, model -> {
+                    LoadedModel current = model.active;
+                    return current != null && current.compiledModel != null ? 1 : 0;
+                })
+                .description("1 if predictions are served by the compiled model")
+                .register(this.meterRegistry);
+        } else {
+            this.predictTimer = null;
+        }
+    }
+
+    /**
+     * Loads the PMML model from {@code todo.model.location} and initializes the model
+     * evaluator, on a background thread if {@code todo.model.startup=background}.
+     * If the loading process encounters any exceptions, no model is loaded and
+     * predictions fall back to "unknown".
+     * If the compiled engine is selected, the model is additionally compiled. Only with
+     * {@code todo.model.verification-samples} above 0 (default 0) is it checked for
+     * equivalence with the evaluator on a generated corpus, falling back to the
+     * evaluator on any mismatch.
      */
     @PostConstruct
     public void loadModel() {
-        // Building a model evaluator from a PMML file
+        if ("background".equalsIgnoreCase(startup)) {
+            Thread.ofPlatform().name("todo-model-load").daemon().start(() -> loadInitialModel(true));
+        } else {
+            loadInitialModel(false);
+        }
+    }
+
+    /**
+     * Waits until the model loaded at startup is active or its loading failed. Returns
+     * right away unless the model is still loading in the background.
+     */
+    public void awaitInitialLoad() {
+        initialLoad.join();
+    }
+
+    /**
+     * Checks whether loading the model at startup has finished, successfully or not.
+     *
+     * @return true if the initial load is done
+     */
+    public boolean isInitialLoadDone() {
+        return initialLoad.isDone();
+    }
+
+    private void loadInitialModel(boolean warmUp) {
+        long start = System.nanoTime();
         try {
-            this.evaluator = new LoadingModelEvaluatorBuilder()
-                .load(getClass().getClassLoader().getResourceAsStream("model.pmml"))
-                .build();
-        } catch (ParserConfigurationException | SAXException | JAXBException e) {
+            LoadedModel model = load(read());
+            if (warmUp) {
+                warmUp(model);
+            }
+            activate(model);
+            LOG.info(String.format("Loaded AI model in %d ms", (System.nanoTime() - start) / 1_000_000));
+        } catch (IOException | IllegalArgumentException e) {
             LOG.error("Could not load AI model:", e);
-            this.evaluator = null;
+        } finally {
+            initialLoad.complete(null);
         }
     }
 
     /**
-     * Parses the model's output to retrieve the predicted class/category.
+     * Replaces the model with the current content of {@code todo.model.location} without
+     * interrupting predictions. On a background thread, the new model is loaded,
+     * optionally verified (see {@link #loadModel()}), validated on a generated corpus and
+     * warmed up with synthetic predictions so the JIT has compiled its hot paths; only
+     * then does it go live. If any step fails, the current model stays active and the
+     * error is reported by {@link #getStatus()}.
      *
-     * @param results The results obtained from evaluating the model on input data.
-     * @return The predicted class/category based on the model's output.
+     * @return false if a reload is already in progress, true if one was started
      */
-    private String parseModelOutput(Map<String, ?> results) {
-        // Primary result (y) field(s)
-        List<TargetField> targetFields = this.evaluator.getTargetFields();
-        // Secondary result (eg. probability(y), decision(y)) fields
-        List<OutputField> outputFields = this.evaluator.getOutputFields();
+    public boolean reloadModel() {
+        if (!reloading.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread.ofPlatform().name("todo-model-reload").daemon().start(() -> {
+            try {
+                byte[] pmml = read();
+                LoadedModel current = active;
+                if (current != null && current.version.equals(version(pmml))) {
+                    LOG.info("AI model at " + location + " is unchanged (version " + current.version + ")");
+                } else {
+                    LoadedModel next = load(pmml);
+                    warmUp(next);
+                    activate(next);
+                }
+                lastReloadError = null;
+                countReload("success");
+            } catch (IOException | RuntimeException e) {
+                LOG.error("Could not reload AI model, keeping the active one:", e);
+                lastReloadError = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+                countReload("failure");
+            } finally {
+                reloading.set(false);
+            }
+        });
+        return true;
+    }
 
-        int predictedLabelIndex = Integer.parseInt(results.get(outputFields.get(2).getName()).toString());
-        String[] targetLabels = targetFields.get(0).getName().replaceAll("[\\['\\]]", "").split(" ");
-        return targetLabels[predictedLabelIndex];
+    /**
+     * Returns the version and origin of the active model and the state of reloads.
+     *
+     * @return The model status
+     */
+    public ModelStatus getStatus() {
+        LoadedModel current = active;
+        if (current == null) {
+            return new ModelStatus(null, null, null, null, reloading.get(), lastReloadError);
+        }
+        return new ModelStatus(current.version, current.location,
+            current.compiledModel != null ? "compiled" : "jpmml", current.loadedAt,
+            reloading.get(), lastReloadError);
     }
 
     /**
      * Predicts the class/category of a given input text.
+     * Predictions are cached by the normalized (lowercased) text, since that is the
+     * only input the model sees.
      *
      * @param inputString The input text to be classified.
      * @return The predicted class/category for the input text.
      */
     public String predictClass(String inputString) {
-        if (evaluator == null) {
+        LoadedModel model = activeModel();
+        if (model == null) {
             LOG.warn("Cannot predict class without a loaded model");
-            return "unknown";
+            countCategory(UNKNOWN_CATEGORY);
+            return UNKNOWN_CATEGORY;
+        }
+        long start = predictTimer != null ? System.nanoTime() : 0;
+        String key = normalize(inputString);
+        Prediction prediction = predictionCache.get(key, k -> new Prediction(model.generation, model.predict(k)));
+        String category = prediction.generation() == model.generation ? prediction.category()
+            : repredict(model, key, prediction);
+        if (predictTimer != null) {
+            predictTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        countCategory(category);
+        return category;
+    }
+
+    /**
+     * Predicts the classes/categories of several input texts in one pass.
+     * Cached predictions are reused, only the remaining texts are evaluated.
+     *
+     * @param inputStrings The input texts to be classified.
+     * @return The predicted classes/categories, in the same order as the input texts.
+     */
+    public List<String> predictClasses(List<String> inputStrings) {
+        List<String> categories = new ArrayList<>(inputStrings.size());
+        LoadedModel model = activeModel();
+        if (model == null) {
+            LOG.warn("Cannot predict classes without a loaded model");
+            inputStrings.forEach(inputString -> {
+                categories.add(UNKNOWN_CATEGORY);
+                countCategory(UNKNOWN_CATEGORY);
+            });
+            return categories;
+        }
+
+        List<String> keys = inputStrings.stream().map(TodoModel::normalize).collect(Collectors.toList());
+        Map<String, Prediction> predictions = predictionCache.getAll(keys, missing -> model.predictAll(missing)
+            .entrySet().stream()
+            .collect(Collectors.toMap(Map.Entry::getKey, entry -> new Prediction(model.generation, entry.getValue()))));
+        for (String key : keys) {
+            Prediction prediction = predictions.get(key);
+            String category = prediction.generation() == model.generation ? prediction.category()
+                : repredict(model, key, prediction);
+            categories.add(category);
+            countCategory(category);
+        }
+        return categories;
+    }
+
+    /**
+     * Checks whether a model is loaded. Without one, every prediction is "unknown".
+     *
+     * @return true if the compiled model or the JPMML evaluator is available
+     */
+    public boolean isLoaded() {
+        return this.active != null;
+    }
+
+    /**
+     * Returns the active model. Requests that arrive while the model loads in the
+     * background wait for it instead of falling back to "unknown".
+     *
+     * @return The active model, or null if none is loaded
+     */
+    private LoadedModel activeModel() {
+        LoadedModel model = this.active;
+        if (model == null && !initialLoad.isDone()) {
+            initialLoad.join();
+            model = this.active;
+        }
+        return model;
+    }
+
+    /**
+     * Counts a prediction by its category.
+     *
+     * @param category The predicted category
+     */
+    private void countCategory(String category) {
+        if (meterRegistry != null) {
+            categoryCounters.computeIfAbsent(category, c -> Counter.builder("todo.model.categories")
+                .description("Predictions by category")
+                .tag("category", c)
+                .register(meterRegistry)).increment();
+        }
+    }
+
+    private void countReload(String result) {
+        if (meterRegistry != null) {
+            Counter.builder("todo.model.reloads")
+                .description("Model reloads")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+        }
+    }
+
+    /**
+     * Normalizes an input text the way the model's {@code lowercase(text)} step does.
+     *
+     * @param inputString The input text
+     * @return The normalized text used as cache key
+     */
+    private static String normalize(String inputString) {
+        return inputString.toLowerCase();
+    }
+
+    /**
+     * Predicts again for a cache entry made by another model generation. The entry is
+     * only replaced if it is older; a request that started before a swap still answers
+     * with the model it started with.
+     *
+     * @param model      The model of the current request
+     * @param key        The normalized input text
+     * @param prediction The cached prediction of another generation
+     * @return The prediction of the request's model
+     */
+    private String repredict(LoadedModel model, String key, Prediction prediction) {
+        String category = model.predict(key);
+        if (prediction.generation() < model.generation) {
+            predictionCache.put(key, new Prediction(model.generation, category));
+        }
+        return category;
+    }
+
+    /**
+     * Makes a loaded model the active one. Predictions of the previous model are
+     * dropped from the cache; any that are stored concurrently are recognized by their
+     * generation.
+     *
+     * @param model The model to activate
+     */
+    private void activate(LoadedModel model) {
+        LoadedModel previous = this.active;
+        this.active = model;
+        predictionCache.invalidateAll();
+        LOG.info(String.format("AI model %s from %s is active (%s engine%s)", model.version, model.location,
+            model.compiledModel != null ? "compiled" : "jpmml",
+            previous != null ? ", replacing " + previous.version : ""));
+    }
+
+    /**
+     * Reads the model file from {@code todo.model.location}, a Spring resource location
+     * like "classpath:model.pmml" or "file:/opt/models/model.pmml".
+     *
+     * @return The content of the file
+     * @throws IOException if the file cannot be read
+     */
+    private byte[] read() throws IOException {
+        Resource resource = new DefaultResourceLoader().getResource(location);
+        try (InputStream stream = resource.getInputStream()) {
+            return stream.readAllBytes();
+        }
+    }
+
+    /**
+     * Builds the model from the content of a model file. With the compiled engine, it is
+     * also compiled, and verified if {@code todo.model.verification-samples} is above 0.
+     *
+     * @param pmml The content of the model file
+     * @return The loaded model, not yet active
+     * @throws IllegalArgumentException if the file is not a valid model
+     */
+    private LoadedModel load(byte[] pmml) {
+        String version = version(pmml);
+        boolean compile = "compiled".equalsIgnoreCase(engine);
+        if (compile) {
+            CompiledTodoModel cached = readBinaryCache(version);
+            if (cached != null) {
+                return new LoadedModel(generations.incrementAndGet(), null, cached,
+                    cached.getLabels().toArray(new String[0]), version, location);
+            }
+        }
+
+        // Building a model evaluator from a PMML file
+        Evaluator evaluator;
+        String[] targetLabels;
+        try {
+            evaluator = new LoadingModelEvaluatorBuilder()
+                .load(new ByteArrayInputStream(pmml))
+                .build();
+            evaluator.verify();
+            // The target field name encodes the labels, e.g. "['private' 'work']"
+            targetLabels = evaluator.getTargetFields().get(0).getName()
+                .replaceAll("[\\['\\]]", "").split(" ");
+        } catch (ParserConfigurationException | SAXException | JAXBException | RuntimeException e) {
+            throw new IllegalArgumentException("Invalid AI model at " + location + ": " + e.getMessage(), e);
+        }
+
+        long generation = generations.incrementAndGet();
+        LoadedModel jpmmlModel = new LoadedModel(generation, evaluator, null, targetLabels, version, location);
+        if (compile) {
+            try {
+                CompiledTodoModel compiled = CompiledTodoModel.compile(new ByteArrayInputStream(pmml));
+                if (isEquivalent(jpmmlModel, compiled)) {
+                    writeBinaryCache(version, compiled);
+                    return new LoadedModel(generation, evaluator, compiled, targetLabels, version, location);
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                LOG.warn("Could not compile AI model, falling back to JPMML evaluator: " + e.getMessage());
+            }
         }
+        return jpmmlModel;
+    }
 
-        // Prepare the input data
-        Map<String, Object> input = new HashMap<>();
-        input.put("text", inputString);
+    /**
+     * Reads a compiled model from {@code todo.model.binary-cache-dir}.
+     *
+     * @param version The version of the model
+     * @return The compiled model, or null if the cache is disabled, has no entry for
+     *         the version or the entry cannot be read
+     */
+    private CompiledTodoModel readBinaryCache(String version) {
+        if (binaryCacheDir.isBlank()) {
+            return null;
+        }
+        Path file = Path.of(binaryCacheDir, "todo-model-" + version + ".bin");
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            CompiledTodoModel compiled = CompiledTodoModel.read(in);
+            LOG.info("Read compiled AI model " + version + " from " + file);
+            return compiled;
+        } catch (IOException e) {
+            LOG.warn("Could not read compiled AI model from " + file + ", compiling it again: " + e.getMessage());
+            return null;
+        }
+    }
 
-        // Predict class and parse results
-        Map<String, ?> results = this.evaluator.evaluate(input);
+    /**
+     * Stores a compiled model in {@code todo.model.binary-cache-dir}, if set.
+     * The file is written under a temporary name and then moved into place, so
+     * concurrent readers never see a partial file.
+     *
+     * @param version  The version of the model
+     * @param compiled The compiled model
+     */
+    private void writeBinaryCache(String version, CompiledTodoModel compiled) {
+        if (binaryCacheDir.isBlank()) {
+            return;
+        }
+        Path file = Path.of(binaryCacheDir, "todo-model-" + version + ".bin");
+        try {
+            Files.createDirectories(file.getParent());
+            Path temporary = Files.createTempFile(file.getParent(), "todo-model-", ".tmp");
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                compiled.writeTo(out);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warn("Could not cache compiled AI model in " + file + ": " + e.getMessage());
+        }
+    }
 
-        return parseModelOutput(results);
+    /**
+     * Runs synthetic predictions through a model before it goes live, checking that
+     * every prediction is one of its labels.
+     *
+     * @param model The model to warm up
+     * @throws IllegalArgumentException if the model predicts an unknown label
+     */
+    private void warmUp(LoadedModel model) {
+        long start = System.nanoTime();
+        Set<String> labels = Set.of(model.targetLabels);
+        Random random = new Random(7);
+        List<String> terms = model.compiledModel != null ? model.compiledModel.getTerms() : Arrays.asList(FILLER_WORDS);
+        for (int sample = 0; sample < warmupSamples; sample++) {
+            String category = model.predict(normalize(generateTitle(random, terms)));
+            if (!labels.contains(category)) {
+                throw new IllegalArgumentException("AI model predicted unknown label \"" + category + "\"");
+            }
+        }
+        LOG.info(String.format("Warmed up AI model %s with %d predictions in %d ms",
+            model.version, warmupSamples, (System.nanoTime() - start) / 1_000_000));
+    }
+
+    /**
+     * Checks that the compiled model predicts the same label as the JPMML evaluator
+     * for every title of a generated corpus of {@code todo.model.verification-samples}
+     * titles. Disabled by default, since CompiledTodoModelTest verifies the bundled
+     * model at build time.
+     *
+     * @param model    The model with the JPMML evaluator
+     * @param compiled The compiled model to check
+     * @return true if both engines agree on the whole corpus, or the check is disabled
+     */
+    private boolean isEquivalent(LoadedModel model, CompiledTodoModel compiled) {
+        if (verificationSamples <= 0) {
+            return true;
+        }
+        Random random = new Random(42);
+        List<String> terms = compiled.getTerms();
+        for (int sample = 0; sample < verificationSamples; sample++) {
+            String title = generateTitle(random, terms);
+            String expected = model.evaluate(title);
+            String actual = compiled.predictClass(title);
+            if (!expected.equals(actual)) {
+                LOG.warn(String.format(
+                    "Compiled AI model disagrees with JPMML evaluator for \"%s\" (%s vs. %s), falling back to JPMML",
+                    title, actual, expected));
+                return false;
+            }
+        }
+        LOG.info(String.format("Compiled AI model verified against JPMML evaluator on %d titles", verificationSamples));
+        return true;
+    }
+
+    /**
+     * Generates a random title mixing model terms, filler words, case variants and punctuation.
+     *
+     * @param random The random source
+     * @param terms  The model vocabulary
+     * @return The generated title
+     */
+    static String generateTitle(Random random, List<String> terms) {
+        StringBuilder title = new StringBuilder();
+        int words = 1 + random.nextInt(8);
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                title.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+            }
+            String word = random.nextInt(3) == 0
+                ? FILLER_WORDS[random.nextInt(FILLER_WORDS.length)]
+                : terms.get(random.nextInt(terms.size()));
+            switch (random.nextInt(4)) {
+                case 0 -> word = word.toUpperCase();
+                case 1 -> word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+                default -> { }
+            }
+            if (random.nextInt(4) == 0) {
+                word = DECORATIONS[random.nextInt(DECORATIONS.length)] + word;
+            }
+            if (random.nextInt(3) == 0) {
+                word = word + DECORATIONS[random.nextInt(DECORATIONS.length)];
+            }
+            title.append(word);
+        }
+        return title.toString();
+    }
+
+    /**
+     * Identifies a model file by the first 12 hex digits of its SHA-256 hash.
+     *
+     * @param pmml The content of the model file
+     * @return The version
+     */
+    private static String version(byte[] pmml) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(pmml)).substring(0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     /**
-     * Unloads the loaded PMML model, releasing resources.
+     * Unloads the loaded PMML model, releasing resources. Predictions fall back to
+     * "unknown" until a model is loaded again.
      */
     public void unloadModel() {
-        this.evaluator = null;
+        this.active = null;
+        this.predictionCache.invalidateAll();
     }
 }
@@ -2,9 +2,29 @@ package de.unistuttgart.iste.ese.api.Repositories;
 
 import de.unistuttgart.iste.ese.api.Models.Assignee;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface AssigneeRepository extends JpaRepository<Assignee, Long> {
-    Assignee findById(long id);
+    /**
+     * Finds an assignee by ID through the entity manager, so the second-level cache is used.
+     *
+     * @return The assignee, or null if not found
+     */
+    default Assignee findById(long id) {
+        return findById(Long.valueOf(id)).orElse(null);
+    }
+
+    /**
+     * Deletes an assignee if it still has a version, with one statement, so a concurrent
+     * update either commits before and prevents the delete or finds the assignee gone.
+     *
+     * @return The number of deleted assignees, 0 if the assignee is gone or has another version
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Assignee a where a.id = :id and a.version = :version")
+    int deleteByIdAndVersion(@Param("id") long id, @Param("version") long version);
 }
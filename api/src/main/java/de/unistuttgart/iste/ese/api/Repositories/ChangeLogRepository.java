@@ -0,0 +1,52 @@
+package de.unistuttgart.iste.ese.api.Repositories;
+
+import de.unistuttgart.iste.ese.api.Models.ChangeLogEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+    /**
+     * Finds the entries in a revision range, oldest first.
+     *
+     * @return The entries with after < revision <= upTo, at most one page
+     */
+    @Query("select c from ChangeLogEntry c where c.revision > :after and c.revision <= :upTo order by c.revision")
+    List<ChangeLogEntry> findRange(@Param("after") long after, @Param("upTo") long upTo, Pageable page);
+
+    /**
+     * @return The highest stored revision, or null if the log is empty
+     */
+    @Query("select max(c.revision) from ChangeLogEntry c")
+    Long findMaxRevision();
+
+    /**
+     * @return The lowest stored revision, or null if the log is empty
+     */
+    @Query("select min(c.revision) from ChangeLogEntry c")
+    Long findMinRevision();
+
+    /**
+     * @return The highest revision written before the given time, or null if there is none
+     */
+    @Query("select max(c.revision) from ChangeLogEntry c where c.changedAt < :before")
+    Long findMaxRevisionBefore(@Param("before") Date before);
+
+    /**
+     * Deletes all entries up to a revision.
+     *
+     * @return The number of deleted entries
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from ChangeLogEntry c where c.revision <= :upTo")
+    int deleteUpTo(@Param("upTo") long upTo);
+}
@@ -1,10 +1,151 @@
 package de.unistuttgart.iste.ese.api.Repositories;
 
 import de.unistuttgart.iste.ese.api.Models.ToDo;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 
 @Repository
-public interface ToDoRepository extends JpaRepository<ToDo, Long> {
-    ToDo findById(long id);
+public interface ToDoRepository extends JpaRepository<ToDo, Long>, ToDoRepositoryCustom {
+    /**
+     * Finds a todo by ID through the entity manager, so the second-level cache is used
+     * for the todo and its assignee list.
+     *
+     * @return The todo, or null if not found
+     */
+    default ToDo findById(long id) {
+        return findById(Long.valueOf(id)).orElse(null);
+    }
+
+    /**
+     * Reads the searchable text of the todos after a keyset cursor, ordered by ID.
+     *
+     * @return Rows of ID, title and description
+     */
+    @Query("select t.id, t.title, t.description from ToDo t where t.id > :afterId order by t.id")
+    List<Object[]> findSearchTexts(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Reads the due dates of the open todos due at or after a time, after a keyset cursor,
+     * ordered by ID.
+     *
+     * @return Rows of ID and due date
+     */
+    @Query("select t.id, t.dueDate from ToDo t "
+        + "where t.finished = false and t.dueDate >= :from and t.id > :afterId order by t.id")
+    List<Object[]> findOpenDueDates(@Param("afterId") long afterId, @Param("from") Date from, Pageable pageable);
+
+    /**
+     * Reads what the ETag of a todo is built from, without loading the todo: its version
+     * and the ID and version of each assignee, using the join table's primary key.
+     *
+     * @return One row of todo version, assignee ID and assignee version per assignee, a
+     * single row with null assignee for a todo without assignees, or no row if not found
+     */
+    @Query("select t.version, a.id, a.version from ToDo t left join t.assigneeList a where t.id = :id")
+    List<Object[]> findVersionsById(@Param("id") long id);
+
+    /**
+     * Reads the due dates of those of the given todos that are open and have one.
+     *
+     * @return Rows of ID and due date
+     */
+    @Query("select t.id, t.dueDate from ToDo t where t.id in :ids and t.finished = false and t.dueDate is not null")
+    List<Object[]> findOpenDueDatesByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Reads the columns of a todo that the statistics depend on.
+     *
+     * @return No row or one row of category, finished, due date, created date and finished date
+     */
+    @Query("select t.category, t.finished, t.dueDate, t.createdDate, t.finishedDate from ToDo t where t.id = :id")
+    List<Object[]> findStatsColumns(@Param("id") long id);
+
+    /**
+     * Counts the todos per category and status.
+     *
+     * @return Rows of category, finished and count
+     */
+    @Query("select t.category, t.finished, count(t) from ToDo t group by t.category, t.finished")
+    List<Object[]> countByCategoryAndFinished();
+
+    /**
+     * Counts the open todos per due date.
+     *
+     * @return Rows of due date and count
+     */
+    @Query("select t.dueDate, count(t) from ToDo t where t.finished = false and t.dueDate is not null group by t.dueDate")
+    List<Object[]> countOpenByDueDate();
+
+    /**
+     * Counts the todos per assignee and status.
+     *
+     * @return Rows of assignee ID, finished and count
+     */
+    @Query("select a.id, t.finished, count(t) from ToDo t join t.assigneeList a group by a.id, t.finished")
+    List<Object[]> countByAssigneeAndFinished();
+
+    /**
+     * Counts the finished todos by the time from creation to finishing, with bucket
+     * boundaries in seconds.
+     *
+     * @return One row with the counts below each boundary and the count above the last
+     */
+    @Query("select "
+        + "sum(case when (t.finishedDate - t.createdDate) by second < :b1 then 1 else 0 end), "
+        + "sum(case when (t.finishedDate - t.createdDate) by second >= :b1 "
+        + "and (t.finishedDate - t.createdDate) by second < :b2 then 1 else 0 end), "
+        + "sum(case when (t.finishedDate - t.createdDate) by second >= :b2 "
+        + "and (t.finishedDate - t.createdDate) by second < :b3 then 1 else 0 end), "
+        + "sum(case when (t.finishedDate - t.createdDate) by second >= :b3 "
+        + "and (t.finishedDate - t.createdDate) by second < :b4 then 1 else 0 end), "
+        + "sum(case when (t.finishedDate - t.createdDate) by second >= :b4 then 1 else 0 end) "
+        + "from ToDo t where t.finished = true and t.finishedDate is not null and t.createdDate is not null")
+    List<Object[]> countByCompletionTime(@Param("b1") long b1, @Param("b2") long b2,
+                                         @Param("b3") long b3, @Param("b4") long b4);
+
+    /**
+     * Sets the category of a todo that is still pending, unless its title changed since
+     * it was classified. Only the first of several queued classifications of the same
+     * title applies, e.g. after the title was edited from A to B and back to A.
+     * Bumps the version, since the todo's representation changes.
+     *
+     * @return The number of updated rows
+     */
+    @Modifying
+    @Transactional
+    @Query("update ToDo t set t.category = :category, t.version = t.version + 1 "
+        + "where t.id = :id and t.title = :title and t.category = 'pending'")
+    int updateCategory(@Param("id") long id, @Param("title") String title, @Param("category") String category);
+
+    /**
+     * Finds the todos an assignee is linked to.
+     *
+     * @return The IDs of the todos
+     */
+    @Query("select t.id from ToDo t join t.assigneeList a where a.id = :assigneeId")
+    List<Long> findIdsByAssigneeId(@Param("assigneeId") long assigneeId);
+
+    /**
+     * Removes an assignee from all todos with one set-based delete on the join table,
+     * using its index on assignee_id.
+     *
+     * @return The number of removed links
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    // declares the table it touches, which no cache region holds, instead of invalidating all regions
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "todo_assignee_list"))
+    @Query(value = "delete from todo_assignee_list where assignee_id = :assigneeId", nativeQuery = true)
+    int removeAssigneeFromAllToDos(@Param("assigneeId") long assigneeId);
 }
@@ -0,0 +1,84 @@
+package de.unistuttgart.iste.ese.api.Repositories;
+
+import de.unistuttgart.iste.ese.api.DTOs.TodoDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoFilterDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoPatchDTO;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface ToDoRepositoryCustom {
+    /**
+     * Finds todos matching a filter in ID order, starting after a keyset cursor, and
+     * returns them as DTOs including their assignees. Uses one query for the todos and
+     * one batched IN query per 1000 todos for the assignees; no managed entities are created.
+     *
+     * @param filter  The filter to apply
+     * @param afterId Only todos with a greater ID are returned, null to start at the beginning
+     * @param limit   Maximum number of todos to return, 0 for no limit
+     * @return The matching todos as DTOs
+     */
+    List<TodoDTO> findTodoDTOs(TodoFilterDTO filter, Long afterId, int limit);
+
+    /**
+     * Finds the todos with the given IDs and returns them as DTOs including their
+     * assignees, in ID order. IDs of missing todos are skipped.
+     *
+     * @param ids The IDs of the todos to find
+     * @return The found todos as DTOs
+     */
+    List<TodoDTO> findTodoDTOsByIds(Collection<Long> ids);
+
+    /**
+     * Finds the open todos with a due date in a range, ordered by due date and ID, and
+     * returns them as DTOs including their assignees. Pages are sought by the due date
+     * and ID of the last todo of the previous page.
+     *
+     * @param from         The inclusive lower bound of the due date, or null for no bound
+     * @param to           The exclusive upper bound of the due date
+     * @param afterDueDate The due date of the last todo of the previous page, or null for the first page
+     * @param afterId      The ID of the last todo of the previous page, or null for the first page
+     * @param limit        Maximum number of todos to return, 0 for no limit
+     * @return The matching todos as DTOs, earliest due date first
+     */
+    List<TodoDTO> findOpenTodoDTOsByDueDate(Date from, Date to, Date afterDueDate, Long afterId, int limit);
+
+    /**
+     * Applies a partial update to the columns of a todo with a single UPDATE statement,
+     * without loading the entity. Assignees are not changed. The finished date is only
+     * set when the todo becomes finished and kept when it already was. Bumps the version
+     * and clears the persistence context, like the other modifying queries.
+     *
+     * @param id              The ID of the todo
+     * @param patch           The fields to change
+     * @param category        The new category if the title changes, otherwise ignored
+     * @param now             The finished date if the todo becomes finished
+     * @param expectedVersion Only update if the todo has this version, null to skip the check
+     * @return The number of updated rows, 0 if the todo does not exist or has another version
+     */
+    int patchToDo(long id, TodoPatchDTO patch, String category, Date now, Long expectedVersion);
+
+    /**
+     * Finds the IDs of the todos that match a filter (and an ID list, if given) and are
+     * not yet in a status, in ID order.
+     *
+     * @param filter   The filter to apply
+     * @param ids      Only consider these todos, or null for all
+     * @param finished The status the todos should get
+     * @return The IDs of the todos whose status would change
+     */
+    List<Long> findIdsToMark(TodoFilterDTO filter, Collection<Long> ids, boolean finished);
+
+    /**
+     * Sets the status of todos with one set-based UPDATE per 1000 IDs. Todos that are
+     * already in the status are not touched. Bumps the versions and clears the
+     * persistence context.
+     *
+     * @param ids      The IDs of the todos
+     * @param finished The new status
+     * @param now      The finished date if the todos become finished
+     * @return The number of updated rows
+     */
+    int markFinished(List<Long> ids, boolean finished, Date now);
+}
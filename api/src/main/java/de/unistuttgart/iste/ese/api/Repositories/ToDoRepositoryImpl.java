@@ -0,0 +1,278 @@
+package de.unistuttgart.iste.ese.api.Repositories;
+
+import de.unistuttgart.iste.ese.api.DTOs.TodoDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoFilterDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoPatchDTO;
+import de.unistuttgart.iste.ese.api.Models.Assignee;
+import de.unistuttgart.iste.ese.api.Models.ToDo;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Keyset-paginated projection queries for {@link ToDoRepository}. Every filter column
+ * is covered by a composite index with {@code id}, see {@link ToDo}. Pages are ordered
+ * and sought by {@code id}, so only equality filters seek along these indexes; with a
+ * date range, the database either scans by {@code id} and skips rows outside the range
+ * or reads the whole range and sorts it for every page.
+ */
+public class ToDoRepositoryImpl implements ToDoRepositoryCustom {
+    static final int IN_CLAUSE_LIMIT = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TodoDTO> findTodoDTOs(TodoFilterDTO filter, Long afterId, int limit) {
+        return queryTodoDTOs((cb, todo) -> buildPredicates(cb, todo, filter, afterId), limit);
+    }
+
+    @Override
+    public List<TodoDTO> findOpenTodoDTOsByDueDate(Date from, Date to, Date afterDueDate, Long afterId, int limit) {
+        return queryTodoDTOs((cb, todo) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.isFalse(todo.<Boolean>get("finished")));
+            predicates.add(from != null
+                ? cb.greaterThanOrEqualTo(todo.<Date>get("dueDate"), from)
+                : cb.isNotNull(todo.get("dueDate")));
+            predicates.add(cb.lessThan(todo.<Date>get("dueDate"), to));
+            if (afterDueDate != null && afterId != null) {
+                predicates.add(cb.or(
+                    cb.greaterThan(todo.<Date>get("dueDate"), afterDueDate),
+                    cb.and(cb.equal(todo.get("dueDate"), afterDueDate), cb.greaterThan(todo.<Long>get("id"), afterId))));
+            }
+            return predicates;
+        }, List.of("dueDate", "id"), limit);
+    }
+
+    @Override
+    public List<TodoDTO> findTodoDTOsByIds(Collection<Long> ids) {
+        List<Long> idList = new ArrayList<>(ids);
+        List<TodoDTO> todos = new ArrayList<>(idList.size());
+        for (int from = 0; from < idList.size(); from += IN_CLAUSE_LIMIT) {
+            List<Long> chunk = idList.subList(from, Math.min(from + IN_CLAUSE_LIMIT, idList.size()));
+            todos.addAll(queryTodoDTOs((cb, todo) -> List.of(todo.get("id").in(chunk)), 0));
+        }
+        return todos;
+    }
+
+    @Override
+    public int patchToDo(long id, TodoPatchDTO patch, String category, Date now, Long expectedVersion) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<ToDo> update = cb.createCriteriaUpdate(ToDo.class);
+        Root<ToDo> todo = update.from(ToDo.class);
+
+        if (patch.getTitle() != null) {
+            update.set(todo.<String>get("title"), patch.getTitle());
+            update.set(todo.<String>get("category"), category);
+        }
+        if (patch.getDescription() != null) {
+            update.set(todo.<String>get("description"), patch.getDescription()
+                .<Expression<String>>map(cb::literal)
+                .orElseGet(() -> cb.nullLiteral(String.class)));
+        }
+        if (patch.getDueDate() != null) {
+            update.set(todo.<Date>get("dueDate"), patch.getDueDate()
+                .<Expression<Date>>map(dueDate -> cb.literal(new Date(dueDate)))
+                .orElseGet(() -> cb.nullLiteral(Date.class)));
+        }
+        if (patch.getFinished() != null) {
+            // set before "finished": MariaDB evaluates SET clauses left to right, so the
+            // CASE has to run while "finished" still holds the old value
+            Expression<Date> finishedDate = patch.getFinished()
+                ? cb.<Date>selectCase()
+                    .when(cb.isTrue(todo.<Boolean>get("finished")), todo.<Date>get("finishedDate"))
+                    .otherwise(now)
+                : cb.nullLiteral(Date.class);
+            update.set(todo.<Date>get("finishedDate"), finishedDate);
+            update.set(todo.<Boolean>get("finished"), patch.getFinished());
+        }
+        update.set(todo.<Long>get("version"), cb.sum(todo.<Long>get("version"), 1L));
+
+        Predicate byId = cb.equal(todo.get("id"), id);
+        update.where(expectedVersion != null ? cb.and(byId, cb.equal(todo.get("version"), expectedVersion)) : byId);
+        int updated = entityManager.createQuery(update).executeUpdate();
+        entityManager.clear();
+        return updated;
+    }
+
+    @Override
+    public List<Long> findIdsToMark(TodoFilterDTO filter, Collection<Long> ids, boolean finished) {
+        if (ids == null) {
+            return queryIdsToMark(filter, null, finished);
+        }
+        List<Long> idList = new ArrayList<>(ids);
+        List<Long> found = new ArrayList<>();
+        for (int from = 0; from < idList.size(); from += IN_CLAUSE_LIMIT) {
+            found.addAll(queryIdsToMark(filter, idList.subList(from, Math.min(from + IN_CLAUSE_LIMIT, idList.size())),
+                finished));
+        }
+        return found;
+    }
+
+    private List<Long> queryIdsToMark(TodoFilterDTO filter, List<Long> ids, boolean finished) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<ToDo> todo = query.from(ToDo.class);
+        List<Predicate> predicates = buildPredicates(cb, todo, filter, null);
+        predicates.add(cb.notEqual(todo.get("finished"), finished));
+        if (ids != null) {
+            predicates.add(todo.get("id").in(ids));
+        }
+        query.select(todo.get("id"))
+            .where(predicates.toArray(new Predicate[0]))
+            .orderBy(cb.asc(todo.get("id")));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public int markFinished(List<Long> ids, boolean finished, Date now) {
+        int updated = 0;
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_LIMIT) {
+            updated += entityManager.createQuery(
+                    "update ToDo t set t.finished = :finished, t.finishedDate = :finishedDate, "
+                        + "t.version = t.version + 1 where t.id in :ids and t.finished <> :finished")
+                .setParameter("finished", finished)
+                .setParameter("finishedDate", finished ? now : null)
+                .setParameter("ids", ids.subList(from, Math.min(from + IN_CLAUSE_LIMIT, ids.size())))
+                .executeUpdate();
+        }
+        entityManager.clear();
+        return updated;
+    }
+
+    private List<TodoDTO> queryTodoDTOs(BiFunction<CriteriaBuilder, Root<ToDo>, List<Predicate>> predicates,
+                                        int limit) {
+        return queryTodoDTOs(predicates, List.of("id"), limit);
+    }
+
+    /**
+     * Runs the DTO projection query for the todos matching some predicates.
+     *
+     * @param predicates Builds the predicates for the query root
+     * @param orderBy    The attributes to sort by, ascending
+     * @param limit      Maximum number of todos to return, 0 for no limit
+     * @return The matching todos as DTOs including their assignees
+     */
+    private List<TodoDTO> queryTodoDTOs(BiFunction<CriteriaBuilder, Root<ToDo>, List<Predicate>> predicates,
+                                        List<String> orderBy, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<ToDo> todo = query.from(ToDo.class);
+
+        query.multiselect(
+                todo.get("id"),
+                todo.get("title"),
+                todo.get("description"),
+                todo.get("finished"),
+                todo.get("createdDate"),
+                todo.get("dueDate"),
+                todo.get("finishedDate"),
+                todo.get("category"),
+                todo.get("version"))
+            .where(predicates.apply(cb, todo).toArray(new Predicate[0]))
+            .orderBy(orderBy.stream().map(attribute -> cb.asc(todo.get(attribute))).toList());
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (limit > 0) {
+            typedQuery.setMaxResults(limit);
+        }
+
+        List<TodoDTO> todos = new ArrayList<>();
+        Map<Long, TodoDTO> todosById = new HashMap<>();
+        for (Tuple row : typedQuery.getResultList()) {
+            TodoDTO dto = new TodoDTO(
+                row.get(0, Long.class),
+                row.get(1, String.class),
+                row.get(2, String.class),
+                row.get(3, Boolean.class),
+                null,
+                new ArrayList<>(),
+                toMillis(row.get(4, Date.class)),
+                toMillis(row.get(5, Date.class)),
+                toMillis(row.get(6, Date.class)),
+                row.get(7, String.class),
+                row.get(8, Long.class)
+            );
+            todos.add(dto);
+            todosById.put(dto.getId(), dto);
+        }
+
+        attachAssignees(todosById);
+        return todos;
+    }
+
+    /**
+     * Loads the assignees of the given todos with batched IN queries over the join table.
+     *
+     * @param todosById The todos to attach assignees to, by ID
+     */
+    private void attachAssignees(Map<Long, TodoDTO> todosById) {
+        List<Long> ids = new ArrayList<>(todosById.keySet());
+        // assignees are shared between todos, so build each one only once
+        Map<Long, Assignee> assigneesById = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_LIMIT) {
+            List<Object[]> links = entityManager.createQuery(
+                    "select t.id, a.id, a.preName, a.name, a.email, a.version "
+                        + "from ToDo t join t.assigneeList a where t.id in :ids", Object[].class)
+                .setParameter("ids", ids.subList(from, Math.min(from + IN_CLAUSE_LIMIT, ids.size())))
+                .getResultList();
+            for (Object[] link : links) {
+                Assignee assignee = assigneesById.computeIfAbsent((Long) link[1], id -> {
+                    Assignee projected = new Assignee((String) link[2], (String) link[3], (String) link[4]);
+                    projected.setId(id);
+                    // part of the todo's ETag
+                    projected.setVersion((Long) link[5]);
+                    return projected;
+                });
+                todosById.get((Long) link[0]).getAssigneeList().add(assignee);
+            }
+        }
+    }
+
+    private static List<Predicate> buildPredicates(CriteriaBuilder cb, Root<ToDo> todo,
+                                                   TodoFilterDTO filter, Long afterId) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (afterId != null) {
+            predicates.add(cb.greaterThan(todo.<Long>get("id"), afterId));
+        }
+        if (filter.getFinished() != null) {
+            predicates.add(cb.equal(todo.get("finished"), filter.getFinished()));
+        }
+        if (filter.getCategory() != null) {
+            predicates.add(cb.equal(todo.get("category"), filter.getCategory()));
+        }
+        if (filter.getDueFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(todo.<Date>get("dueDate"), new Date(filter.getDueFrom())));
+        }
+        if (filter.getDueTo() != null) {
+            predicates.add(cb.lessThan(todo.<Date>get("dueDate"), new Date(filter.getDueTo())));
+        }
+        if (filter.getCreatedFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(todo.<Date>get("createdDate"), new Date(filter.getCreatedFrom())));
+        }
+        if (filter.getCreatedTo() != null) {
+            predicates.add(cb.lessThan(todo.<Date>get("createdDate"), new Date(filter.getCreatedTo())));
+        }
+        return predicates;
+    }
+
+    private static Long toMillis(Date date) {
+        return date != null ? date.getTime() : null;
+    }
+}
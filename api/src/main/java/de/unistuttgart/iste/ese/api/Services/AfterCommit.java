@@ -0,0 +1,30 @@
+package de.unistuttgart.iste.ese.api.Services;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers changes of in-memory state until the database changes they mirror are visible.
+ */
+final class AfterCommit {
+    private AfterCommit() {}
+
+    /**
+     * Runs an action once the current transaction commits, or right away outside of a
+     * transaction. The action is dropped if the transaction rolls back.
+     *
+     * @param action The action to run
+     */
+    static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
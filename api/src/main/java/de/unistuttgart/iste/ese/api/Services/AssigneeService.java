@@ -1,17 +1,21 @@
 package de.unistuttgart.iste.ese.api.Services;
 
 import de.unistuttgart.iste.ese.api.Models.Assignee;
+import de.unistuttgart.iste.ese.api.Models.ChangeLogEntry;
 import de.unistuttgart.iste.ese.api.Repositories.AssigneeRepository;
-import de.unistuttgart.iste.ese.api.Models.ToDo;
 import de.unistuttgart.iste.ese.api.Repositories.ToDoRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 
 @Service
+@Timed(value = "todo.service", description = "Service method calls", histogram = true)
 public class AssigneeService {
     @Autowired
     private AssigneeRepository assigneeRepository;
@@ -19,11 +23,21 @@ public class AssigneeService {
     @Autowired
     private ToDoRepository toDoRepository;
 
+    @Autowired
+    private RevisionService revisionService;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private StatsService statsService;
+
     /**
      * Retrieves all assignees from the repository.
      *
      * @return List of all assignees
      */
+    @Transactional(readOnly = true)
     public List<Assignee> getAllAssignees() {
         return assigneeRepository.findAll();
     }
@@ -35,6 +49,7 @@ public class AssigneeService {
      * @return The found assignee
      * @throws ResponseStatusException if assignee is not found
      */
+    @Transactional(readOnly = true)
     public Assignee getAssigneeById(long id) {
         Assignee assignee = assigneeRepository.findById(id);
         if (assignee == null) {
@@ -51,9 +66,13 @@ public class AssigneeService {
      * @return The newly created assignee
      * @throws ResponseStatusException if email validation fails
      */
+    @Transactional
     public Assignee createAssignee(Assignee assignee) {
         validateUniversityEmail(assignee.getEmail());
-        return assigneeRepository.save(assignee);
+        Assignee savedAssignee = assigneeRepository.save(assignee);
+        changeLogService.record(ChangeLogEntry.ASSIGNEE, savedAssignee.getId(), ChangeLogEntry.CREATED);
+        revisionService.assigneesChanged();
+        return savedAssignee;
     }
 
     /**
@@ -64,8 +83,26 @@ public class AssigneeService {
      * @return The updated assignee
      * @throws ResponseStatusException if assignee is not found
      */
+    @Transactional
     public Assignee updateAssignee(long id, Assignee updatedAssignee) {
+        return updateAssignee(id, updatedAssignee, null);
+    }
+
+    /**
+     * Updates an existing assignee's information if it still has the expected version.
+     * The version is checked again by the UPDATE statement itself, so concurrent
+     * writers cannot overwrite each other without a lock.
+     *
+     * @param id              The ID of the assignee to update
+     * @param updatedAssignee The updated assignee information
+     * @param expectedVersion The version the client based its changes on, or null to skip the check
+     * @return The updated assignee
+     * @throws ResponseStatusException if assignee is not found or the version does not match
+     */
+    @Transactional
+    public Assignee updateAssignee(long id, Assignee updatedAssignee, Long expectedVersion) {
         Assignee existingAssignee = getAssigneeById(id);
+        checkVersion(expectedVersion, existingAssignee.getVersion());
 
         validateUniversityEmail(updatedAssignee.getEmail());
 
@@ -73,26 +110,75 @@ public class AssigneeService {
         existingAssignee.setName(updatedAssignee.getName());
         existingAssignee.setEmail(updatedAssignee.getEmail());
 
-        return assigneeRepository.save(existingAssignee);
+        try {
+            // flush, so a concurrent modification surfaces here instead of at commit
+            Assignee savedAssignee = assigneeRepository.saveAndFlush(existingAssignee);
+            changeLogService.record(ChangeLogEntry.ASSIGNEE, id, ChangeLogEntry.UPDATED);
+            revisionService.assigneesChanged();
+            return savedAssignee;
+        } catch (OptimisticLockingFailureException e) {
+            throw new ResponseStatusException(
+                expectedVersion != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT,
+                String.format("Assignee with ID %s was modified by another request", id));
+        }
     }
 
     /**
      * Deletes an assignee and removes their association from all todos.
+     * The links are removed with one set-based statement in the same transaction,
+     * so the cost depends only on the number of linked todos.
      *
      * @param id The ID of the assignee to delete
      * @throws ResponseStatusException if assignee is not found
      */
+    @Transactional
     public void deleteAssignee(long id) {
-        Assignee assigneeToDelete = getAssigneeById(id);
+        deleteAssignee(id, null);
+    }
+
+    /**
+     * Deletes an assignee if it still has the expected version and removes their
+     * association from all todos in the same transaction. The version is checked again
+     * by the DELETE statement itself, like for updates. The change log gets an update of
+     * each linked todo besides the deletion of the assignee.
+     *
+     * @param id              The ID of the assignee to delete
+     * @param expectedVersion The version the client based its request on, or null to skip the check
+     * @throws ResponseStatusException if assignee is not found or the version does not match
+     */
+    @Transactional
+    public void deleteAssignee(long id, Long expectedVersion) {
+        long version = getAssigneeById(id).getVersion();
+        checkVersion(expectedVersion, version);
 
-        // Remove assignee from all associated todos
-        List<ToDo> associatedToDos = toDoRepository.findAll();
-        for (ToDo toDo : associatedToDos) {
-            toDo.getAssigneeList().removeIf(assignee -> assignee.getId().equals(id));
-            toDoRepository.save(toDo);
+        // Remove assignee from all associated todos, whose representation changes with it
+        List<Long> linkedToDoIds = toDoRepository.findIdsByAssigneeId(id);
+        toDoRepository.removeAssigneeFromAllToDos(id);
+        changeLogService.recordAll(ChangeLogEntry.TODO, linkedToDoIds, ChangeLogEntry.UPDATED);
+
+        if (assigneeRepository.deleteByIdAndVersion(id, version) == 0) {
+            // rolls back the removed links
+            throw new ResponseStatusException(
+                expectedVersion != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT,
+                String.format("Assignee with ID %s was modified by another request", id));
         }
+        changeLogService.record(ChangeLogEntry.ASSIGNEE, id, ChangeLogEntry.DELETED);
+        statsService.assigneeDeleted(id);
+        revisionService.assigneesChanged();
+    }
 
-        assigneeRepository.deleteById(id);
+    /**
+     * Checks that an assignee still has the version a client expects.
+     *
+     * @param expectedVersion The expected version, or null to skip the check
+     * @param currentVersion  The current version of the assignee
+     * @throws ResponseStatusException if the versions differ
+     */
+    private void checkVersion(Long expectedVersion, Long currentVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(currentVersion)) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                "Assignee was modified by another request");
+        }
     }
 
     /**
@@ -0,0 +1,347 @@
+package de.unistuttgart.iste.ese.api.Services;
+
+import de.unistuttgart.iste.ese.api.Models.ChangeLogEntry;
+import de.unistuttgart.iste.ese.api.Models.ToDo;
+import de.unistuttgart.iste.ese.api.Models.TodoModel;
+import de.unistuttgart.iste.ese.api.Repositories.ToDoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Categorizes todos via the AI model, either synchronously on the request thread or,
+ * with {@code todo.categorization.mode=async}, on background virtual threads.
+ * <p>
+ * In async mode todos are stored with the {@link #PENDING_CATEGORY} and queued. Workers
+ * drain the bounded queue in micro-batches, classify them in one pass through
+ * {@link TodoModel} and write the categories back with a targeted update. When the
+ * queue stays full, the caller classifies its todo itself, which slows down writers
+ * instead of letting the queue grow without limit. The todos of a batch that fails,
+ * e.g. because the database was briefly unreachable, are queued again up to
+ * {@code MAX_ATTEMPTS} times.
+ */
+@Service
+public class CategorizationService {
+
+    public static final String PENDING_CATEGORY = "pending";
+
+    private static final Log LOG = LogFactory.getLog(CategorizationService.class);
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Autowired
+    private TodoModel todoModel;
+
+    @Autowired
+    private ToDoRepository toDoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RevisionService revisionService;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private StatsService statsService;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${todo.categorization.mode:sync}")
+    private String mode;
+
+    @Value("${todo.categorization.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${todo.categorization.batch-size:64}")
+    private int batchSize;
+
+    @Value("${todo.categorization.workers:2}")
+    private int workers;
+
+    @Value("${todo.categorization.enqueue-timeout-ms:50}")
+    private long enqueueTimeoutMs;
+
+    private record Task(long id, String title, long enqueuedAt, int attempt) {}
+
+    private BlockingQueue<Task> queue;
+    private ExecutorService executor;
+    private TransactionTemplate transactionTemplate;
+    private volatile boolean running;
+
+    // number of todos enqueued but not yet written back
+    private final AtomicLong outstanding = new AtomicLong();
+    private final ReentrantLock idleLock = new ReentrantLock();
+    private final Condition idleCondition = idleLock.newCondition();
+
+    private Timer lagTimer;
+    private Counter inlineCounter;
+
+    /**
+     * Starts the background workers if async mode is enabled.
+     */
+    @PostConstruct
+    public void start() {
+        if (!isAsync()) {
+            return;
+        }
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // also used after the commit of a request's transaction, which must not be joined
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.running = true;
+        this.executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("todo-categorizer-", 0).factory());
+        for (int i = 0; i < workers; i++) {
+            executor.submit(this::work);
+        }
+
+        meterRegistry.ifAvailable(registry -> {
+            Gauge.builder("todo.categorization.queue.depth", queue, BlockingQueue::size)
+                .description("Todos waiting for categorization")
+                .register(registry);
+            this.lagTimer = Timer.builder("todo.categorization.lag")
+                .description("Time from enqueueing a todo to writing back its category")
+                .publishPercentileHistogram()
+                .register(registry);
+            this.inlineCounter = Counter.builder("todo.categorization.inline")
+                .description("Todos categorized on the request thread because the queue was full")
+                .register(registry);
+        });
+    }
+
+    /**
+     * Stops the background workers, giving queued todos a moment to finish.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (executor == null) {
+            return;
+        }
+        awaitIdle(Duration.ofSeconds(5));
+        running = false;
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Checks whether categorization runs off the request path.
+     *
+     * @return true in async mode
+     */
+    public boolean isAsync() {
+        return "async".equalsIgnoreCase(mode);
+    }
+
+    /**
+     * Returns the category a todo should be stored with initially.
+     *
+     * @param title The title of the todo
+     * @return The predicted category, or {@link #PENDING_CATEGORY} in async mode
+     */
+    public String initialCategory(String title) {
+        return isAsync() ? PENDING_CATEGORY : todoModel.predictClass(title);
+    }
+
+    /**
+     * Schedules the categorization of a stored todo with a pending category.
+     * Within a transaction, the todo is queued once the transaction commits, so the
+     * workers see it. If the queue stays full, the todo is categorized on the calling
+     * thread and the given entity is updated with the result.
+     *
+     * @param todo The stored todo
+     */
+    public void scheduleCategorization(ToDo todo) {
+        if (!isAsync() || !PENDING_CATEGORY.equals(todo.getCategory())) {
+            return;
+        }
+        outstanding.incrementAndGet();
+        Task task = new Task(todo.getId(), todo.getTitle(), System.nanoTime(), 1);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        enqueue(task, todo);
+                    } else {
+                        completed(1);
+                    }
+                }
+            });
+        } else {
+            enqueue(task, todo);
+        }
+    }
+
+    private void enqueue(Task task, ToDo todo) {
+        boolean queued = false;
+        try {
+            queued = queue.offer(task, enqueueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queued) {
+            try {
+                String category = todoModel.predictClass(task.title());
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (toDoRepository.updateCategory(task.id(), task.title(), category) > 0) {
+                        changeLogService.record(ChangeLogEntry.TODO, task.id(), ChangeLogEntry.UPDATED);
+                        statsService.categoryChanged(PENDING_CATEGORY, category);
+                    }
+                    revisionService.toDosChanged();
+                });
+                todo.setCategory(category);
+                if (inlineCounter != null) {
+                    inlineCounter.increment();
+                }
+            } finally {
+                completed(1);
+            }
+        }
+    }
+
+    /**
+     * Waits until all scheduled categorizations have been written back.
+     *
+     * @param timeout The maximum time to wait
+     * @return true if the queue drained in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitIdle(Duration timeout) throws InterruptedException {
+        long remaining = timeout.toNanos();
+        idleLock.lock();
+        try {
+            while (outstanding.get() > 0) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = idleCondition.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            idleLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of todos waiting in the queue.
+     *
+     * @return The current queue depth
+     */
+    public int getQueueDepth() {
+        return queue != null ? queue.size() : 0;
+    }
+
+    private void work() {
+        List<Task> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Task first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                categorize(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                retry(batch, e);
+            } finally {
+                completed(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private void categorize(List<Task> batch) {
+        List<String> categories = todoModel.predictClasses(batch.stream()
+            .map(Task::title)
+            .collect(Collectors.toList()));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < batch.size(); i++) {
+                // only applies if the title was not changed in the meantime
+                long id = batch.get(i).id();
+                if (toDoRepository.updateCategory(id, batch.get(i).title(), categories.get(i)) > 0) {
+                    changeLogService.record(ChangeLogEntry.TODO, id, ChangeLogEntry.UPDATED);
+                    statsService.categoryChanged(PENDING_CATEGORY, categories.get(i));
+                }
+            }
+            revisionService.toDosChanged();
+        });
+
+        if (lagTimer != null) {
+            long now = System.nanoTime();
+            for (Task task : batch) {
+                lagTimer.record(now - task.enqueuedAt(), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Queues the todos of a failed batch again. Todos that failed {@code MAX_ATTEMPTS}
+     * times, or that do not fit into the full queue, stay pending.
+     *
+     * @param batch The failed batch, still counted as outstanding
+     * @param cause Why the batch failed
+     */
+    private void retry(List<Task> batch, RuntimeException cause) {
+        List<Long> dropped = new ArrayList<>();
+        for (Task task : batch) {
+            // counted before the batch is completed, so the service does not look idle in between
+            outstanding.incrementAndGet();
+            if (task.attempt() >= MAX_ATTEMPTS
+                || !queue.offer(new Task(task.id(), task.title(), task.enqueuedAt(), task.attempt() + 1))) {
+                dropped.add(task.id());
+                completed(1);
+            }
+        }
+        if (dropped.isEmpty()) {
+            LOG.warn("Could not categorize " + batch.size() + " todos, queued them again: " + cause.getMessage());
+        } else {
+            LOG.error("Could not categorize todos, leaving " + dropped + " pending:", cause);
+        }
+    }
+
+    private void completed(int count) {
+        if (count > 0 && outstanding.addAndGet(-count) == 0) {
+            idleLock.lock();
+            try {
+                idleCondition.signalAll();
+            } finally {
+                idleLock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,441 @@
+package de.unistuttgart.iste.ese.api.Services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import de.unistuttgart.iste.ese.api.DTOs.ChangeDTO;
+import de.unistuttgart.iste.ese.api.DTOs.ChangeFeedDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pushes the change log to clients as server-sent events.
+ * <p>
+ * A single publisher thread waits for committed changes, reads them from the log once
+ * and hands the same serialized event to every subscriber, so the database load does
+ * not grow with the number of open connections. A subscriber only costs its emitter;
+ * no thread is held while it waits.
+ * <p>
+ * The publisher never writes to a connection itself. Each subscriber has a bounded queue
+ * of pending events, which a pool of sender threads writes out, so a client that stops
+ * reading only holds up its own events (and one sender until the container's write
+ * times out). A subscriber that falls {@code todo.changes.max-pending} events behind is
+ * disconnected; EventSource reconnects and resumes from the last revision it received.
+ * <p>
+ * The sends to one subscriber are serialized and the revision it was last sent is
+ * tracked, so the changes a resuming client missed always arrive before newer ones and
+ * no change is sent to it twice.
+ */
+@Service
+public class ChangeFeedService {
+    static final String CHANGES_EVENT = "changes";
+    static final String RESET_EVENT = "reset";
+    static final String DEADLINE_EVENT = "deadline";
+
+    private static final Log LOG = LogFactory.getLog(ChangeFeedService.class);
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${todo.changes.sse-timeout:30m}")
+    private Duration emitterTimeout;
+
+    @Value("${todo.changes.heartbeat:15s}")
+    private Duration heartbeat;
+
+    @Value("${todo.changes.send-threads:16}")
+    private int sendThreads;
+
+    @Value("${todo.changes.max-pending:100}")
+    private int maxPending;
+
+    /**
+     * An open subscription.
+     */
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        // held while sending, so events to one client never interleave
+        final ReentrantLock lock = new ReentrantLock();
+        // the revision the client has been sent, guarded by lock
+        long revision;
+        // guards pending and draining; never held while sending
+        final ReentrantLock pendingLock = new ReentrantLock();
+        // events handed over by the publisher and not sent yet
+        final ArrayDeque<Pending> pending = new ArrayDeque<>();
+        // whether a sender is working off the pending events
+        boolean draining;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+
+    /**
+     * An event waiting to be sent to a subscriber.
+     *
+     * @param event    The serialized event
+     * @param revision The revision the event brings the client to, or -1 if it carries none
+     * @param feed     The changes of a changes event, or null for other events
+     * @param from     The revision the changes follow
+     */
+    private record Pending(Set<DataWithMediaType> event, long revision, ChangeFeedDTO feed, long from) {
+    }
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong slowSubscribers = new AtomicLong();
+    private ObjectWriter writer;
+    private Thread publisher;
+    // platform threads, since emitters send inside synchronized blocks, which would pin virtual threads
+    private ExecutorService senders;
+    private volatile boolean running;
+
+    /**
+     * Starts the publisher thread and the senders.
+     */
+    @PostConstruct
+    public void start() {
+        // SSE data must not span several lines
+        this.writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.senders = Executors.newFixedThreadPool(sendThreads,
+            Thread.ofPlatform().name("todo-change-feed-send-", 0).daemon().factory());
+        this.running = true;
+        this.publisher = Thread.ofPlatform().name("todo-change-feed").daemon().start(this::publish);
+    }
+
+    /**
+     * Stops the publisher thread and closes all subscriptions.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        publisher.interrupt();
+        publisher.join(Duration.ofSeconds(5));
+        senders.shutdownNow();
+        senders.awaitTermination(5, TimeUnit.SECONDS);
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    /**
+     * Opens a subscription. When resuming, the changes the client missed are sent first;
+     * if they are no longer available, a reset event tells the client to reload its lists.
+     *
+     * @param lastRevision The last revision the client has seen, or null to start now
+     * @return The emitter of the subscription
+     */
+    public SseEmitter subscribe(Long lastRevision) {
+        SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        subscriber.lock.lock();
+        try {
+            // registered before catching up, so no change published in between is lost;
+            // its sender waits for the lock and then skips what the catch-up sent
+            subscribers.add(subscriber);
+            if (lastRevision == null) {
+                long revision = changeLogService.getStableRevision();
+                emitter.send(SseEmitter.event().id(Long.toString(revision)).comment("subscribed"));
+                subscriber.revision = revision;
+            } else {
+                subscriber.revision = catchUp(emitter, lastRevision);
+            }
+        } catch (IOException e) {
+            subscribers.remove(subscriber);
+        } finally {
+            subscriber.lock.unlock();
+        }
+        return emitter;
+    }
+
+    /**
+     * Returns the number of open subscriptions.
+     *
+     * @return The number of subscribers
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Returns how many subscribers were disconnected for falling too far behind.
+     *
+     * @return The number of disconnected subscribers
+     */
+    public long getSlowSubscriberCount() {
+        return slowSubscribers.get();
+    }
+
+    /**
+     * Sends a passed deadline of a todo to all subscribers. Deadline events carry no ID,
+     * so they do not move the revision EventSource resumes from.
+     *
+     * @param event The deadline
+     */
+    @EventListener
+    public void deadlinePassed(DeadlineService.DeadlineEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        try {
+            broadcast(SseEmitter.event()
+                .name(DEADLINE_EVENT)
+                .data(writer.writeValueAsString(event))
+                .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Sends a resuming client the changes it missed.
+     *
+     * @return The revision the client has been brought to
+     */
+    private long catchUp(SseEmitter emitter, long lastRevision) throws IOException {
+        try {
+            ChangeFeedDTO feed = changeLogService.getChanges(lastRevision, ChangeLogService.MAX_CHANGES);
+            if (!feed.isHasMore()) {
+                if (!feed.getChanges().isEmpty()) {
+                    emitter.send(changesEvent(feed));
+                }
+                return feed.getRevision();
+            }
+            // too far behind; reloading the lists is cheaper than replaying
+        } catch (ResponseStatusException e) {
+            if (e.getStatusCode() != HttpStatus.GONE) {
+                throw e;
+            }
+        }
+        long revision = changeLogService.getStableRevision();
+        emitter.send(resetEvent(revision));
+        return revision;
+    }
+
+    private void publish() {
+        long published = changeLogService.getStableRevision();
+        while (running) {
+            try {
+                long stable = changeLogService.awaitChange(published, heartbeat);
+                if (stable <= published) {
+                    // keeps proxies from closing idle connections and detects dead clients
+                    broadcast(SseEmitter.event().comment("heartbeat").build());
+                } else if (subscribers.isEmpty()) {
+                    published = stable;
+                } else {
+                    published = publishChanges(published);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOG.error("Could not publish changes:", e);
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private long publishChanges(long published) {
+        ChangeFeedDTO feed;
+        do {
+            try {
+                feed = changeLogService.getChanges(published, ChangeLogService.MAX_CHANGES);
+            } catch (ResponseStatusException e) {
+                long revision = changeLogService.getStableRevision();
+                broadcast(resetEvent(revision), revision);
+                return revision;
+            }
+            broadcastChanges(feed, published);
+            published = feed.getRevision();
+        } while (feed.isHasMore());
+        return published;
+    }
+
+    /**
+     * Hands an event without revision to all subscribers.
+     */
+    private void broadcast(Set<DataWithMediaType> event) {
+        broadcast(event, -1);
+    }
+
+    /**
+     * Hands an event to all subscribers.
+     *
+     * @param revision The revision the event brings the clients to, or -1 if it carries none
+     */
+    private void broadcast(Set<DataWithMediaType> event, long revision) {
+        Pending pending = new Pending(event, revision, null, -1);
+        subscribers.forEach(subscriber -> hand(subscriber, pending));
+    }
+
+    /**
+     * Hands the changes after a revision to all subscribers.
+     *
+     * @param feed The changes
+     * @param from The revision the changes follow
+     */
+    private void broadcastChanges(ChangeFeedDTO feed, long from) {
+        Pending pending = new Pending(changesEvent(feed), feed.getRevision(), feed, from);
+        subscribers.forEach(subscriber -> hand(subscriber, pending));
+    }
+
+    /**
+     * Queues an event for a subscriber without waiting for the client, and starts a
+     * sender unless one is already working off its queue. Disconnects the subscriber if
+     * its queue is full.
+     */
+    private void hand(Subscriber subscriber, Pending event) {
+        subscriber.pendingLock.lock();
+        try {
+            if (subscriber.pending.size() >= maxPending) {
+                subscriber.pending.clear();
+                disconnectSlow(subscriber);
+                return;
+            }
+            subscriber.pending.add(event);
+            if (subscriber.draining) {
+                return;
+            }
+            subscriber.draining = true;
+        } finally {
+            subscriber.pendingLock.unlock();
+        }
+        try {
+            senders.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            // shutting down
+        }
+    }
+
+    private void disconnectSlow(Subscriber subscriber) {
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        slowSubscribers.incrementAndGet();
+        LOG.info(String.format("Disconnected a change feed subscriber more than %d events behind", maxPending));
+        try {
+            // waits for a send in progress, so not on the publisher
+            senders.execute(subscriber.emitter::complete);
+        } catch (RejectedExecutionException e) {
+            // shutting down
+        }
+    }
+
+    /**
+     * Sends a subscriber's pending events until its queue is empty.
+     */
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            Pending next;
+            subscriber.pendingLock.lock();
+            try {
+                next = subscriber.pending.poll();
+                if (next == null || !subscribers.contains(subscriber)) {
+                    subscriber.pending.clear();
+                    subscriber.draining = false;
+                    return;
+                }
+            } finally {
+                subscriber.pendingLock.unlock();
+            }
+            subscriber.lock.lock();
+            try {
+                deliver(subscriber, next);
+            } finally {
+                subscriber.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Sends an event to one subscriber, which must be locked by the caller. Of changes, a
+     * subscriber that was brought past their starting revision when it subscribed is only
+     * sent the rest.
+     */
+    private void deliver(Subscriber subscriber, Pending pending) {
+        ChangeFeedDTO feed = pending.feed();
+        if (feed == null) {
+            send(subscriber, pending.event(), pending.revision());
+        } else if (subscriber.revision >= feed.getRevision()) {
+            return;
+        } else if (subscriber.revision > pending.from()) {
+            long sent = subscriber.revision;
+            List<ChangeDTO> missing = feed.getChanges().stream()
+                .filter(change -> change.getRevision() > sent)
+                .toList();
+            send(subscriber, changesEvent(new ChangeFeedDTO(missing, feed.getRevision(), false)), feed.getRevision());
+        } else {
+            send(subscriber, pending.event(), feed.getRevision());
+        }
+    }
+
+    /**
+     * Sends an event to one subscriber, which must be locked by the caller.
+     */
+    private void send(Subscriber subscriber, Set<DataWithMediaType> event, long revision) {
+        try {
+            subscriber.emitter.send(event);
+            if (revision >= 0) {
+                subscriber.revision = revision;
+            }
+        } catch (IOException | IllegalStateException e) {
+            // the container reports the broken connection to the emitter's callbacks
+            subscribers.remove(subscriber);
+        }
+    }
+
+    private Set<DataWithMediaType> changesEvent(ChangeFeedDTO feed) {
+        try {
+            // serialized once for all subscribers
+            return SseEmitter.event()
+                .id(Long.toString(feed.getRevision()))
+                .name(CHANGES_EVENT)
+                .data(writer.writeValueAsString(feed.getChanges()))
+                .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Set<DataWithMediaType> resetEvent(long revision) {
+        return SseEmitter.event()
+            .id(Long.toString(revision))
+            .name(RESET_EVENT)
+            .data(Long.toString(revision))
+            .build();
+    }
+}
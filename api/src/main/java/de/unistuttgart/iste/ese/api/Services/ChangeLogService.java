@@ -0,0 +1,313 @@
+package de.unistuttgart.iste.ese.api.Services;
+
+import de.unistuttgart.iste.ese.api.Config.ReplicaRoutingDataSource;
+import de.unistuttgart.iste.ese.api.DTOs.ChangeDTO;
+import de.unistuttgart.iste.ese.api.DTOs.ChangeFeedDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoDTO;
+import de.unistuttgart.iste.ese.api.Models.Assignee;
+import de.unistuttgart.iste.ese.api.Models.ChangeLogEntry;
+import de.unistuttgart.iste.ese.api.Repositories.AssigneeRepository;
+import de.unistuttgart.iste.ese.api.Repositories.ChangeLogRepository;
+import de.unistuttgart.iste.ese.api.Repositories.ToDoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Writes and reads the append-only change log of todos and assignees.
+ * <p>
+ * Revisions are handed out by this service and tracked until their transaction
+ * completes. Readers only see revisions up to the <em>stable</em> revision, below which
+ * no transaction is still in flight, so a client that resumes from a revision never
+ * misses a change that committed late. This assumes a single application instance
+ * writes to the database.
+ */
+@Service
+public class ChangeLogService {
+    public static final int MAX_CHANGES = 1000;
+
+    private static final Log LOG = LogFactory.getLog(ChangeLogService.class);
+
+    @Autowired
+    private ChangeLogRepository changeLogRepository;
+
+    @Autowired
+    private ToDoRepository toDoRepository;
+
+    @Autowired
+    private AssigneeRepository assigneeRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${todo.changes.retention:7d}")
+    private Duration retention;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    // guarded by lock
+    private long lastRevision;
+    private final TreeSet<Long> inFlight = new TreeSet<>();
+
+    // changes up to this revision have been pruned
+    private volatile long prunedUpTo;
+
+    /**
+     * Continues the revisions of the stored log.
+     */
+    @PostConstruct
+    public void init() {
+        Long maxRevision = changeLogRepository.findMaxRevision();
+        Long minRevision = changeLogRepository.findMinRevision();
+        this.lastRevision = maxRevision != null ? maxRevision : 0;
+        this.prunedUpTo = minRevision != null ? minRevision - 1 : this.lastRevision;
+    }
+
+    /**
+     * Appends a change to the log as part of the current transaction.
+     *
+     * @param entityType {@link ChangeLogEntry#TODO} or {@link ChangeLogEntry#ASSIGNEE}
+     * @param entityId   The ID of the changed entity
+     * @param operation  {@link ChangeLogEntry#CREATED}, {@link ChangeLogEntry#UPDATED} or {@link ChangeLogEntry#DELETED}
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(String entityType, long entityId, String operation) {
+        long revision;
+        lock.lock();
+        try {
+            revision = ++lastRevision;
+            inFlight.add(revision);
+        } finally {
+            lock.unlock();
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                completed(revision);
+            }
+        });
+        entityManager.persist(new ChangeLogEntry(revision, entityType, entityId, operation, new Date()));
+    }
+
+    /**
+     * Appends the change of a single todo to the log right before its transaction commits.
+     *
+     * @param event The change
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void toDoChanged(ToDoService.TodoChangedEvent event) {
+        record(ChangeLogEntry.TODO, event.id(), event.operation());
+    }
+
+    /**
+     * Appends the same change of several entities to the log as part of the current
+     * transaction, with one contiguous range of revisions.
+     *
+     * @param entityType {@link ChangeLogEntry#TODO} or {@link ChangeLogEntry#ASSIGNEE}
+     * @param entityIds  The IDs of the changed entities
+     * @param operation  {@link ChangeLogEntry#CREATED}, {@link ChangeLogEntry#UPDATED} or {@link ChangeLogEntry#DELETED}
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(String entityType, Collection<Long> entityIds, String operation) {
+        if (entityIds.isEmpty()) {
+            return;
+        }
+        long first;
+        lock.lock();
+        try {
+            first = lastRevision + 1;
+            lastRevision += entityIds.size();
+            for (long revision = first; revision <= lastRevision; revision++) {
+                inFlight.add(revision);
+            }
+        } finally {
+            lock.unlock();
+        }
+        long last = first + entityIds.size() - 1;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                completed(first, last);
+            }
+        });
+        Date changedAt = new Date();
+        long revision = first;
+        for (Long entityId : entityIds) {
+            entityManager.persist(new ChangeLogEntry(revision++, entityType, entityId, operation, changedAt));
+        }
+    }
+
+    /**
+     * Returns the highest revision below which all transactions have completed.
+     *
+     * @return The stable revision
+     */
+    public long getStableRevision() {
+        lock.lock();
+        try {
+            return inFlight.isEmpty() ? lastRevision : inFlight.first() - 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the stable revision passes a known revision.
+     *
+     * @param knownRevision The revision the caller has already seen
+     * @param timeout       The maximum time to wait
+     * @return The stable revision, which is not greater than knownRevision on timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public long awaitChange(long knownRevision, Duration timeout) throws InterruptedException {
+        long remaining = timeout.toNanos();
+        lock.lock();
+        try {
+            long stable = getStableRevision();
+            while (stable <= knownRevision && remaining > 0) {
+                remaining = changed.awaitNanos(remaining);
+                stable = getStableRevision();
+            }
+            return stable;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the changes after a revision, with the current state of each changed entity.
+     * Several changes of the same entity are collapsed into its latest one. Reads from the
+     * primary: the stable revision is this instance's, and a replica that has not applied
+     * all entries up to it would make the client skip the missing ones.
+     *
+     * @param since The last revision the client has seen
+     * @param limit The maximum number of log entries to read
+     * @return The changes and the revision to continue from
+     * @throws ResponseStatusException with 410 if the requested changes are no longer available
+     */
+    @Transactional(readOnly = true)
+    public ChangeFeedDTO getChanges(long since, int limit) {
+        ReplicaRoutingDataSource.usePrimary();
+        long upTo = getStableRevision();
+        if (since < prunedUpTo || since > upTo) {
+            // pruned, or a revision of an earlier database; the client has to reload
+            throw new ResponseStatusException(HttpStatus.GONE,
+                String.format("Changes since revision %d are not available", since));
+        }
+        if (since == upTo) {
+            return new ChangeFeedDTO(List.of(), since, false);
+        }
+
+        List<ChangeLogEntry> entries = changeLogRepository.findRange(since, upTo, PageRequest.of(0, limit));
+        boolean hasMore = entries.size() == limit && entries.get(entries.size() - 1).getRevision() < upTo;
+        long revision = hasMore ? entries.get(entries.size() - 1).getRevision() : upTo;
+        return new ChangeFeedDTO(resolve(entries), revision, hasMore);
+    }
+
+    /**
+     * Deletes log entries older than the retention period. Clients behind the pruned
+     * revision get a 410 and reload the full lists.
+     */
+    @Scheduled(fixedDelayString = "${todo.changes.prune-interval:PT1H}")
+    public void prune() {
+        Long upTo = changeLogRepository.findMaxRevisionBefore(new Date(System.currentTimeMillis() - retention.toMillis()));
+        if (upTo == null || upTo <= prunedUpTo) {
+            return;
+        }
+        // reject readers of the pruned range before it disappears
+        prunedUpTo = upTo;
+        int deleted = changeLogRepository.deleteUpTo(upTo);
+        LOG.info(String.format("Pruned %d change log entries up to revision %d", deleted, upTo));
+    }
+
+    /**
+     * Collapses log entries per entity and attaches the current state of each entity.
+     *
+     * @param entries The log entries, oldest first
+     * @return One change per entity, ordered by revision
+     */
+    private List<ChangeDTO> resolve(List<ChangeLogEntry> entries) {
+        Map<String, ChangeLogEntry> latest = new LinkedHashMap<>();
+        for (ChangeLogEntry entry : entries) {
+            String key = entry.getEntityType() + ":" + entry.getEntityId();
+            // re-insert to keep the map ordered by latest revision
+            latest.remove(key);
+            latest.put(key, entry);
+        }
+
+        Set<Long> todoIds = idsToLoad(latest.values(), ChangeLogEntry.TODO);
+        Set<Long> assigneeIds = idsToLoad(latest.values(), ChangeLogEntry.ASSIGNEE);
+        Map<Long, TodoDTO> todos = todoIds.isEmpty() ? Map.of()
+            : toDoRepository.findTodoDTOsByIds(todoIds).stream()
+                .collect(Collectors.toMap(TodoDTO::getId, Function.identity()));
+        Map<Long, Assignee> assignees = assigneeIds.isEmpty() ? Map.of()
+            : assigneeRepository.findAllById(assigneeIds).stream()
+                .collect(Collectors.toMap(Assignee::getId, Function.identity()));
+
+        List<ChangeDTO> changes = new ArrayList<>(latest.size());
+        for (ChangeLogEntry entry : latest.values()) {
+            TodoDTO todo = ChangeLogEntry.TODO.equals(entry.getEntityType()) ? todos.get(entry.getEntityId()) : null;
+            Assignee assignee = ChangeLogEntry.ASSIGNEE.equals(entry.getEntityType())
+                ? assignees.get(entry.getEntityId()) : null;
+            // an entity that is gone was deleted by a change the client will see later
+            String operation = todo == null && assignee == null ? ChangeLogEntry.DELETED : entry.getOperation();
+            changes.add(new ChangeDTO(entry.getRevision(), entry.getEntityType(), entry.getEntityId(),
+                operation, todo, assignee));
+        }
+        return changes;
+    }
+
+    private static Set<Long> idsToLoad(Iterable<ChangeLogEntry> entries, String entityType) {
+        Set<Long> ids = new HashSet<>();
+        for (ChangeLogEntry entry : entries) {
+            if (entityType.equals(entry.getEntityType()) && !ChangeLogEntry.DELETED.equals(entry.getOperation())) {
+                ids.add(entry.getEntityId());
+            }
+        }
+        return ids;
+    }
+
+    private void completed(long revision) {
+        completed(revision, revision);
+    }
+
+    private void completed(long first, long last) {
+        lock.lock();
+        try {
+            inFlight.subSet(first, true, last, true).clear();
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
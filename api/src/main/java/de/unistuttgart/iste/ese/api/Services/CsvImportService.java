@@ -0,0 +1,408 @@
+package de.unistuttgart.iste.ese.api.Services;
+
+import de.unistuttgart.iste.ese.api.DTOs.CsvImportErrorDTO;
+import de.unistuttgart.iste.ese.api.DTOs.CsvImportResultDTO;
+import de.unistuttgart.iste.ese.api.Models.Assignee;
+import de.unistuttgart.iste.ese.api.Models.ToDo;
+import de.unistuttgart.iste.ese.api.Models.TodoModel;
+import de.unistuttgart.iste.ese.api.Repositories.AssigneeRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Imports todos from CSV files in the format of the CSV export.
+ * <p>
+ * The file is parsed while it is received. Valid rows are collected into batches of a
+ * fixed size; each batch is classified in one pass through the AI model (for rows
+ * without a category, or queued for it in async categorization mode) and stored in its
+ * own transaction with JDBC batching. Invalid rows are reported and skipped, and the
+ * rows of a batch that cannot be stored are retried one by one, so neither aborts the
+ * rest of the file.
+ */
+@Service
+@Timed(value = "todo.service", description = "Service method calls", histogram = true)
+public class CsvImportService {
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final List<String> CSV_COLUMNS = Arrays.asList(ToDoService.CSV_HEADER.trim().split(","));
+    private static final int MAX_ROW_LENGTH = 1024 * 1024;
+
+    private static final Log LOG = LogFactory.getLog(CsvImportService.class);
+
+    @Autowired
+    private AssigneeRepository assigneeRepository;
+
+    @Autowired
+    private TodoModel todoModel;
+
+    @Autowired
+    private CategorizationService categorizationService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${todo.csv.import.batch-size:500}")
+    private int batchSize;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * A valid row, with its assignees resolved to IDs.
+     */
+    private record ParsedRow(long line, String title, String description, boolean finished, List<Long> assigneeIds,
+                             Date createdDate, Date dueDate, Date finishedDate, String category) {
+    }
+
+    /**
+     * Rows that failed so far; only the first ones are kept for the response.
+     */
+    private static final class Errors {
+        final List<CsvImportErrorDTO> reported = new ArrayList<>();
+        long count;
+
+        void add(long line, String error) {
+            count++;
+            if (reported.size() < MAX_REPORTED_ERRORS) {
+                reported.add(new CsvImportErrorDTO(line, error));
+            }
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Imports the todos of a CSV file. The columns must match those of the CSV export;
+     * the "id" column is ignored, since every row creates a new todo. Assignees are
+     * matched by "prename name", several joined with "+". Rows without a category, or
+     * with the placeholder categories "pending" and "unknown" the export may contain,
+     * are classified like new todos, and a missing created date is set to the time of the import.
+     *
+     * @param input The CSV data, UTF-8 encoded
+     * @param gzip  Whether the data is gzip-compressed
+     * @return The number of imported rows and the errors of the rows that were skipped
+     * @throws IOException             if reading the input fails; batches stored before stay stored
+     * @throws ResponseStatusException if the header does not match the export format
+     */
+    public CsvImportResultDTO importCSV(InputStream input, boolean gzip) throws IOException {
+        InputStream source = gzip ? new GZIPInputStream(input, CsvReader.BUFFER_SIZE) : input;
+        CsvReader reader = new CsvReader(new InputStreamReader(source, StandardCharsets.UTF_8), MAX_ROW_LENGTH);
+        Errors errors = new Errors();
+        long rows = 0;
+        long imported = 0;
+
+        CsvReader.Record header = reader.next();
+        if (header != null) {
+            checkHeader(header);
+            Map<String, Long> assigneeIds = loadAssigneeIds();
+            List<ParsedRow> batch = new ArrayList<>(batchSize);
+            CsvReader.Record record;
+            while ((record = reader.next()) != null) {
+                rows++;
+                try {
+                    batch.add(parseRow(record, assigneeIds));
+                } catch (IllegalArgumentException e) {
+                    errors.add(record.line(), e.getMessage());
+                }
+                if (batch.size() == batchSize) {
+                    imported += storeBatch(batch, errors);
+                    batch.clear();
+                }
+            }
+            imported += storeBatch(batch, errors);
+        }
+
+        recordCSVImport(imported, errors.count);
+        return new CsvImportResultDTO(rows, imported, errors.count, errors.reported,
+            errors.count > errors.reported.size());
+    }
+
+    private void checkHeader(CsvReader.Record header) {
+        List<String> columns = header.fields();
+        // editors like Excel prepend a byte order mark
+        if (!columns.isEmpty() && columns.get(0).startsWith("\uFEFF")) {
+            columns.set(0, columns.get(0).substring(1));
+        }
+        if (header.error() != null || !columns.equals(CSV_COLUMNS)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "CSV header must be: " + String.join(",", CSV_COLUMNS));
+        }
+    }
+
+    /**
+     * Loads the IDs of all assignees by their display name as written by the export.
+     * Names shared by several assignees map to null, since they cannot be resolved.
+     *
+     * @return The assignee IDs by "prename name"
+     */
+    private Map<String, Long> loadAssigneeIds() {
+        Map<String, Long> ids = new HashMap<>();
+        for (Assignee assignee : assigneeRepository.findAll()) {
+            String name = assignee.getPreName() + " " + assignee.getName();
+            ids.put(name, ids.containsKey(name) ? null : assignee.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Validates a row and converts it into the values of a todo.
+     *
+     * @throws IllegalArgumentException with a message for the client if the row is invalid
+     */
+    private ParsedRow parseRow(CsvReader.Record record, Map<String, Long> assigneeIds) {
+        if (record.error() != null) {
+            throw new IllegalArgumentException(record.error());
+        }
+        List<String> fields = record.fields();
+        if (fields.size() != CSV_COLUMNS.size()) {
+            throw new IllegalArgumentException(String.format(
+                "Expected %d columns but found %d", CSV_COLUMNS.size(), fields.size()));
+        }
+
+        String title = fields.get(1);
+        if (title.isBlank()) {
+            throw new IllegalArgumentException("Title cannot be empty");
+        }
+        boolean finished = parseBoolean(fields.get(3));
+        List<Long> assignees = parseAssignees(fields.get(4), assigneeIds);
+        Date createdDate = parseDate(fields.get(5));
+        Date finishedDate = parseDate(fields.get(7));
+        String category = isUncategorized(fields.get(8)) ? null : fields.get(8);
+
+        return new ParsedRow(
+            record.line(),
+            title,
+            fields.get(2).isEmpty() ? null : fields.get(2),
+            finished,
+            assignees,
+            createdDate != null ? createdDate : new Date(),
+            parseDate(fields.get(6)),
+            finished ? finishedDate : null,
+            category
+        );
+    }
+
+    /**
+     * Checks whether a category field asks for a classification: it is blank, or holds a
+     * placeholder written while a todo waited for one.
+     */
+    private static boolean isUncategorized(String field) {
+        String category = field.trim();
+        return category.isEmpty()
+            || category.equals(CategorizationService.PENDING_CATEGORY)
+            || category.equals(TodoModel.UNKNOWN_CATEGORY);
+    }
+
+    private static boolean parseBoolean(String field) {
+        if (field.equalsIgnoreCase("true")) {
+            return true;
+        }
+        if (field.equalsIgnoreCase("false")) {
+            return false;
+        }
+        throw new IllegalArgumentException(String.format("Invalid value '%s' for finished, expected true or false", field));
+    }
+
+    private static List<Long> parseAssignees(String field, Map<String, Long> assigneeIds) {
+        if (field.isBlank()) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        // the export joins the names with "+"
+        for (String name : field.split("\\+")) {
+            String trimmed = name.trim();
+            if (!assigneeIds.containsKey(trimmed)) {
+                throw new IllegalArgumentException(String.format("Assignee '%s' not found", trimmed));
+            }
+            Long id = assigneeIds.get(trimmed);
+            if (id == null) {
+                throw new IllegalArgumentException(String.format("Assignee name '%s' is ambiguous", trimmed));
+            }
+            if (!seen.add(id)) {
+                throw new IllegalArgumentException("Duplicate assignees are not allowed");
+            }
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    /**
+     * Parses a date of the export, which is written as the day in the server's time zone.
+     *
+     * @return The start of the day, or null for an empty field
+     */
+    private static Date parseDate(String field) {
+        if (field.isBlank()) {
+            return null;
+        }
+        try {
+            return Date.from(LocalDate.parse(field.trim()).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(String.format("Invalid date '%s', expected yyyy-MM-dd", field));
+        }
+    }
+
+    /**
+     * Classifies the rows without a category and stores a batch in one transaction. If
+     * that fails, each row is retried in a transaction of its own, so one bad row cannot
+     * fail its neighbours.
+     *
+     * @param batch  The rows to store
+     * @param errors Receives an error for every row that cannot be stored
+     * @return The number of stored rows
+     */
+    private int storeBatch(List<ParsedRow> batch, Errors errors) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<String> categories = categorize(batch);
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertRows(batch, categories));
+            return batch.size();
+        } catch (DataAccessException | PersistenceException | TransactionException e) {
+            // e.g. an assignee deleted during the import
+            LOG.warn("Import of " + batch.size() + " rows failed, storing them one by one: " + e.getMessage());
+        }
+
+        int stored = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            List<ParsedRow> row = List.of(batch.get(i));
+            List<String> category = categories.subList(i, i + 1);
+            try {
+                transactionTemplate.executeWithoutResult(status -> insertRows(row, category));
+                stored++;
+            } catch (DataAccessException | PersistenceException | TransactionException e) {
+                errors.add(batch.get(i).line(), "Row could not be stored: " + e.getMessage());
+            }
+        }
+        return stored;
+    }
+
+    /**
+     * Determines the initial categories of a batch: the row's own category, or a
+     * prediction made in one pass for all rows without one, or the pending category if
+     * categorization runs asynchronously.
+     *
+     * @param batch The rows to categorize
+     * @return The categories, in the order of the rows
+     */
+    private List<String> categorize(List<ParsedRow> batch) {
+        Iterator<String> predicted = categorizationService.isAsync() ? null
+            : todoModel.predictClasses(batch.stream()
+                .filter(row -> row.category() == null)
+                .map(ParsedRow::title)
+                .collect(Collectors.toList())).iterator();
+        List<String> categories = new ArrayList<>(batch.size());
+        for (ParsedRow row : batch) {
+            if (row.category() != null) {
+                categories.add(row.category());
+            } else {
+                categories.add(predicted != null ? predicted.next() : CategorizationService.PENDING_CATEGORY);
+            }
+        }
+        return categories;
+    }
+
+    /**
+     * Stores rows within the current transaction. The persistence context is cleared
+     * afterwards, so it does not grow with the file.
+     *
+     * @param rows       The rows to store
+     * @param categories The initial categories, in the order of the rows
+     */
+    private void insertRows(List<ParsedRow> rows, List<String> categories) {
+        for (int i = 0; i < rows.size(); i++) {
+            ParsedRow row = rows.get(i);
+            List<Assignee> assignees = row.assigneeIds().stream()
+                .map(id -> entityManager.getReference(Assignee.class, id))
+                .collect(Collectors.toList());
+            ToDo toDo = new ToDo(
+                row.title(),
+                row.description(),
+                row.finished(),
+                assignees,
+                row.createdDate(),
+                row.dueDate(),
+                row.finishedDate(),
+                categories.get(i)
+            );
+            entityManager.persist(toDo);
+            eventPublisher.publishEvent(ToDoService.TodoChangedEvent.created(toDo));
+            categorizationService.scheduleCategorization(toDo);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Records the imported and failed rows of a CSV import.
+     *
+     * @param imported The number of created todos
+     * @param failed   The number of skipped rows
+     */
+    private void recordCSVImport(long imported, long failed) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return;
+        }
+        Counter.builder("todo.csv.import.rows")
+            .description("Rows processed by CSV imports")
+            .tag("result", "imported")
+            .register(registry)
+            .increment(imported);
+        Counter.builder("todo.csv.import.rows")
+            .description("Rows processed by CSV imports")
+            .tag("result", "failed")
+            .register(registry)
+            .increment(failed);
+    }
+}
@@ -0,0 +1,136 @@
+package de.unistuttgart.iste.ese.api.Services;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads CSV records one at a time in the format of the CSV export: fields are separated
+ * by commas and may be enclosed in double quotes, with quotes inside doubled. Quoted
+ * fields may span lines. Records end at LF or CRLF; blank lines are skipped.
+ * <p>
+ * Only the current record is held in memory, and records longer than a limit are
+ * skipped up to the next line break, so the memory use does not depend on the input.
+ */
+final class CsvReader {
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * A record read from the input.
+     *
+     * @param line   The line number the record starts at, counting from 1
+     * @param fields The fields of the record, incomplete if there is an error
+     * @param error  A description of why the record is malformed, or null
+     */
+    record Record(long line, List<String> fields, String error) {
+    }
+
+    private final Reader reader;
+    private final int maxRecordLength;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder field = new StringBuilder();
+    private int position;
+    private int limit;
+    private long line = 1;
+
+    CsvReader(Reader reader, int maxRecordLength) {
+        this.reader = reader;
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return The record, or null at the end of the input
+     * @throws IOException if reading the input fails
+     */
+    Record next() throws IOException {
+        int c = read();
+        while (c == '\n' || c == '\r') {
+            if (c == '\n') {
+                line++;
+            }
+            c = read();
+        }
+        if (c == -1) {
+            return null;
+        }
+
+        long start = line;
+        List<String> fields = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+        int length = 0;
+        while (true) {
+            if (++length > maxRecordLength) {
+                skipLine(c);
+                return new Record(start, fields, String.format("Row is longer than %d characters", maxRecordLength));
+            }
+            if (quoted) {
+                if (c == -1) {
+                    return new Record(start, fields, "Quoted field is not terminated");
+                }
+                if (c == '"') {
+                    c = read();
+                    if (c == '"') {
+                        field.append('"');
+                        c = read();
+                    } else {
+                        // the character after the closing quote is handled unquoted
+                        quoted = false;
+                    }
+                    continue;
+                }
+                if (c == '\n') {
+                    line++;
+                }
+                field.append((char) c);
+            } else if (c == -1 || c == '\n') {
+                if (c == '\n') {
+                    line++;
+                }
+                fields.add(field.toString());
+                return new Record(start, fields, null);
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c != '\r' || peek() != '\n') {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private void skipLine(int c) throws IOException {
+        while (c != -1 && c != '\n') {
+            c = read();
+        }
+        if (c == '\n') {
+            line++;
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int count = reader.read(buffer, 0, buffer.length);
+        position = 0;
+        limit = Math.max(count, 0);
+        return count > 0;
+    }
+}
@@ -0,0 +1,321 @@
+package de.unistuttgart.iste.ese.api.Services;
+
+import de.unistuttgart.iste.ese.api.DTOs.TodoDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoPageDTO;
+import de.unistuttgart.iste.ese.api.Repositories.ToDoRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Deadlines of open todos: range queries over due dates, and events when a todo becomes
+ * due soon or overdue.
+ * <p>
+ * The pending deadlines are kept in a {@link DeadlineTimeline}, loaded from the open
+ * todos at startup and kept up to date from the {@link ToDoService.TodoChangedEvent}s of
+ * committed transactions. A single thread sleeps until the next deadline and publishes a
+ * {@link DeadlineEvent} for each one that passes, so no periodic scans of the todo table
+ * are needed.
+ */
+@Service
+@Timed(value = "todo.service", description = "Service method calls", histogram = true)
+public class DeadlineService {
+    public static final String DUE_SOON = "due-soon";
+    public static final String OVERDUE = "overdue";
+    public static final int MAX_LIMIT = 1000;
+    public static final Duration MAX_WITHIN = Duration.ofDays(366);
+
+    private static final Log LOG = LogFactory.getLog(DeadlineService.class);
+    private static final int LOAD_CHUNK_SIZE = 1000;
+    private static final int IN_CLAUSE_LIMIT = 1000;
+    // upper bound for one wait, so a changed system clock is noticed
+    private static final long MAX_WAIT_MS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * Published when a deadline of an open todo passes.
+     *
+     * @param todoId  The ID of the todo
+     * @param kind    {@link #DUE_SOON} or {@link #OVERDUE}
+     * @param dueDate The due date of the todo in epoch milliseconds
+     */
+    public record DeadlineEvent(long todoId, String kind, long dueDate) {
+    }
+
+    @Autowired
+    private ToDoRepository toDoRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${todo.deadlines.due-soon:PT24H}")
+    private Duration dueSoon;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // signalled when the timeline changes, so the scheduler rechecks the next deadline
+    private final Condition changed = lock.newCondition();
+    // guarded by lock
+    private DeadlineTimeline timeline;
+    private Thread scheduler;
+    private volatile boolean running;
+
+    private Counter dueSoonCounter;
+    private Counter overdueCounter;
+
+    /**
+     * Loads the future deadlines of all open todos in keyset-paginated chunks of ID and
+     * due date, and starts the scheduler thread.
+     */
+    @PostConstruct
+    public void start() {
+        long start = System.nanoTime();
+        timeline = new DeadlineTimeline(dueSoon.toMillis());
+        long now = System.currentTimeMillis();
+        Date from = new Date(now);
+        long afterId = 0;
+        List<Object[]> chunk = toDoRepository.findOpenDueDates(afterId, from, PageRequest.of(0, LOAD_CHUNK_SIZE));
+        while (!chunk.isEmpty()) {
+            for (Object[] row : chunk) {
+                afterId = (Long) row[0];
+                timeline.schedule(afterId, ((Date) row[1]).getTime(), now);
+            }
+            chunk = chunk.size() < LOAD_CHUNK_SIZE ? List.of()
+                : toDoRepository.findOpenDueDates(afterId, from, PageRequest.of(0, LOAD_CHUNK_SIZE));
+        }
+        LOG.info(String.format("Scheduled the deadlines of %d todos in %d ms",
+            timeline.size(), (System.nanoTime() - start) / 1_000_000));
+
+        meterRegistry.ifAvailable(registry -> {
+            Gauge.builder("todo.deadlines.scheduled", this, DeadlineService::getScheduledCount)
+                .description("Open todos with a pending deadline")
+                .register(registry);
+            dueSoonCounter = Counter.builder("todo.deadlines.fired").tag("kind", DUE_SOON)
+                .description("Deadline events").register(registry);
+            overdueCounter = Counter.builder("todo.deadlines.fired").tag("kind", OVERDUE)
+                .description("Deadline events").register(registry);
+        });
+
+        running = true;
+        // a platform thread, since listeners may send to SSE emitters inside synchronized blocks
+        scheduler = Thread.ofPlatform().name("todo-deadlines").daemon().start(this::run);
+    }
+
+    /**
+     * Stops the scheduler thread.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        scheduler.interrupt();
+        scheduler.join(Duration.ofSeconds(5));
+    }
+
+    /**
+     * Retrieves one page of the open todos due from now until the end of a time window.
+     *
+     * @param within The length of the window
+     * @param after  The cursor returned with the previous page, or null for the first page
+     * @param limit  The page size, or null for {@link #MAX_LIMIT}
+     * @return The page of todos as DTOs, earliest due date first, with the cursor for the next page
+     * @throws ResponseStatusException if the window is not positive or longer than {@link #MAX_WITHIN},
+     *                                 the cursor is invalid or the limit is out of range
+     */
+    @Transactional(readOnly = true)
+    public TodoPageDTO getDueToDos(Duration within, String after, Integer limit) {
+        if (within.isNegative() || within.isZero() || within.compareTo(MAX_WITHIN) > 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                String.format("Time window must be positive and at most %s", MAX_WITHIN));
+        }
+        long now = System.currentTimeMillis();
+        return findPage(new Date(now), new Date(now + within.toMillis()), after, limit);
+    }
+
+    /**
+     * Retrieves one page of the open todos whose due date has passed.
+     *
+     * @param after The cursor returned with the previous page, or null for the first page
+     * @param limit The page size, or null for {@link #MAX_LIMIT}
+     * @return The page of todos as DTOs, earliest due date first, with the cursor for the next page
+     * @throws ResponseStatusException if the cursor is invalid or the limit is out of range
+     */
+    @Transactional(readOnly = true)
+    public TodoPageDTO getOverdueToDos(String after, Integer limit) {
+        return findPage(null, new Date(), after, limit);
+    }
+
+    /**
+     * Returns the number of open todos with a pending deadline.
+     *
+     * @return The number of todos
+     */
+    public int getScheduledCount() {
+        lock.lock();
+        try {
+            return timeline.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reschedules the deadlines of a created or updated todo whose due date or status
+     * changed, and cancels those of a deleted one.
+     *
+     * @param event The committed change
+     */
+    @TransactionalEventListener
+    public void toDoChanged(ToDoService.TodoChangedEvent event) {
+        StatsService.Facts before = event.before();
+        StatsService.Facts after = event.after();
+        if (before != null && after != null && before.finished() == after.finished()
+            && Objects.equals(before.dueDate(), after.dueDate())) {
+            return;
+        }
+        update(() -> {
+            if (after == null || after.finished() || after.dueDate() == null) {
+                timeline.cancel(event.id());
+            } else {
+                timeline.schedule(event.id(), after.dueDate(), System.currentTimeMillis());
+            }
+        });
+    }
+
+    /**
+     * Reschedules the deadlines of todos whose status changed in bulk, once the current
+     * transaction commits (see {@link AfterCommit}). For reopened todos, the due dates are
+     * read right away, within the caller's transaction.
+     *
+     * @param ids      The IDs of the todos
+     * @param finished The new status
+     */
+    public void toDosStatusChanged(List<Long> ids, boolean finished) {
+        if (finished) {
+            afterCommit(() -> ids.forEach(timeline::cancel));
+            return;
+        }
+        List<Object[]> dueDates = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_LIMIT) {
+            dueDates.addAll(toDoRepository.findOpenDueDatesByIds(
+                ids.subList(from, Math.min(from + IN_CLAUSE_LIMIT, ids.size()))));
+        }
+        afterCommit(() -> {
+            long now = System.currentTimeMillis();
+            for (Object[] row : dueDates) {
+                timeline.schedule((Long) row[0], ((Date) row[1]).getTime(), now);
+            }
+        });
+    }
+
+    private void run() {
+        while (running) {
+            List<DeadlineTimeline.Timer> fired;
+            lock.lock();
+            try {
+                long now = System.currentTimeMillis();
+                long next = timeline.nextAt();
+                if (next > now) {
+                    changed.await(Math.min(next - now, MAX_WAIT_MS), TimeUnit.MILLISECONDS);
+                    continue;
+                }
+                fired = timeline.poll(now);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            // outside the lock, so listeners cannot block changes of the timeline
+            fired.forEach(this::fire);
+        }
+    }
+
+    private void fire(DeadlineTimeline.Timer timer) {
+        Counter counter = timer.overdue() ? overdueCounter : dueSoonCounter;
+        if (counter != null) {
+            counter.increment();
+        }
+        try {
+            eventPublisher.publishEvent(new DeadlineEvent(timer.id(), timer.overdue() ? OVERDUE : DUE_SOON,
+                timer.dueDate()));
+        } catch (RuntimeException e) {
+            LOG.error("Could not publish the deadline of todo " + timer.id() + ":", e);
+        }
+    }
+
+    /**
+     * Reads a page of open todos ordered by due date and ID. The cursor is the due date
+     * in epoch milliseconds and the ID of the last todo of a page, separated by "_".
+     */
+    private TodoPageDTO findPage(Date from, Date to, String after, Integer limit) {
+        int pageSize = checkLimit(limit);
+        Date afterDueDate = null;
+        Long afterId = null;
+        if (after != null) {
+            int separator = after.lastIndexOf('_');
+            try {
+                afterDueDate = new Date(Long.parseLong(after.substring(0, Math.max(separator, 0))));
+                afterId = Long.parseLong(after.substring(separator + 1));
+            } catch (NumberFormatException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + after);
+            }
+        }
+
+        // fetch one extra row to find out whether there is a next page
+        List<TodoDTO> todos = toDoRepository.findOpenTodoDTOsByDueDate(from, to, afterDueDate, afterId, pageSize + 1);
+        boolean hasNext = todos.size() > pageSize;
+        List<TodoDTO> page = hasNext ? todos.subList(0, pageSize) : todos;
+        TodoDTO last = page.isEmpty() ? null : page.get(page.size() - 1);
+        return new TodoPageDTO(page, hasNext ? last.getDueDate() + "_" + last.getId() : null);
+    }
+
+    private static int checkLimit(Integer limit) {
+        if (limit == null) {
+            return MAX_LIMIT;
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                String.format("Limit must be between 1 and %d", MAX_LIMIT));
+        }
+        return limit;
+    }
+
+    private void afterCommit(Runnable change) {
+        AfterCommit.run(() -> update(change));
+    }
+
+    private void update(Runnable change) {
+        lock.lock();
+        try {
+            change.run();
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package de.unistuttgart.iste.ese.api.Services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The pending deadline timers of the open todos, ordered by firing time.
+ * <p>
+ * Each todo has at most one timer at a time: first the "due soon" timer, a fixed lead
+ * time before the due date, and once that fired the "overdue" timer at the due date.
+ * Scheduling, cancelling and firing take logarithmic time, so deadlines pass without
+ * scanning all todos. Not thread-safe; {@link DeadlineService} guards it with a lock.
+ */
+final class DeadlineTimeline {
+    /**
+     * A pending timer.
+     *
+     * @param at      When the timer fires, in epoch milliseconds
+     * @param id      The ID of the todo
+     * @param dueDate The due date of the todo in epoch milliseconds
+     * @param overdue Whether this is the timer at the due date rather than the "due soon" one
+     */
+    record Timer(long at, long id, long dueDate, boolean overdue) {
+    }
+
+    private static final Comparator<Timer> ORDER =
+        Comparator.comparingLong(Timer::at).thenComparingLong(Timer::id);
+
+    private final long dueSoonLead;
+    private final TreeSet<Timer> timers = new TreeSet<>(ORDER);
+    private final Map<Long, Timer> timersById = new HashMap<>();
+
+    /**
+     * @param dueSoonLead How long before the due date the "due soon" timer fires in
+     *                    milliseconds, 0 for no "due soon" timers
+     */
+    DeadlineTimeline(long dueSoonLead) {
+        this.dueSoonLead = dueSoonLead;
+    }
+
+    /**
+     * Sets the due date of a todo. Timers of a previous due date are cancelled, and the
+     * timers that have not passed yet are scheduled; if the todo is already due soon,
+     * its "due soon" timer fires right away. Setting the same due date again keeps the
+     * timers, so no event fires twice.
+     *
+     * @param id      The ID of the todo
+     * @param dueDate The due date in epoch milliseconds
+     * @param now     The current time in epoch milliseconds
+     */
+    void schedule(long id, long dueDate, long now) {
+        Timer current = timersById.get(id);
+        if (current != null && current.dueDate() == dueDate) {
+            return;
+        }
+        cancel(id);
+        if (dueDate <= now) {
+            return;
+        }
+        add(dueSoonLead > 0
+            ? new Timer(Math.max(dueDate - dueSoonLead, now), id, dueDate, false)
+            : new Timer(dueDate, id, dueDate, true));
+    }
+
+    /**
+     * Cancels the timers of a todo, e.g. when it is finished, deleted or loses its due date.
+     *
+     * @param id The ID of the todo
+     */
+    void cancel(long id) {
+        Timer current = timersById.remove(id);
+        if (current != null) {
+            timers.remove(current);
+        }
+    }
+
+    /**
+     * Removes the timers that are due, scheduling the "overdue" timer of each todo whose
+     * "due soon" timer fired.
+     *
+     * @param now The current time in epoch milliseconds
+     * @return The fired timers in firing order
+     */
+    List<Timer> poll(long now) {
+        List<Timer> fired = new ArrayList<>();
+        while (!timers.isEmpty() && timers.first().at() <= now) {
+            Timer timer = timers.pollFirst();
+            timersById.remove(timer.id());
+            fired.add(timer);
+            if (!timer.overdue()) {
+                add(new Timer(timer.dueDate(), timer.id(), timer.dueDate(), true));
+            }
+        }
+        return fired;
+    }
+
+    /**
+     * Returns when the next timer fires.
+     *
+     * @return The time in epoch milliseconds, or Long.MAX_VALUE if no timer is pending
+     */
+    long nextAt() {
+        return timers.isEmpty() ? Long.MAX_VALUE : timers.first().at();
+    }
+
+    /**
+     * Returns the number of todos with a pending timer.
+     *
+     * @return The number of todos
+     */
+    int size() {
+        return timersById.size();
+    }
+
+    private void add(Timer timer) {
+        timers.add(timer);
+        timersById.put(timer.id(), timer);
+    }
+}
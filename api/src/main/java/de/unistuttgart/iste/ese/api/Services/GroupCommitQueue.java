@@ -0,0 +1,157 @@
+package de.unistuttgart.iste.ese.api.Services;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Collects concurrent write requests and hands them to a handler in groups, so that
+ * one transaction (and one commit) serves many callers.
+ * <p>
+ * Each worker takes the requests that are already waiting, up to the maximum group
+ * size. If its previous group had more than one request, which means requests arrive
+ * concurrently, it additionally waits up to the maximum delay for more; a single
+ * client therefore pays no delay. While a group is being committed, new requests queue
+ * up and form the next group. The handler completes the result of every request;
+ * requests it leaves open fail with its exception.
+ *
+ * @param <T> The type of the requests
+ * @param <R> The type of the results
+ */
+final class GroupCommitQueue<T, R> {
+    private static final Log LOG = LogFactory.getLog(GroupCommitQueue.class);
+
+    /**
+     * A request waiting for its group to be committed.
+     *
+     * @param value  The request
+     * @param result Completed by the handler with the result of the request
+     */
+    record Request<T, R>(T value, CompletableFuture<R> result) {
+    }
+
+    private final BlockingQueue<Request<T, R>> queue = new LinkedBlockingQueue<>();
+    private final Consumer<List<Request<T, R>>> handler;
+    private final int maxSize;
+    private final long maxDelayNanos;
+    private final ExecutorService executor;
+    private volatile boolean running = true;
+
+    /**
+     * Starts the workers.
+     *
+     * @param name     The prefix of the worker thread names
+     * @param workers  The number of groups committed at the same time
+     * @param maxSize  The maximum number of requests in a group
+     * @param maxDelay The maximum time in nanoseconds a worker waits for more requests
+     * @param handler  Processes a group, completing the result of each request
+     */
+    GroupCommitQueue(String name, int workers, int maxSize, long maxDelay, Consumer<List<Request<T, R>>> handler) {
+        this.handler = handler;
+        this.maxSize = maxSize;
+        this.maxDelayNanos = maxDelay;
+        // virtual threads, since workers mostly wait for the database
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name, 0).factory());
+        for (int i = 0; i < workers; i++) {
+            executor.submit(this::work);
+        }
+    }
+
+    /**
+     * Queues a request and waits until its group has been committed.
+     *
+     * @param value The request
+     * @return The result of the request
+     * @throws RuntimeException the exception the request failed with
+     */
+    R submit(T value) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        queue.add(new Request<>(value, result));
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the group commit", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Returns the number of requests waiting for a worker.
+     *
+     * @return The queue depth
+     */
+    int size() {
+        return queue.size();
+    }
+
+    /**
+     * Commits the requests still queued and stops the workers.
+     *
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    void stop() throws InterruptedException {
+        running = false;
+        executor.shutdown();
+        if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+        List<Request<T, R>> left = new ArrayList<>();
+        queue.drainTo(left);
+        left.forEach(request -> request.result().completeExceptionally(
+            new IllegalStateException("Shutting down")));
+    }
+
+    private void work() {
+        List<Request<T, R>> group = new ArrayList<>(maxSize);
+        int previousSize = 0;
+        while (running || !queue.isEmpty()) {
+            try {
+                Request<T, R> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    previousSize = 0;
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, maxSize - group.size());
+                if (previousSize > 1) {
+                    long deadline = System.nanoTime() + maxDelayNanos;
+                    long remaining;
+                    while (group.size() < maxSize && (remaining = deadline - System.nanoTime()) > 0) {
+                        Request<T, R> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        group.add(next);
+                        queue.drainTo(group, maxSize - group.size());
+                    }
+                }
+                previousSize = group.size();
+                handler.accept(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                group.forEach(request -> request.result().completeExceptionally(e));
+                return;
+            } catch (RuntimeException e) {
+                LOG.error("Could not commit a group of " + group.size() + " requests:", e);
+                group.forEach(request -> request.result().completeExceptionally(e));
+            } finally {
+                group.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package de.unistuttgart.iste.ese.api.Services;
+
+import de.unistuttgart.iste.ese.api.Config.ReplicaRoutingDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps cheap table-level revision counters for todos and assignees. List responses
+ * derive their ETags from these counters, so conditional requests can be answered
+ * without reading the tables.
+ * <p>
+ * Counters are bumped after the writing transaction commits, so a reader never sees
+ * a new revision together with old data, unless it read from a replica that has not
+ * applied the latest writes yet; see {@link #isReadCurrent()}.
+ */
+@Service
+public class RevisionService {
+    // distinguishes revisions of different application runs
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLong todoRevision = new AtomicLong();
+    private final AtomicLong assigneeRevision = new AtomicLong();
+
+    @Autowired
+    private ObjectProvider<ReplicaRoutingDataSource> routingDataSource;
+
+    /**
+     * Returns the ETag for the current state of the todo table.
+     *
+     * @return The strong ETag for todo lists
+     */
+    public String getToDoListETag() {
+        return String.format("\"todos-%s-%d\"", bootId, todoRevision.get());
+    }
+
+    /**
+     * Returns the ETag for the current state of the assignee table.
+     *
+     * @return The strong ETag for assignee lists
+     */
+    public String getAssigneeListETag() {
+        return String.format("\"assignees-%s-%d\"", bootId, assigneeRevision.get());
+    }
+
+    /**
+     * Checks whether the data the current request read is at least as new as the revisions
+     * read before it. If not, it must not be sent with a list ETag, since clients would
+     * keep the outdated list as current.
+     *
+     * @return false if the request read from a replica behind the latest writes
+     */
+    public boolean isReadCurrent() {
+        ReplicaRoutingDataSource routing = routingDataSource.getIfAvailable();
+        return routing == null || !routing.hasReadStaleData();
+    }
+
+    /**
+     * Marks the todo table as changed by a committed change of a single todo.
+     *
+     * @param event The change
+     */
+    @TransactionalEventListener
+    public void toDoChanged(ToDoService.TodoChangedEvent event) {
+        todoRevision.incrementAndGet();
+    }
+
+    /**
+     * Marks the todo table as changed, for changes that do not publish a
+     * {@link ToDoService.TodoChangedEvent} per todo. Applied after commit, see {@link AfterCommit}.
+     */
+    public void toDosChanged() {
+        AfterCommit.run(todoRevision::incrementAndGet);
+    }
+
+    /**
+     * Marks the assignee table as changed. Todos embed their assignees, so the todo
+     * revision changes as well. Applied after commit, see {@link AfterCommit}.
+     */
+    public void assigneesChanged() {
+        AfterCommit.run(() -> {
+            assigneeRevision.incrementAndGet();
+            todoRevision.incrementAndGet();
+        });
+    }
+}
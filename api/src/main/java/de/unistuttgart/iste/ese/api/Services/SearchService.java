@@ -0,0 +1,124 @@
+package de.unistuttgart.iste.ese.api.Services;
+
+import de.unistuttgart.iste.ese.api.DTOs.TodoDTO;
+import de.unistuttgart.iste.ese.api.Repositories.ToDoRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Full-text search over the titles and descriptions of todos.
+ * <p>
+ * The index lives in memory: it is built from the database at startup and kept up to
+ * date from the {@link ToDoService.TodoChangedEvent}s of committed transactions.
+ * Searching only touches the index; the matching todos are then loaded by ID.
+ */
+@Service
+@Timed(value = "todo.service", description = "Service method calls", histogram = true)
+public class SearchService {
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private static final Log LOG = LogFactory.getLog(SearchService.class);
+    private static final int BUILD_CHUNK_SIZE = 1000;
+
+    @Autowired
+    private ToDoRepository toDoRepository;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    private final TodoSearchIndex index = new TodoSearchIndex();
+
+    /**
+     * Indexes all stored todos, reading them in keyset-paginated chunks of ID, title and
+     * description only.
+     */
+    @PostConstruct
+    public void buildIndex() {
+        long start = System.nanoTime();
+        long afterId = 0;
+        int count = 0;
+        List<Object[]> chunk = toDoRepository.findSearchTexts(afterId, PageRequest.of(0, BUILD_CHUNK_SIZE));
+        while (!chunk.isEmpty()) {
+            for (Object[] row : chunk) {
+                afterId = (Long) row[0];
+                index.put(afterId, (String) row[1], (String) row[2]);
+            }
+            count += chunk.size();
+            chunk = chunk.size() < BUILD_CHUNK_SIZE ? List.of()
+                : toDoRepository.findSearchTexts(afterId, PageRequest.of(0, BUILD_CHUNK_SIZE));
+        }
+        LOG.info(String.format("Indexed %d todos for search in %d ms", count, (System.nanoTime() - start) / 1_000_000));
+
+        meterRegistry.ifAvailable(registry -> Gauge.builder("todo.search.documents", index, TodoSearchIndex::size)
+            .description("Todos in the search index")
+            .register(registry));
+    }
+
+    /**
+     * Searches the titles and descriptions of all todos. The query is tokenized like the
+     * indexed texts, and only todos containing every query term match.
+     *
+     * @param query The search terms
+     * @param limit The maximum number of results, or null for {@link #DEFAULT_LIMIT}
+     * @return The matching todos as DTOs, best matches first
+     * @throws ResponseStatusException if the query is blank or the limit is out of range
+     */
+    public List<TodoDTO> search(String query, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Search query must not be empty");
+        }
+        int maxResults = limit != null ? limit : DEFAULT_LIMIT;
+        if (maxResults < 1 || maxResults > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                String.format("Limit must be between 1 and %d", MAX_LIMIT));
+        }
+
+        List<Long> ids = index.search(query, maxResults);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, TodoDTO> todosById = toDoRepository.findTodoDTOsByIds(ids).stream()
+            .collect(Collectors.toMap(TodoDTO::getId, Function.identity()));
+        List<TodoDTO> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            // a todo deleted since the index lookup is left out
+            TodoDTO todo = todosById.get(id);
+            if (todo != null) {
+                results.add(todo);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Indexes the text of a created or updated todo, or removes a deleted one.
+     *
+     * @param event The committed change
+     */
+    @TransactionalEventListener
+    public void toDoChanged(ToDoService.TodoChangedEvent event) {
+        if (event.after() == null) {
+            index.remove(event.id());
+        } else if (event.textChanged()) {
+            index.put(event.id(), event.title(), event.description());
+        }
+    }
+}
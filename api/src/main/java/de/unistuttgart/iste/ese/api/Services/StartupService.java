@@ -0,0 +1,132 @@
+package de.unistuttgart.iste.ese.api.Services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.unistuttgart.iste.ese.api.DTOs.TodoDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoFilterDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoPageDTO;
+import de.unistuttgart.iste.ese.api.Models.TodoModel;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Decides when the application is ready for traffic. Once the context has started, a
+ * background thread waits for the AI model (which may still be loading, see
+ * {@code todo.model.startup}) and runs the list and serialize paths a number of times,
+ * so the JIT compiles them before the first real request. With
+ * {@code todo.startup.warmup-writes}, each round also creates a todo in a transaction
+ * that is rolled back. All post-commit hooks (change log, stats, search index,
+ * deadlines, asynchronous categorization) skip rolled-back transactions, but the IDs
+ * taken from the sequence are lost, and the inserts take row locks and write the
+ * database log, so this is off by default. Until then the "startup" health indicator
+ * reports OUT_OF_SERVICE, which keeps the readiness probe down while the liveness probe
+ * is already up.
+ */
+@Service
+public class StartupService {
+    private static final Log LOG = LogFactory.getLog(StartupService.class);
+    private static final int WARMUP_PAGE_SIZE = 50;
+
+    @Autowired
+    private TodoModel todoModel;
+
+    @Autowired
+    private ToDoService toDoService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${todo.startup.warmup-iterations:200}")
+    private int warmupIterations = 200;
+
+    @Value("${todo.startup.warmup-writes:false}")
+    private boolean warmupWrites;
+
+    private volatile boolean ready;
+    private volatile long timeToReadyMs = -1;
+
+    /**
+     * Starts the warm-up once the application context has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void applicationReady() {
+        Thread.ofPlatform().name("todo-startup").daemon().start(this::warmUp);
+    }
+
+    /**
+     * Checks whether the model is loaded and the warm-up has finished.
+     *
+     * @return true if the application is ready for traffic
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns the time from JVM start until the application was ready.
+     *
+     * @return The time in milliseconds, or -1 if it is not ready yet
+     */
+    public long getTimeToReadyMs() {
+        return timeToReadyMs;
+    }
+
+    private void warmUp() {
+        todoModel.awaitInitialLoad();
+        long start = System.nanoTime();
+        TransactionTemplate rollback = new TransactionTemplate(transactionManager);
+        try {
+            for (int i = 0; i < warmupIterations; i++) {
+                if (warmupWrites) {
+                    TodoDTO todo = new TodoDTO();
+                    // one title, so the prediction cache keeps a single extra entry
+                    todo.setTitle("Warm-up");
+                    todo.setAssigneeIdList(List.of());
+                    rollback.executeWithoutResult(status -> {
+                        TodoDTO created = toDoService.createToDo(todo);
+                        try {
+                            objectMapper.writeValue(OutputStream.nullOutputStream(), created);
+                        } catch (IOException e) {
+                            throw new IllegalStateException(e);
+                        }
+                        status.setRollbackOnly();
+                    });
+                }
+                TodoPageDTO page = toDoService.getToDoPage(new TodoFilterDTO(), null, WARMUP_PAGE_SIZE);
+                objectMapper.writeValue(OutputStream.nullOutputStream(), page);
+            }
+        } catch (IOException | RuntimeException e) {
+            // a failed warm-up only costs speed, the application is usable anyway
+            LOG.warn("Warm-up failed: " + e.getMessage());
+        }
+        timeToReadyMs = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        ready = true;
+        LOG.info(String.format("Ready for traffic %d ms after JVM start (warm-up took %d ms)",
+            timeToReadyMs, (System.nanoTime() - start) / 1_000_000));
+        meterRegistry.ifAvailable(registry ->
+            Gauge.builder("todo.startup.time-to-ready", this, StartupService::getTimeToReadyMs)
+                .description("Time from JVM start until the application was ready for traffic")
+                .baseUnit("milliseconds")
+                .register(registry));
+    }
+}
@@ -0,0 +1,419 @@
+package de.unistuttgart.iste.ese.api.Services;
+
+import de.unistuttgart.iste.ese.api.Config.ReplicaRoutingDataSource;
+import de.unistuttgart.iste.ese.api.DTOs.AssigneeStatsDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoStatsDTO;
+import de.unistuttgart.iste.ese.api.Models.Assignee;
+import de.unistuttgart.iste.ese.api.Models.ToDo;
+import de.unistuttgart.iste.ese.api.Repositories.ToDoRepository;
+import jakarta.annotation.PostConstruct;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps aggregate statistics over all todos in memory, so they can be served without
+ * reading the table.
+ * <p>
+ * Every {@link ToDoService.TodoChangedEvent} carries the state of the todo before and
+ * after the change, and the counters are adjusted once its transaction has committed.
+ * Changes that touch many todos at once, like bulk status updates, trigger a
+ * reconciliation instead. Reconciliation recomputes all figures with GROUP BY queries in
+ * one read-only transaction on the primary and also runs periodically, which corrects any drift.
+ */
+@Service
+public class StatsService {
+    public static final String NO_CATEGORY = "none";
+
+    private static final Log LOG = LogFactory.getLog(StatsService.class);
+    // upper bounds of the completion time buckets in seconds; the last bucket is open-ended
+    private static final long[] COMPLETION_BOUNDS = {
+        TimeUnit.HOURS.toSeconds(1), TimeUnit.DAYS.toSeconds(1), TimeUnit.DAYS.toSeconds(7), TimeUnit.DAYS.toSeconds(30)
+    };
+    private static final String[] COMPLETION_LABELS = {"<1h", "<1d", "<7d", "<30d", ">=30d"};
+
+    @Autowired
+    private ToDoRepository toDoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // guarded by lock
+    private Counters counters = new Counters();
+    private Long reconciledAt;
+    // changes applied while a reconciliation runs, replayed onto its result
+    private List<Consumer<Counters>> pending;
+
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+    private final AtomicBoolean reconcileRequested = new AtomicBoolean();
+
+    /**
+     * The state of a todo as far as the statistics are concerned.
+     *
+     * @param category     The category, may be null
+     * @param finished     Whether the todo is finished
+     * @param dueDate      The due date in epoch milliseconds, may be null
+     * @param createdDate  The creation date in epoch milliseconds, may be null
+     * @param finishedDate The finishing date in epoch milliseconds, may be null
+     * @param assigneeIds  The IDs of the assignees
+     */
+    public record Facts(String category, boolean finished, Long dueDate, Long createdDate, Long finishedDate,
+                        List<Long> assigneeIds) {
+
+        /**
+         * Captures the current state of a todo entity. Call it before modifying the entity.
+         *
+         * @param todo The todo
+         * @return The facts of the todo
+         */
+        public static Facts of(ToDo todo) {
+            return new Facts(
+                todo.getCategory(),
+                todo.isFinished(),
+                toMillis(todo.getDueDate()),
+                toMillis(todo.getCreatedDate()),
+                toMillis(todo.getFinishedDate()),
+                todo.getAssigneeList().stream().map(Assignee::getId).collect(Collectors.toList())
+            );
+        }
+
+        /**
+         * Captures the state of a todo DTO.
+         *
+         * @param todo The todo as DTO including its assignees
+         * @return The facts of the todo
+         */
+        public static Facts of(TodoDTO todo) {
+            return new Facts(
+                todo.getCategory(),
+                todo.isFinished(),
+                todo.getDueDate(),
+                todo.getCreatedDate(),
+                todo.getFinishedDate(),
+                todo.getAssigneeList().stream().map(Assignee::getId).collect(Collectors.toList())
+            );
+        }
+
+        private static Long toMillis(Date date) {
+            return date != null ? date.getTime() : null;
+        }
+    }
+
+    private record AssigneeCount(long total, long finished) {
+    }
+
+    /**
+     * The figures themselves. Not thread-safe.
+     */
+    private static final class Counters {
+        long total;
+        long finished;
+        final Map<String, Long> byCategory = new HashMap<>();
+        final Map<Long, AssigneeCount> byAssignee = new HashMap<>();
+        final long[] completionTime = new long[COMPLETION_LABELS.length];
+        // open todos with a due date: the overdue ones are counted, the others kept by due date
+        long overdue;
+        long overdueBefore;
+        final TreeMap<Long, Long> upcomingDueDates = new TreeMap<>();
+
+        void add(Facts facts, int sign) {
+            total += sign;
+            if (facts.finished()) {
+                finished += sign;
+            }
+            addCategory(facts.category(), sign);
+            for (Long assigneeId : facts.assigneeIds()) {
+                addAssignee(assigneeId, sign, facts.finished() ? sign : 0);
+            }
+            if (!facts.finished() && facts.dueDate() != null) {
+                addDueDate(facts.dueDate(), sign);
+            }
+            if (facts.finished() && facts.createdDate() != null && facts.finishedDate() != null) {
+                completionTime[completionBucket((facts.finishedDate() - facts.createdDate()) / 1000)] += sign;
+            }
+        }
+
+        void addCategory(String category, long count) {
+            byCategory.merge(category != null ? category : NO_CATEGORY, count, Long::sum);
+            byCategory.values().remove(0L);
+        }
+
+        void addAssignee(long assigneeId, long total, long finished) {
+            AssigneeCount current = byAssignee.getOrDefault(assigneeId, new AssigneeCount(0, 0));
+            AssigneeCount updated = new AssigneeCount(current.total() + total, current.finished() + finished);
+            if (updated.total() == 0) {
+                byAssignee.remove(assigneeId);
+            } else {
+                byAssignee.put(assigneeId, updated);
+            }
+        }
+
+        void addDueDate(long dueDate, long count) {
+            if (dueDate < overdueBefore) {
+                overdue += count;
+            } else {
+                upcomingDueDates.merge(dueDate, count, Long::sum);
+                upcomingDueDates.values().remove(0L);
+            }
+        }
+
+        /**
+         * Moves the due dates that have passed to the overdue count. Each due date moves
+         * once, so this takes constant time on average.
+         */
+        void advance(long now) {
+            while (!upcomingDueDates.isEmpty() && upcomingDueDates.firstKey() < now) {
+                overdue += upcomingDueDates.pollFirstEntry().getValue();
+            }
+            overdueBefore = Math.max(overdueBefore, now);
+        }
+
+        // both counters must have been advanced to the same time
+        boolean sameAs(Counters other) {
+            return total == other.total
+                && finished == other.finished
+                && overdue == other.overdue
+                && upcomingDueDates.equals(other.upcomingDueDates)
+                && byCategory.equals(other.byCategory)
+                && byAssignee.equals(other.byAssignee)
+                && Arrays.equals(completionTime, other.completionTime);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        reconcile();
+    }
+
+    /**
+     * Returns the current statistics. Takes time proportional to the number of
+     * categories and assignees, independent of the number of todos.
+     *
+     * @return The statistics
+     */
+    public TodoStatsDTO getStats() {
+        lock.lock();
+        try {
+            Counters current = counters;
+            current.advance(System.currentTimeMillis());
+
+            Map<Long, AssigneeStatsDTO> byAssignee = new TreeMap<>();
+            current.byAssignee.forEach((id, count) -> byAssignee.put(id,
+                new AssigneeStatsDTO(count.total(), count.finished(), count.total() - count.finished())));
+            Map<String, Long> completionTime = new LinkedHashMap<>();
+            for (int i = 0; i < COMPLETION_LABELS.length; i++) {
+                completionTime.put(COMPLETION_LABELS[i], current.completionTime[i]);
+            }
+            return new TodoStatsDTO(
+                current.total,
+                current.finished,
+                current.total - current.finished,
+                current.overdue,
+                new TreeMap<>(current.byCategory),
+                byAssignee,
+                completionTime,
+                reconciledAt
+            );
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Accounts for a created, updated or deleted todo.
+     *
+     * @param event The committed change
+     */
+    @TransactionalEventListener
+    public void toDoChanged(ToDoService.TodoChangedEvent event) {
+        Facts before = event.before();
+        Facts after = event.after();
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        apply(current -> {
+            if (before != null) {
+                current.add(before, -1);
+            }
+            if (after != null) {
+                current.add(after, 1);
+            }
+        });
+    }
+
+    /**
+     * Accounts for a category written back by the background categorization. Applied
+     * after commit, see {@link AfterCommit}.
+     *
+     * @param from The previous category
+     * @param to   The new category
+     */
+    public void categoryChanged(String from, String to) {
+        if (!Objects.equals(from, to)) {
+            afterCommit(current -> {
+                current.addCategory(from, -1);
+                current.addCategory(to, 1);
+            });
+        }
+    }
+
+    /**
+     * Drops the figures of a deleted assignee. Applied after commit, see {@link AfterCommit}.
+     *
+     * @param assigneeId The ID of the assignee
+     */
+    public void assigneeDeleted(long assigneeId) {
+        afterCommit(current -> current.byAssignee.remove(assigneeId));
+    }
+
+    /**
+     * Recomputes the statistics in the background once the current transaction commits,
+     * see {@link AfterCommit}. Used for changes of many todos at once. Requests made while
+     * a reconciliation is pending are merged into it.
+     */
+    public void reconcileAfterCommit() {
+        AfterCommit.run(() -> {
+            if (reconcileRequested.compareAndSet(false, true)) {
+                Thread.ofVirtual().name("todo-stats-reconciler").start(() -> {
+                    reconcileRequested.set(false);
+                    reconcile();
+                });
+            }
+        });
+    }
+
+    /**
+     * Recomputes all figures from the database and replaces the counters. Changes that
+     * commit while the queries run are applied to both the old and the new counters; a
+     * change that commits just before its effect is read may be counted twice until the
+     * next run.
+     */
+    @Scheduled(fixedDelayString = "${todo.stats.reconcile-interval:PT5M}",
+        initialDelayString = "${todo.stats.reconcile-interval:PT5M}")
+    public void reconcile() {
+        reconcileLock.lock();
+        try {
+            lock.lock();
+            try {
+                pending = new ArrayList<>();
+            } finally {
+                lock.unlock();
+            }
+
+            Counters fresh;
+            try {
+                fresh = readOnlyTransaction.execute(status -> {
+                    // the pending changes are replayed onto what the primary has committed
+                    ReplicaRoutingDataSource.usePrimary();
+                    return query();
+                });
+            } catch (RuntimeException e) {
+                LOG.warn("Could not reconcile todo statistics: " + e.getMessage());
+                lock.lock();
+                try {
+                    pending = null;
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+
+            lock.lock();
+            try {
+                pending.forEach(change -> change.accept(fresh));
+                pending = null;
+                long now = System.currentTimeMillis();
+                fresh.advance(now);
+                counters.advance(now);
+                if (reconciledAt != null && !counters.sameAs(fresh)) {
+                    LOG.info("Corrected drift of the todo statistics");
+                }
+                counters = fresh;
+                reconciledAt = now;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    private Counters query() {
+        Counters fresh = new Counters();
+        for (Object[] row : toDoRepository.countByCategoryAndFinished()) {
+            long count = (Long) row[2];
+            fresh.total += count;
+            if ((Boolean) row[1]) {
+                fresh.finished += count;
+            }
+            fresh.addCategory((String) row[0], count);
+        }
+        for (Object[] row : toDoRepository.countOpenByDueDate()) {
+            fresh.addDueDate(((Date) row[0]).getTime(), (Long) row[1]);
+        }
+        for (Object[] row : toDoRepository.countByAssigneeAndFinished()) {
+            long count = (Long) row[2];
+            fresh.addAssignee((Long) row[0], count, (Boolean) row[1] ? count : 0);
+        }
+        List<Object[]> completion = toDoRepository.countByCompletionTime(
+            COMPLETION_BOUNDS[0], COMPLETION_BOUNDS[1], COMPLETION_BOUNDS[2], COMPLETION_BOUNDS[3]);
+        if (!completion.isEmpty()) {
+            Object[] row = completion.get(0);
+            for (int i = 0; i < row.length; i++) {
+                // sums over no rows are null
+                fresh.completionTime[i] = row[i] != null ? ((Number) row[i]).longValue() : 0;
+            }
+        }
+        return fresh;
+    }
+
+    private static int completionBucket(long seconds) {
+        int bucket = 0;
+        while (bucket < COMPLETION_BOUNDS.length && seconds >= COMPLETION_BOUNDS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private void afterCommit(Consumer<Counters> change) {
+        AfterCommit.run(() -> apply(change));
+    }
+
+    private void apply(Consumer<Counters> change) {
+        lock.lock();
+        try {
+            change.accept(counters);
+            if (pending != null) {
+                pending.add(change);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -1,27 +1,118 @@
 package de.unistuttgart.iste.ese.api.Services;
 
+import de.unistuttgart.iste.ese.api.DTOs.TodoBatchResultDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoBulkResultDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoBulkStatusDTO;
 import de.unistuttgart.iste.ese.api.DTOs.TodoDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoFilterDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoPageDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoPatchDTO;
 import de.unistuttgart.iste.ese.api.Models.Assignee;
+import de.unistuttgart.iste.ese.api.Models.ChangeLogEntry;
 import de.unistuttgart.iste.ese.api.Models.ToDo;
 import de.unistuttgart.iste.ese.api.Models.TodoModel;
 import de.unistuttgart.iste.ese.api.Repositories.AssigneeRepository;
 import de.unistuttgart.iste.ese.api.Repositories.ToDoRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.text.SimpleDateFormat;
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @Service
+@Timed(value = "todo.service", description = "Service method calls", histogram = true)
 public class ToDoService {
+    private static final Log LOG = LogFactory.getLog(ToDoService.class);
+    // also the header expected by CsvImportService
+    static final String CSV_HEADER =
+        "id,title,description,finished,assignees,createdDate,dueDate,finishedDate,category\n";
+    // DateTimeFormatter is immutable and thread-safe, unlike SimpleDateFormat
+    private static final DateTimeFormatter CSV_DATE_FORMAT =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd").withZone(ZoneId.systemDefault());
+    private static final int CSV_CHUNK_SIZE = 500;
+    private static final int CSV_BUFFER_SIZE = 64 * 1024;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Published within the writing transaction whenever a single todo is created, updated
+     * or deleted. The change log records it before the transaction commits; the revision
+     * counters, the search index, the statistics and the deadlines apply it once the
+     * transaction has committed. These keep their state in memory and only see the events
+     * of this instance, so they assume a single application instance writes to the database.
+     *
+     * @param id          The ID of the todo
+     * @param operation   {@link ChangeLogEntry#CREATED}, {@link ChangeLogEntry#UPDATED} or {@link ChangeLogEntry#DELETED}
+     * @param before      The state before the change, or null if the todo was created
+     * @param after       The state after the change, or null if the todo was deleted
+     * @param textChanged Whether the title or the description may have changed
+     * @param title       The title after the change, or null if the todo was deleted
+     * @param description The description after the change, may be null
+     */
+    public record TodoChangedEvent(long id, String operation, StatsService.Facts before, StatsService.Facts after,
+                                   boolean textChanged, String title, String description) {
+
+        static TodoChangedEvent created(ToDo todo) {
+            return new TodoChangedEvent(todo.getId(), ChangeLogEntry.CREATED, null, StatsService.Facts.of(todo),
+                true, todo.getTitle(), todo.getDescription());
+        }
+
+        static TodoChangedEvent updated(StatsService.Facts before, ToDo todo) {
+            return new TodoChangedEvent(todo.getId(), ChangeLogEntry.UPDATED, before, StatsService.Facts.of(todo),
+                true, todo.getTitle(), todo.getDescription());
+        }
+
+        static TodoChangedEvent deleted(long id, StatsService.Facts before) {
+            return new TodoChangedEvent(id, ChangeLogEntry.DELETED, before, null, true, null, null);
+        }
+    }
+
     @Autowired
     private ToDoRepository toDoRepository;
 
@@ -31,15 +122,95 @@ public class ToDoService {
     @Autowired
     private TodoModel todoModel;
 
+    @Autowired
+    private CategorizationService categorizationService;
+
+    @Autowired
+    private RevisionService revisionService;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private StatsService statsService;
+
+    @Autowired
+    private DeadlineService deadlineService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private Validator validator;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${todo.create.group-commit.enabled:false}")
+    private boolean groupCommitEnabled;
+
+    @Value("${todo.create.group-commit.max-size:64}")
+    private int groupCommitMaxSize;
+
+    @Value("${todo.create.group-commit.max-delay:PT0.002S}")
+    private Duration groupCommitMaxDelay;
+
+    @Value("${todo.create.group-commit.workers:2}")
+    private int groupCommitWorkers;
+
+    private TransactionTemplate transactionTemplate;
+    private TransactionTemplate readOnlyTransaction;
+    private GroupCommitQueue<TodoDTO, TodoDTO> groupCommit;
+    private DistributionSummary groupSizeSummary;
+
     /**
      * Retrieves all Todo items from the repository.
      *
      * @return List of all Todo items as DTOs
      */
+    @Transactional(readOnly = true)
     public List<TodoDTO> getAllToDos() {
-        return ((List<ToDo>) toDoRepository.findAll()).stream()
-            .map(this::convertToDTO)
-            .collect(Collectors.toList());
+        return toDoRepository.findTodoDTOs(new TodoFilterDTO(), null, 0);
+    }
+
+    /**
+     * Retrieves one page of Todo items matching a filter, ordered by ID.
+     * Pages are addressed with a keyset cursor (the last ID of the previous page),
+     * so the cost of a page does not depend on how far into the table it is.
+     *
+     * @param filter  The filter to apply
+     * @param afterId The cursor returned with the previous page, or null for the first page
+     * @param limit   The page size, or null to return all matching items
+     * @return The page of Todo items as DTOs with the cursor for the next page
+     * @throws ResponseStatusException if the page size is out of range
+     */
+    @Transactional(readOnly = true)
+    public TodoPageDTO getToDoPage(TodoFilterDTO filter, Long afterId, Integer limit) {
+        if (limit == null && afterId == null) {
+            return new TodoPageDTO(toDoRepository.findTodoDTOs(filter, null, 0), null);
+        }
+
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                String.format("Page size must be between 1 and %d", MAX_PAGE_SIZE));
+        }
+
+        // fetch one extra row to find out whether there is a next page
+        List<TodoDTO> todos = toDoRepository.findTodoDTOs(filter, afterId, pageSize + 1);
+        boolean hasNext = todos.size() > pageSize;
+        List<TodoDTO> page = hasNext ? todos.subList(0, pageSize) : todos;
+        String nextCursor = hasNext ? page.get(page.size() - 1).getId().toString() : null;
+        return new TodoPageDTO(page, nextCursor);
     }
 
     /**
@@ -49,22 +220,165 @@ public class ToDoService {
      * @return The found Todo item as DTO
      * @throws ResponseStatusException if Todo item is not found
      */
+    @Transactional(readOnly = true)
     public TodoDTO getToDoById(long id) {
         return convertToDTO(findToDoById(id));
     }
 
     /**
-     * Creates a new Todo item. Processes assignees and predicts the category via AI model.
+     * Retrieves only the versions the ETag of a Todo item depends on, so conditional
+     * requests can be answered without loading and converting the item.
+     *
+     * @param id The ID of the Todo item
+     * @return A DTO with only the ID, version and the IDs and versions of the assignees,
+     * or null if not found
+     */
+    @Transactional(readOnly = true)
+    public TodoDTO getToDoVersions(long id) {
+        List<Object[]> rows = toDoRepository.findVersionsById(id);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        TodoDTO versions = new TodoDTO();
+        versions.setId(id);
+        versions.setVersion((Long) rows.get(0)[0]);
+        List<Assignee> assignees = new ArrayList<>();
+        for (Object[] row : rows) {
+            if (row[1] != null) {
+                Assignee assignee = new Assignee();
+                assignee.setId((Long) row[1]);
+                assignee.setVersion((Long) row[2]);
+                assignees.add(assignee);
+            }
+        }
+        versions.setAssigneeList(assignees);
+        return versions;
+    }
+
+    /**
+     * Prepares the transaction templates and starts the group commit of created todos if
+     * it is enabled.
+     */
+    @PostConstruct
+    public void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        if (!groupCommitEnabled) {
+            return;
+        }
+        groupCommit = new GroupCommitQueue<>("todo-group-commit-", groupCommitWorkers, groupCommitMaxSize,
+            groupCommitMaxDelay.toNanos(), this::createGroup);
+        meterRegistry.ifAvailable(registry -> {
+            Gauge.builder("todo.create.group-commit.queue.depth", groupCommit, GroupCommitQueue::size)
+                .description("Created todos waiting for a group commit")
+                .register(registry);
+            groupSizeSummary = DistributionSummary.builder("todo.create.group-commit.size")
+                .description("Todos created per transaction by the group commit")
+                .publishPercentileHistogram()
+                .register(registry);
+        });
+    }
+
+    /**
+     * Commits the todos still waiting for the group commit.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (groupCommit != null) {
+            groupCommit.stop();
+        }
+    }
+
+    /**
+     * Creates a new Todo item. Processes assignees and predicts the category via AI model,
+     * or schedules the prediction if categorization runs asynchronously.
+     * <p>
+     * With {@code todo.create.group-commit.enabled}, calls outside of a transaction are
+     * collected with concurrent ones and stored in a shared transaction, see
+     * {@link #createGroup}. The result is the same as with a transaction of its own.
      *
      * @param todo The DTO containing Todo creation data
      * @return The newly created Todo item as DTO
      * @throws ResponseStatusException if validation fails
      */
     public TodoDTO createToDo(TodoDTO todo) {
+        if (groupCommit != null && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return groupCommit.submit(todo);
+        }
+        // joins the caller's transaction, if any
+        return transactionTemplate.execute(status ->
+            insertToDo(todo, categorizationService.initialCategory(todo.getTitle())));
+    }
+
+    /**
+     * Stores a group of todos created concurrently in one transaction and completes each
+     * request with its own todo. Requests that fail validation fail on their own without
+     * affecting the others. If the transaction as a whole fails, each remaining todo is
+     * retried in a transaction of its own, so one bad row cannot fail its neighbours.
+     *
+     * @param group The requests of the group
+     */
+    private void createGroup(List<GroupCommitQueue.Request<TodoDTO, TodoDTO>> group) {
+        // recorded up front, so groups stored one by one after a failure are counted too
+        if (groupSizeSummary != null) {
+            groupSizeSummary.record(group.size());
+        }
+        // predicted before the transaction, so it does not hold a connection meanwhile
+        List<String> categories = categorizationService.isAsync()
+            ? group.stream().map(request -> CategorizationService.PENDING_CATEGORY).collect(Collectors.toList())
+            : todoModel.predictClasses(group.stream()
+                .map(request -> request.value().getTitle())
+                .collect(Collectors.toList()));
+
+        TodoDTO[] created = new TodoDTO[group.size()];
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < group.size(); i++) {
+                    try {
+                        created[i] = insertToDo(group.get(i).value(), categories.get(i));
+                    } catch (ResponseStatusException e) {
+                        // validation failures are thrown before anything is stored
+                        group.get(i).result().completeExceptionally(e);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            LOG.warn("Group commit of " + group.size() + " todos failed, storing them one by one: " + e.getMessage());
+            for (int i = 0; i < group.size(); i++) {
+                GroupCommitQueue.Request<TodoDTO, TodoDTO> request = group.get(i);
+                if (request.result().isDone()) {
+                    continue;
+                }
+                String category = categories.get(i);
+                try {
+                    request.result().complete(transactionTemplate.execute(status ->
+                        insertToDo(request.value(), category)));
+                } catch (RuntimeException single) {
+                    request.result().completeExceptionally(single);
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < group.size(); i++) {
+            if (created[i] != null) {
+                group.get(i).result().complete(created[i]);
+            }
+        }
+    }
+
+    /**
+     * Validates and stores a new todo within the current transaction.
+     *
+     * @param todo     The DTO containing Todo creation data
+     * @param category The initial category
+     * @return The newly created Todo item as DTO
+     * @throws ResponseStatusException if validation fails, before anything is stored
+     */
+    private TodoDTO insertToDo(TodoDTO todo, String category) {
         validateAssigneeIds(todo.getAssigneeIdList());
         List<Assignee> assignees = getAssignees(todo.getAssigneeIdList());
         Date dueDate = todo.getDueDate() != null ? new Date(todo.getDueDate()) : null;
-        String category = todoModel.predictClass(todo.getTitle());
 
         ToDo toDo = new ToDo(
             todo.getTitle(),
@@ -77,7 +391,77 @@ public class ToDoService {
             category
         );
 
-        return convertToDTO(toDoRepository.save(toDo));
+        ToDo savedToDo = toDoRepository.save(toDo);
+        eventPublisher.publishEvent(TodoChangedEvent.created(savedToDo));
+        categorizationService.scheduleCategorization(savedToDo);
+        return convertToDTO(savedToDo);
+    }
+
+    /**
+     * Creates several Todo items in one transaction. All referenced assignees are resolved
+     * with a single query, all titles are classified in one pass through the AI model, or
+     * after the commit in async mode, and the rows are written with JDBC batching. Invalid items are reported individually and
+     * do not prevent the valid ones from being created.
+     *
+     * @param todos The DTOs containing Todo creation data
+     * @return One result per requested item, in request order
+     */
+    @Transactional
+    public List<TodoBatchResultDTO> createToDos(List<TodoDTO> todos) {
+        Set<Long> assigneeIds = todos.stream()
+            .filter(todo -> todo != null && todo.getAssigneeIdList() != null)
+            .flatMap(todo -> todo.getAssigneeIdList().stream())
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        Map<Long, Assignee> assigneesById = assigneeRepository.findAllById(assigneeIds).stream()
+            .collect(Collectors.toMap(Assignee::getId, Function.identity()));
+
+        TodoBatchResultDTO[] results = new TodoBatchResultDTO[todos.size()];
+        List<Integer> validIndexes = new ArrayList<>();
+        for (int index = 0; index < todos.size(); index++) {
+            String error = validateBatchItem(todos.get(index), assigneesById);
+            if (error != null) {
+                results[index] = new TodoBatchResultDTO(index, HttpStatus.BAD_REQUEST.value(), null, error);
+            } else {
+                validIndexes.add(index);
+            }
+        }
+
+        List<String> categories = categorizationService.isAsync()
+            ? validIndexes.stream().map(index -> CategorizationService.PENDING_CATEGORY).collect(Collectors.toList())
+            : todoModel.predictClasses(validIndexes.stream()
+                .map(index -> todos.get(index).getTitle())
+                .collect(Collectors.toList()));
+
+        Date createdDate = new Date();
+        for (int n = 0; n < validIndexes.size(); n++) {
+            int index = validIndexes.get(n);
+            TodoDTO todo = todos.get(index);
+            List<Assignee> assignees = todo.getAssigneeIdList() == null ? new ArrayList<>()
+                : todo.getAssigneeIdList().stream().map(assigneesById::get).collect(Collectors.toList());
+
+            ToDo toDo = new ToDo(
+                todo.getTitle(),
+                todo.getDescription(),
+                todo.isFinished(),
+                assignees,
+                createdDate,
+                todo.getDueDate() != null ? new Date(todo.getDueDate()) : null,
+                null,
+                categories.get(n)
+            );
+            entityManager.persist(toDo);
+            eventPublisher.publishEvent(TodoChangedEvent.created(toDo));
+            categorizationService.scheduleCategorization(toDo);
+            results[index] = new TodoBatchResultDTO(index, HttpStatus.CREATED.value(), convertToDTO(toDo), null);
+
+            // keep the persistence context small; each flush sends one JDBC batch
+            if ((n + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        return Arrays.asList(results);
     }
 
     /**
@@ -88,11 +472,34 @@ public class ToDoService {
      * @return The updated Todo item as DTO
      * @throws ResponseStatusException if Todo not found or validation fails
      */
+    @Transactional
     public TodoDTO updateToDo(long id, TodoDTO todo) {
+        return updateToDo(id, todo, null);
+    }
+
+    /**
+     * Updates an existing Todo item if it still has the expected version.
+     * The version is checked again by the UPDATE statement itself, so concurrent
+     * writers cannot overwrite each other without a lock.
+     *
+     * @param id              The ID of the Todo item to update
+     * @param todo            The DTO containing updated Todo data
+     * @param expectedVersion The version the client based its changes on, or null to skip the check
+     * @return The updated Todo item as DTO
+     * @throws ResponseStatusException if Todo not found, validation fails or the version does not match
+     */
+    @Transactional
+    public TodoDTO updateToDo(long id, TodoDTO todo, Long expectedVersion) {
         ToDo existingTodo = findToDoById(id);
+        checkVersion(expectedVersion, existingTodo.getVersion());
+        StatsService.Facts before = StatsService.Facts.of(existingTodo);
         validateAssigneeIds(todo.getAssigneeIdList());
         List<Assignee> assignees = getAssignees(todo.getAssigneeIdList());
-        String category = todoModel.predictClass(todo.getTitle());
+        // the category only depends on the title, so skip inference if it did not change
+        boolean titleChanged = !todo.getTitle().equals(existingTodo.getTitle());
+        String category = titleChanged
+            ? categorizationService.initialCategory(todo.getTitle())
+            : existingTodo.getCategory();
 
         existingTodo.setTitle(todo.getTitle());
         existingTodo.setDescription(todo.getDescription());
@@ -104,7 +511,136 @@ public class ToDoService {
         existingTodo.setFinished(todo.isFinished());
         existingTodo.setFinishedDate(todo.isFinished() ? new Date() : null);
 
-        return convertToDTO(toDoRepository.save(existingTodo));
+        ToDo savedToDo = saveVersioned(existingTodo, expectedVersion);
+        eventPublisher.publishEvent(TodoChangedEvent.updated(before, savedToDo));
+        if (titleChanged) {
+            categorizationService.scheduleCategorization(savedToDo);
+        }
+        return convertToDTO(savedToDo);
+    }
+
+    /**
+     * Applies a partial update to a Todo item. Only the fields present in the patch are
+     * written, with a targeted UPDATE statement; the AI model only runs if the title is
+     * part of the patch. Changing the assignees loads the entity, since they live in the
+     * join table. The finished date is set when the item becomes finished and kept when
+     * it already was.
+     *
+     * @param id              The ID of the Todo item to update
+     * @param patch           The fields to change
+     * @param expectedVersion The version the client based its changes on, or null to skip the check
+     * @return The updated Todo item as DTO
+     * @throws ResponseStatusException if Todo not found, validation fails or the version does not match
+     */
+    @Transactional
+    public TodoDTO patchToDo(long id, TodoPatchDTO patch, Long expectedVersion) {
+        if (patch.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Patch does not change any field");
+        }
+        if (patch.getTitle() != null && patch.getTitle().isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Title cannot be empty");
+        }
+        if (patch.getAssigneeIdList() != null) {
+            return patchToDoEntity(id, patch, expectedVersion);
+        }
+
+        // only the title (through the category), the status and the due date affect the statistics
+        boolean affectsStats = patch.getTitle() != null || patch.getFinished() != null || patch.getDueDate() != null;
+        List<Object[]> statsColumns = affectsStats ? toDoRepository.findStatsColumns(id) : List.of();
+        String category = patch.getTitle() != null ? categorizationService.initialCategory(patch.getTitle()) : null;
+        if (toDoRepository.patchToDo(id, patch, category, new Date(), expectedVersion) == 0) {
+            if (!toDoRepository.existsById(id)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    String.format("ToDo with ID %d not found", id));
+            }
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                "ToDo was modified by another request");
+        }
+
+        TodoDTO patched = toDoRepository.findTodoDTOsByIds(List.of(id)).get(0);
+        StatsService.Facts after = StatsService.Facts.of(patched);
+        // unchanged facts unless the statistics columns were read; the assignees are not changed by this path
+        StatsService.Facts before = after;
+        if (!statsColumns.isEmpty()) {
+            Object[] row = statsColumns.get(0);
+            before = new StatsService.Facts((String) row[0], (Boolean) row[1],
+                toMillis((Date) row[2]), toMillis((Date) row[3]), toMillis((Date) row[4]), after.assigneeIds());
+        }
+        boolean textChanged = patch.getTitle() != null || patch.getDescription() != null;
+        eventPublisher.publishEvent(new TodoChangedEvent(id, ChangeLogEntry.UPDATED, before, after, textChanged,
+            patched.getTitle(), patched.getDescription()));
+        if (patch.getTitle() != null) {
+            ToDo categorized = new ToDo();
+            categorized.setId(id);
+            categorized.setTitle(patched.getTitle());
+            categorized.setCategory(patched.getCategory());
+            categorizationService.scheduleCategorization(categorized);
+        }
+        return patched;
+    }
+
+    /**
+     * Applies a partial update that includes the assignees through the entity.
+     */
+    private TodoDTO patchToDoEntity(long id, TodoPatchDTO patch, Long expectedVersion) {
+        ToDo existingTodo = findToDoById(id);
+        checkVersion(expectedVersion, existingTodo.getVersion());
+        StatsService.Facts before = StatsService.Facts.of(existingTodo);
+        validateAssigneeIds(patch.getAssigneeIdList());
+        existingTodo.setAssigneeList(getAssignees(patch.getAssigneeIdList()));
+
+        boolean titleChanged = patch.getTitle() != null && !patch.getTitle().equals(existingTodo.getTitle());
+        if (titleChanged) {
+            existingTodo.setTitle(patch.getTitle());
+            existingTodo.setCategory(categorizationService.initialCategory(patch.getTitle()));
+        }
+        if (patch.getDescription() != null) {
+            existingTodo.setDescription(patch.getDescription().orElse(null));
+        }
+        if (patch.getDueDate() != null) {
+            existingTodo.setDueDate(patch.getDueDate().map(Date::new).orElse(null));
+        }
+        if (patch.getFinished() != null && patch.getFinished() != existingTodo.isFinished()) {
+            existingTodo.setFinished(patch.getFinished());
+            existingTodo.setFinishedDate(patch.getFinished() ? new Date() : null);
+        }
+
+        ToDo savedToDo = saveVersioned(existingTodo, expectedVersion);
+        eventPublisher.publishEvent(TodoChangedEvent.updated(before, savedToDo));
+        if (titleChanged) {
+            categorizationService.scheduleCategorization(savedToDo);
+        }
+        return convertToDTO(savedToDo);
+    }
+
+    /**
+     * Marks several Todo items as finished or unfinished, selected by ID or by filter.
+     * The status is written with set-based UPDATE statements instead of one
+     * read-modify-write per item; items already in the status are left alone.
+     *
+     * @param request The IDs or filter of the items and the new status
+     * @return The number of items whose status changed
+     * @throws ResponseStatusException if neither IDs nor a filter are given
+     */
+    @Transactional
+    public TodoBulkResultDTO markToDosFinished(TodoBulkStatusDTO request) {
+        if ((request.getIds() == null) == (request.getFilter() == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Either ids or filter must be given");
+        }
+        TodoFilterDTO filter = request.getFilter() != null ? request.getFilter() : new TodoFilterDTO();
+        List<Long> ids = toDoRepository.findIdsToMark(filter, request.getIds(), request.getFinished());
+        if (ids.isEmpty()) {
+            return new TodoBulkResultDTO(0);
+        }
+
+        // a concurrent transaction may have changed some of the todos in the meantime;
+        // the update skips those, logging them as updated anyway is harmless
+        int updated = toDoRepository.markFinished(ids, request.getFinished(), new Date());
+        changeLogService.recordAll(ChangeLogEntry.TODO, ids, ChangeLogEntry.UPDATED);
+        statsService.reconcileAfterCommit();
+        deadlineService.toDosStatusChanged(ids, request.getFinished());
+        revisionService.toDosChanged();
+        return new TodoBulkResultDTO(updated);
     }
 
     /**
@@ -114,33 +650,137 @@ public class ToDoService {
      * @param id The ID of the Todo item to delete
      * @throws ResponseStatusException if Todo not found
      */
+    @Transactional
     public void deleteToDo(long id) {
+        deleteToDo(id, null);
+    }
+
+    /**
+     * Deletes a Todo item by its ID if it still has the expected version.
+     *
+     * @param id              The ID of the Todo item to delete
+     * @param expectedVersion The version the client based its request on, or null to skip the check
+     * @throws ResponseStatusException if Todo not found or the version does not match
+     */
+    @Transactional
+    public void deleteToDo(long id, Long expectedVersion) {
         ToDo toDoToDelete = findToDoById(id);
+        checkVersion(expectedVersion, toDoToDelete.getVersion());
+        StatsService.Facts before = StatsService.Facts.of(toDoToDelete);
         if (toDoToDelete.getAssigneeList() != null) {
             toDoToDelete.getAssigneeList().clear();
         }
-        toDoRepository.save(toDoToDelete);
+        saveVersioned(toDoToDelete, expectedVersion);
         toDoRepository.deleteById(id);
+        eventPublisher.publishEvent(TodoChangedEvent.deleted(id, before));
     }
 
     /**
      * Exports all Todo items to CSV format.
+     * The rows are read in keyset-paginated chunks of DTO projections and written to the
+     * response as they arrive, flushing every chunk, so memory use does not depend on the
+     * table size. Exported rows and sent bytes are counted in
+     * {@code todo.csv.export.rows} and {@code todo.csv.export.bytes}.
      *
-     * @return ResponseEntity containing the CSV data and appropriate headers
+     * @param gzip Whether to gzip-compress the response body
+     * @return ResponseEntity streaming the CSV data with appropriate headers
      */
-    public ResponseEntity<String> exportToCSV() {
-        List<ToDo> allToDos = (List<ToDo>) toDoRepository.findAll();
-        StringBuilder csvContent = new StringBuilder();
-        csvContent.append("id,title,description,finished,assignees,createdDate,dueDate,finishedDate,category\n");
-        for (ToDo todo : allToDos) {
-            appendTodoToCSV(csvContent, todo);
-        }
+    public ResponseEntity<StreamingResponseBody> exportToCSV(boolean gzip) {
+        StreamingResponseBody body = outputStream -> {
+            CountingOutputStream counted = new CountingOutputStream(outputStream);
+            OutputStream target = gzip ? new GZIPOutputStream(counted, CSV_BUFFER_SIZE) : counted;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), CSV_BUFFER_SIZE);
+            long rows = 0;
+            try {
+                writer.write(CSV_HEADER);
+                TodoFilterDTO all = new TodoFilterDTO();
+                // one read-only transaction per chunk, so no connection is held while the client reads
+                List<TodoDTO> chunk = readOnlyTransaction.execute(status ->
+                    toDoRepository.findTodoDTOs(all, null, CSV_CHUNK_SIZE));
+                while (!chunk.isEmpty()) {
+                    for (TodoDTO todo : chunk) {
+                        appendTodoToCSV(writer, todo);
+                    }
+                    rows += chunk.size();
+                    // push the chunk to the client before reading the next one
+                    writer.flush();
+                    Long lastId = chunk.get(chunk.size() - 1).getId();
+                    chunk = chunk.size() < CSV_CHUNK_SIZE ? List.of()
+                        : readOnlyTransaction.execute(status -> toDoRepository.findTodoDTOs(all, lastId, CSV_CHUNK_SIZE));
+                }
+                writer.flush();
+                if (target instanceof GZIPOutputStream gzipStream) {
+                    gzipStream.finish();
+                }
+            } finally {
+                recordCSVExport(gzip, rows, counted.getCount());
+            }
+        };
 
         HttpHeaders headers = new HttpHeaders();
         headers.set(HttpHeaders.CONTENT_TYPE, "text/csv");
         headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=todos.csv");
+        // the same URL is sent compressed or not
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
 
-        return new ResponseEntity<>(csvContent.toString(), headers, HttpStatus.OK);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    /**
+     * Records the rows and bytes of a (possibly aborted) CSV export.
+     *
+     * @param gzip  Whether the export was gzip-compressed
+     * @param rows  The number of exported todos
+     * @param bytes The number of bytes sent
+     */
+    private void recordCSVExport(boolean gzip, long rows, long bytes) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return;
+        }
+        String encoding = gzip ? "gzip" : "identity";
+        Counter.builder("todo.csv.export.rows")
+            .description("Todos written by CSV exports")
+            .tag("encoding", encoding)
+            .register(registry)
+            .increment(rows);
+        Counter.builder("todo.csv.export.bytes")
+            .description("Bytes sent by CSV exports")
+            .baseUnit("bytes")
+            .tag("encoding", encoding)
+            .register(registry)
+            .increment(bytes);
+    }
+
+    /**
+     * Counts the bytes written to an output stream.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            // FilterOutputStream would write byte by byte
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
     }
 
     /**
@@ -149,7 +789,8 @@ public class ToDoService {
      * @param todo The Todo entity to convert
      * @return The Todo data as DTO
      */
-    private TodoDTO convertToDTO(ToDo todo) {
+    // package-private for the benchmarks in src/jmh
+    TodoDTO convertToDTO(ToDo todo) {
         return new TodoDTO(
             todo.getId(),
             todo.getTitle(),
@@ -160,7 +801,8 @@ public class ToDoService {
             todo.getCreatedDate().getTime(),
             todo.getDueDate() != null ? todo.getDueDate().getTime() : null,
             todo.getFinishedDate() != null ? todo.getFinishedDate().getTime() : null,
-            todo.getCategory()
+            todo.getCategory(),
+            todo.getVersion()
         );
     }
 
@@ -180,6 +822,40 @@ public class ToDoService {
         return todo;
     }
 
+    /**
+     * Checks that an entity still has the version a client expects.
+     *
+     * @param expectedVersion The expected version, or null to skip the check
+     * @param currentVersion  The current version of the entity
+     * @throws ResponseStatusException if the versions differ
+     */
+    private void checkVersion(Long expectedVersion, Long currentVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(currentVersion)) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                "ToDo was modified by another request");
+        }
+    }
+
+    /**
+     * Saves and flushes a Todo entity, translating a concurrent modification detected by
+     * the version column into a 412 (if the client sent a version) or 409 response.
+     * Flushing makes the conflict surface here instead of at commit.
+     *
+     * @param todo            The Todo entity to save
+     * @param expectedVersion The version the client expects, or null
+     * @return The saved Todo entity
+     * @throws ResponseStatusException if the Todo was modified concurrently
+     */
+    private ToDo saveVersioned(ToDo todo, Long expectedVersion) {
+        try {
+            return toDoRepository.saveAndFlush(todo);
+        } catch (OptimisticLockingFailureException e) {
+            throw new ResponseStatusException(
+                expectedVersion != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT,
+                "ToDo was modified by another request");
+        }
+    }
+
     /**
      * Validates that there are no duplicate assignee IDs.
      *
@@ -193,6 +869,31 @@ public class ToDoService {
         }
     }
 
+    /**
+     * Validates a single item of a batch create request.
+     *
+     * @param todo          The DTO to validate
+     * @param assigneesById All assignees referenced by the batch, by ID
+     * @return An error message, or null if the item is valid
+     */
+    private String validateBatchItem(TodoDTO todo, Map<Long, Assignee> assigneesById) {
+        if (todo == null) {
+            return "ToDo must not be null";
+        }
+        Set<ConstraintViolation<TodoDTO>> violations = validator.validate(todo);
+        if (!violations.isEmpty()) {
+            return violations.iterator().next().getMessage();
+        }
+        List<Long> assigneeIds = todo.getAssigneeIdList();
+        if (assigneeIds != null && new HashSet<>(assigneeIds).size() < assigneeIds.size()) {
+            return "Duplicate assignee IDs are not allowed";
+        }
+        if (assigneeIds != null && !assigneesById.keySet().containsAll(assigneeIds)) {
+            return "Assignee not found";
+        }
+        return null;
+    }
+
     /**
      * Retrieves Assignee objects by their IDs.
      *
@@ -212,16 +913,16 @@ public class ToDoService {
     /**
      * Appends a single Todo item's data to the CSV content.
      *
-     * @param csvContent StringBuilder to append the Todo data to
+     * @param csvContent Writer to append the Todo data to
      * @param todo       The Todo item to append
+     * @throws IOException if writing fails
      */
-    private void appendTodoToCSV(StringBuilder csvContent, ToDo todo) {
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-
-        csvContent.append(todo.getId()).append(",")
+    // package-private for the benchmarks in src/jmh
+    void appendTodoToCSV(Writer csvContent, TodoDTO todo) throws IOException {
+        csvContent.append(String.valueOf(todo.getId())).append(",")
             .append(skipCSV(todo.getTitle())).append(",")
             .append(skipCSV(todo.getDescription())).append(",")
-            .append(todo.isFinished()).append(",");
+            .append(String.valueOf(todo.isFinished())).append(",");
 
         if (!todo.getAssigneeList().isEmpty()) {
             String assignees = todo.getAssigneeList().stream()
@@ -231,21 +932,37 @@ public class ToDoService {
         }
         csvContent.append(",");
 
-        csvContent.append(dateFormat.format(todo.getCreatedDate())).append(",")
-            .append(todo.getDueDate() != null ? dateFormat.format(todo.getDueDate()) : "").append(",")
-            .append(todo.getFinishedDate() != null ? dateFormat.format(todo.getFinishedDate()) : "").append(",")
+        csvContent.append(formatCSVDate(todo.getCreatedDate())).append(",")
+            .append(formatCSVDate(todo.getDueDate())).append(",")
+            .append(formatCSVDate(todo.getFinishedDate())).append(",")
             .append(skipCSV(todo.getCategory())).append("\n");
     }
 
+    private static Long toMillis(Date date) {
+        return date != null ? date.getTime() : null;
+    }
+
+    /**
+     * Formats a date for the CSV export.
+     *
+     * @param date The date to format in epoch milliseconds, may be null
+     * @return The formatted date, or an empty string for null
+     */
+    private String formatCSVDate(Long date) {
+        return date != null ? CSV_DATE_FORMAT.format(Instant.ofEpochMilli(date)) : "";
+    }
+
     /**
-     * Escapes a CSV field if it contains commas or quotes.
+     * Escapes a CSV field if it contains commas, quotes or line breaks.
      *
      * @param field The string field to escape
      * @return The properly escaped CSV field
      */
-    private String skipCSV(String field) {
+    // package-private for the benchmarks in src/jmh
+    String skipCSV(String field) {
         if (field == null) return "";
-        if (field.contains(",") || field.contains("\"")) {
+        // line breaks are quoted as well, so a multi-line description stays one row
+        if (field.contains(",") || field.contains("\"") || field.contains("\n") || field.contains("\r")) {
             return "\"" + field.replace("\"", "\"\"") + "\"";
         }
         return field;
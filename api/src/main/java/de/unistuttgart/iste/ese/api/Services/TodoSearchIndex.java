@@ -0,0 +1,311 @@
+package de.unistuttgart.iste.ese.api.Services;
+
+import de.unistuttgart.iste.ese.api.Models.CompiledTodoModel;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory inverted index over the titles and descriptions of todos, tokenized
+ * like the classification model does it.
+ * <p>
+ * Every indexed version of a todo gets a document number, handed out in increasing
+ * order. A posting list is a plain {@code int[]} of entries holding the document number
+ * in the upper bits and the (title-weighted) term frequency in the lower bits, so lists
+ * are always sorted by document and cost 4 bytes per posting. Updating a todo indexes it
+ * as a new document and marks the old one as deleted; deleted documents are dropped and
+ * the rest renumbered once they make up half of the index.
+ * <p>
+ * Queries match todos containing all query terms and rank them with BM25. Intersection
+ * walks the shortest posting list and binary-searches the others, so its cost depends on
+ * the rarest term, not on the number of todos.
+ */
+final class TodoSearchIndex {
+    private static final int TF_BITS = 4;
+    private static final int MAX_TF = (1 << TF_BITS) - 1;
+    private static final int MAX_DOCS = Integer.MAX_VALUE >>> TF_BITS;
+    // a title term counts like this many description terms
+    private static final int TITLE_WEIGHT = 3;
+    private static final int MIN_DELETED_FOR_COMPACTION = 1024;
+    // BM25 parameters, the usual defaults
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final class Postings {
+        int[] entries = new int[2];
+        int size;
+
+        void add(int entry) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = entry;
+        }
+    }
+
+    private record ScoredDoc(int doc, double score) {
+    }
+
+    // lowest score first, older documents before newer ones on ties, so the ranking puts
+    // recently indexed todos first
+    private static final Comparator<ScoredDoc> RANKING_ASCENDING =
+        Comparator.comparingDouble(ScoredDoc::score).thenComparingInt(ScoredDoc::doc);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> docsByTodoId = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    // by document number
+    private long[] todoIds = new long[1024];
+    private int[] lengths = new int[1024];
+    private int docCount;
+    private int deletedCount;
+    private long totalLength;
+
+    /**
+     * Indexes a todo, replacing its previously indexed text.
+     *
+     * @param todoId      The ID of the todo
+     * @param title       The title of the todo
+     * @param description The description of the todo, may be null
+     */
+    void put(long todoId, String title, String description) {
+        // tokenize outside the lock
+        Map<String, Integer> frequencies = new HashMap<>();
+        addTokens(frequencies, title, TITLE_WEIGHT);
+        addTokens(frequencies, description, 1);
+        int length = 0;
+        for (int frequency : frequencies.values()) {
+            length += frequency;
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(todoId);
+            if (docCount == MAX_DOCS || docCount == todoIds.length && deletedCount > 0 && deletedCount * 2 >= docCount) {
+                compact();
+            }
+            if (docCount == MAX_DOCS) {
+                throw new IllegalStateException("Search index is full");
+            }
+            if (docCount == todoIds.length) {
+                todoIds = Arrays.copyOf(todoIds, docCount * 2);
+                lengths = Arrays.copyOf(lengths, docCount * 2);
+            }
+            int doc = docCount++;
+            todoIds[doc] = todoId;
+            lengths[doc] = length;
+            totalLength += length;
+            docsByTodoId.put(todoId, doc);
+            for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+                int tf = Math.min(frequency.getValue(), MAX_TF);
+                postings.computeIfAbsent(frequency.getKey(), term -> new Postings()).add(doc << TF_BITS | tf);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a todo from the index. Unknown IDs are ignored.
+     *
+     * @param todoId The ID of the todo
+     */
+    void remove(long todoId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(todoId);
+            if (deletedCount >= MIN_DELETED_FOR_COMPACTION && deletedCount * 2 >= docCount) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the todos containing all terms of a query, best matches first.
+     *
+     * @param query The query text, tokenized like the indexed texts
+     * @param limit The maximum number of results
+     * @return The IDs of the matching todos, in ranking order
+     */
+    List<Long> search(String query, int limit) {
+        List<String> terms = CompiledTodoModel.tokenize(query).stream().distinct().toList();
+        if (terms.isEmpty() || limit < 1) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Postings[] lists = new Postings[terms.size()];
+            for (int i = 0; i < lists.length; i++) {
+                lists[i] = postings.get(terms.get(i));
+                if (lists[i] == null) {
+                    return List.of();
+                }
+            }
+            // drive the intersection by the rarest term
+            Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+
+            int liveDocs = docCount - deletedCount;
+            double averageLength = liveDocs > 0 ? Math.max(1.0, (double) totalLength / liveDocs) : 1.0;
+            double[] idf = new double[lists.length];
+            for (int i = 0; i < lists.length; i++) {
+                // document frequencies include deleted documents until the next compaction
+                double df = Math.min(lists[i].size, Math.max(liveDocs, 1));
+                idf[i] = Math.log(1 + (liveDocs - df + 0.5) / (df + 0.5));
+            }
+
+            PriorityQueue<ScoredDoc> top = new PriorityQueue<>(limit + 1, RANKING_ASCENDING);
+            int[] positions = new int[lists.length];
+            Postings rarest = lists[0];
+            candidates:
+            for (int n = 0; n < rarest.size; n++) {
+                int doc = rarest.entries[n] >>> TF_BITS;
+                if (deleted.get(doc)) {
+                    continue;
+                }
+                double norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+                double score = bm25(idf[0], rarest.entries[n] & MAX_TF, norm);
+                for (int i = 1; i < lists.length; i++) {
+                    int position = seek(lists[i], positions[i], doc);
+                    positions[i] = position;
+                    if (position == lists[i].size || lists[i].entries[position] >>> TF_BITS != doc) {
+                        continue candidates;
+                    }
+                    score += bm25(idf[i], lists[i].entries[position] & MAX_TF, norm);
+                }
+
+                ScoredDoc scored = new ScoredDoc(doc, score);
+                if (top.size() < limit) {
+                    top.add(scored);
+                } else if (RANKING_ASCENDING.compare(scored, top.peek()) > 0) {
+                    top.poll();
+                    top.add(scored);
+                }
+            }
+
+            Long[] ranked = new Long[top.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = todoIds[top.poll().doc()];
+            }
+            return Arrays.asList(ranked);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed todos.
+     *
+     * @return The number of todos that can be found
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return docCount - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void addTokens(Map<String, Integer> frequencies, String text, int weight) {
+        if (text == null) {
+            return;
+        }
+        for (String token : CompiledTodoModel.tokenize(text)) {
+            frequencies.merge(token, weight, Integer::sum);
+        }
+    }
+
+    private static double bm25(double idf, int tf, double norm) {
+        return idf * tf * (K1 + 1) / (tf + norm);
+    }
+
+    /**
+     * Finds the first entry at or after a position whose document is not smaller than the
+     * given one, galloping ahead before the binary search since candidates only increase.
+     */
+    private static int seek(Postings list, int from, int doc) {
+        int[] entries = list.entries;
+        int low = from;
+        int step = 1;
+        int high = from;
+        while (high < list.size && entries[high] >>> TF_BITS < doc) {
+            low = high + 1;
+            high += step;
+            step <<= 1;
+        }
+        high = Math.min(high, list.size);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (entries[middle] >>> TF_BITS < doc) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void removeLocked(long todoId) {
+        Integer doc = docsByTodoId.remove(todoId);
+        if (doc != null) {
+            deleted.set(doc);
+            deletedCount++;
+            totalLength -= lengths[doc];
+        }
+    }
+
+    /**
+     * Drops deleted documents from all posting lists and renumbers the remaining ones,
+     * keeping their order so the lists stay sorted.
+     */
+    private void compact() {
+        int[] renumbered = new int[docCount];
+        int next = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (deleted.get(doc)) {
+                renumbered[doc] = -1;
+            } else {
+                // next <= doc, so this never overwrites a document not yet visited
+                renumbered[doc] = next;
+                todoIds[next] = todoIds[doc];
+                lengths[next] = lengths[doc];
+                docsByTodoId.put(todoIds[next], next);
+                next++;
+            }
+        }
+
+        Iterator<Postings> lists = postings.values().iterator();
+        while (lists.hasNext()) {
+            Postings list = lists.next();
+            int size = 0;
+            for (int n = 0; n < list.size; n++) {
+                int doc = renumbered[list.entries[n] >>> TF_BITS];
+                if (doc >= 0) {
+                    list.entries[size++] = doc << TF_BITS | list.entries[n] & MAX_TF;
+                }
+            }
+            if (size == 0) {
+                lists.remove();
+            } else {
+                list.entries = Arrays.copyOf(list.entries, Math.max(size, 2));
+                list.size = size;
+            }
+        }
+
+        docCount = next;
+        deleted.clear();
+        deletedCount = 0;
+    }
+}
@@ -0,0 +1,184 @@
+package de.unistuttgart.iste.ese.api.Config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.unistuttgart.iste.ese.api.Services.ChangeLogService;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Routing with two embedded H2 databases as primary and lagging replica. Replication is
+ * simulated by copying the primary into the replica, which then reports its lag as the
+ * time since the copy, like a replica that stopped applying writes.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=" + ReplicaRoutingDataSourceTest.PRIMARY_URL,
+    "todo.datasource.replica.url=" + ReplicaRoutingDataSourceTest.REPLICA_URL,
+    "todo.datasource.replica.lag-query=SELECT DATEDIFF(MILLISECOND, COPIED_AT, CURRENT_TIMESTAMP) / 1000 FROM REPLICATION_STATUS",
+    "todo.datasource.replica.max-lag=PT1M",
+    "todo.datasource.replica.check-interval=PT0.1S"
+})
+@AutoConfigureMockMvc
+class ReplicaRoutingDataSourceTest {
+    static final String PRIMARY_URL = "jdbc:h2:mem:routingPrimary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routingReplica;DB_CLOSE_DELAY=-1";
+    // Spring Boot's default user of embedded databases
+    private static final String USER = "sa";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ReplicaRoutingDataSource routing;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @BeforeEach
+    void replicateEverything() throws Exception {
+        awaitReplicaCurrent();
+    }
+
+    @Test
+    void listsReadFromALaggingReplicaHaveNoETag() throws Exception {
+        MockHttpServletResponse written = mockMvc.perform(post("/api/v1/todos")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Unreplicated\",\"assigneeIdList\":[]}"))
+            .andReturn().getResponse();
+        Cookie lastWrite = written.getCookie(DataSourceRoutingConfig.LAST_WRITE_COOKIE);
+        assertNotNull(lastWrite);
+
+        long replicaConnections = routing.getReplicaConnections();
+        MockHttpServletResponse otherClient = mockMvc.perform(get("/api/v1/todos")).andReturn().getResponse();
+        assertTrue(routing.getReplicaConnections() > replicaConnections);
+        assertFalse(otherClient.getContentAsString().contains("Unreplicated"));
+        assertNull(otherClient.getHeader(HttpHeaders.ETAG));
+
+        MockHttpServletResponse writer = mockMvc.perform(get("/api/v1/todos").cookie(lastWrite))
+            .andReturn().getResponse();
+        assertTrue(writer.getContentAsString().contains("Unreplicated"));
+        assertNotNull(writer.getHeader(HttpHeaders.ETAG));
+
+        mockMvc.perform(post("/api/v1/assignees")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"prename\":\"Rui\",\"name\":\"Unreplicated\",\"email\":\"rui@iste.uni-stuttgart.de\"}"));
+        MockHttpServletResponse assignees = mockMvc.perform(get("/api/v1/assignees")).andReturn().getResponse();
+        assertFalse(assignees.getContentAsString().contains("Unreplicated"));
+        assertNull(assignees.getHeader(HttpHeaders.ETAG));
+
+        awaitReplicaCurrent();
+        MockHttpServletResponse replicated = mockMvc.perform(get("/api/v1/todos")).andReturn().getResponse();
+        assertTrue(replicated.getContentAsString().contains("Unreplicated"));
+        assertNotNull(replicated.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void conditionalListRequestsAreNotAnsweredFromALaggingReplica() throws Exception {
+        String etag = mockMvc.perform(get("/api/v1/todos")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals(304, mockMvc.perform(get("/api/v1/todos").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andReturn().getResponse().getStatus());
+
+        mockMvc.perform(post("/api/v1/todos")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"title\":\"Changed meanwhile\",\"assigneeIdList\":[]}"));
+
+        // the stale body has no ETag, so the client keeps asking until the replica caught up
+        MockHttpServletResponse response = mockMvc.perform(get("/api/v1/todos").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andReturn().getResponse();
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void changesAreReadFromThePrimary() throws Exception {
+        long since = changeLogService.getStableRevision();
+        mockMvc.perform(post("/api/v1/todos")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"title\":\"Logged\",\"assigneeIdList\":[]}"));
+
+        // a client without the last write cookie, whose list reads go to the replica
+        JsonNode feed = objectMapper.readTree(mockMvc.perform(get("/api/v1/changes").param("since", Long.toString(since)))
+            .andReturn().getResponse().getContentAsString());
+        assertEquals(changeLogService.getStableRevision(), feed.get("revision").asLong());
+        assertEquals(1, feed.get("changes").size());
+        assertEquals("Logged", feed.get("changes").get(0).get("todo").get("title").asText());
+    }
+
+    /**
+     * Copies the primary into the replica until the routing considers the replica to have
+     * applied all writes. The copy is made more than a second, the rounding of the lag,
+     * after the latest write; otherwise the write would count as applied by some checks
+     * of the replica but not by others.
+     */
+    private void awaitReplicaCurrent() throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        while (System.nanoTime() < deadline) {
+            Thread.sleep(1100);
+            replicate();
+            for (int i = 0; i < 15; i++) {
+                Thread.sleep(100);
+                long replicaConnections = routing.getReplicaConnections();
+                MockHttpServletResponse response = mockMvc.perform(get("/api/v1/todos")).andReturn().getResponse();
+                if (routing.getReplicaConnections() > replicaConnections && response.getHeader(HttpHeaders.ETAG) != null) {
+                    return;
+                }
+            }
+        }
+        fail("the replica never caught up");
+    }
+
+    private static void replicate() throws SQLException, IOException {
+        OffsetDateTime copiedAt = OffsetDateTime.ofInstant(Instant.now(), ZoneOffset.UTC);
+        File script = File.createTempFile("replica", ".sql");
+        try {
+            try (Connection primary = DriverManager.getConnection(PRIMARY_URL, USER, "");
+                 Statement statement = primary.createStatement()) {
+                statement.execute("SCRIPT TO '" + script.getAbsolutePath() + "'");
+            }
+            try (Connection replica = DriverManager.getConnection(REPLICA_URL, USER, "");
+                 Statement statement = replica.createStatement()) {
+                statement.execute("DROP ALL OBJECTS");
+                statement.execute("RUNSCRIPT FROM '" + script.getAbsolutePath() + "'");
+                statement.execute("CREATE TABLE REPLICATION_STATUS (COPIED_AT TIMESTAMP WITH TIME ZONE)");
+                try (PreparedStatement insert = replica.prepareStatement("INSERT INTO REPLICATION_STATUS VALUES (?)")) {
+                    insert.setObject(1, copiedAt);
+                    insert.executeUpdate();
+                }
+            }
+        } finally {
+            script.delete();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package de.unistuttgart.iste.ese.api.Controller;
+
+import de.unistuttgart.iste.ese.api.Config.ContentNegotiationConfig;
+import de.unistuttgart.iste.ese.api.DTOs.TodoDTO;
+import de.unistuttgart.iste.ese.api.Models.Assignee;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ETagsTest {
+
+    @Test
+    void todoETagCoversTheAssigneeVersionsInAnyOrder() {
+        Assignee ana = assignee(1, 4);
+        Assignee bob = assignee(2, 0);
+        String etag = ETags.of(todo(3, ana, bob));
+
+        assertTrue(etag.startsWith("\"3-"));
+        assertEquals(etag, ETags.of(todo(3, bob, ana)));
+        assertNotEquals(etag, ETags.of(todo(3, assignee(1, 5), bob)));
+        assertNotEquals(etag, ETags.of(todo(3, ana)));
+        assertNotEquals(etag, ETags.of(todo(4, ana, bob)));
+    }
+
+    @Test
+    void matchesTheCurrentETag() {
+        assertTrue(ETags.matches("\"3-1f\"", "\"3-1f\""));
+        assertFalse(ETags.matches("\"2-1f\"", "\"3-1f\""));
+        assertFalse(ETags.matches(null, "\"3-1f\""));
+    }
+
+    @Test
+    void matchesAnyETagOfAList() {
+        assertTrue(ETags.matches("\"1\", \"2\" , \"3\"", "\"2\""));
+        assertFalse(ETags.matches("\"1\",\"3\"", "\"2\""));
+    }
+
+    @Test
+    void matchesWeakETagsAndWildcard() {
+        assertTrue(ETags.matches("W/\"7\"", "\"7\""));
+        assertTrue(ETags.matches("*", "\"7\""));
+    }
+
+    @Test
+    void acceptsAnyVersionWithoutIfMatch() {
+        assertNull(ETags.expectedVersion(null));
+        assertNull(ETags.expectedVersion(" "));
+        assertNull(ETags.expectedVersion("*"));
+    }
+
+    @Test
+    void extractsTheVersion() {
+        assertEquals(3L, ETags.expectedVersion("\"3-1f\""));
+        assertEquals(12L, ETags.expectedVersion(" \"12\" "));
+    }
+
+    @Test
+    void extractsTheVersionOfAnyEncoding() {
+        assertEquals(7L, ETags.expectedVersion("\"7;x-jackson-smile\""));
+        assertEquals(3L, ETags.expectedVersion("\"3-1f;cbor\""));
+    }
+
+    @Test
+    void suffixesETagsOfOtherEncodings() {
+        assertEquals("\"3-1f\"", ETags.forEncoding("\"3-1f\"", MediaType.APPLICATION_JSON));
+        assertEquals("\"3-1f\"", ETags.forEncoding("\"3-1f\"", null));
+        assertEquals("\"3-1f;cbor\"", ETags.forEncoding("\"3-1f\"", MediaType.APPLICATION_CBOR));
+        assertEquals("\"3-1f;cbor\"", ETags.forEncoding("\"3-1f;cbor\"", MediaType.APPLICATION_CBOR));
+        assertEquals("\"3-1f\"", ETags.forEncoding("\"3-1f;cbor\"", MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void negotiatesLikeTheConverters() {
+        assertEquals(MediaType.APPLICATION_JSON, ETags.negotiate(null));
+        assertEquals(MediaType.APPLICATION_JSON, ETags.negotiate("*/*"));
+        assertEquals(MediaType.APPLICATION_JSON, ETags.negotiate("application/cbor;q=0.5, application/json"));
+        assertEquals(MediaType.APPLICATION_CBOR, ETags.negotiate("application/cbor"));
+        assertEquals(ContentNegotiationConfig.COMPACT_JSON, ETags.negotiate("application/vnd.todo.compact+json"));
+        assertEquals(MediaType.valueOf("application/x-jackson-smile"), ETags.negotiate("application/x-jackson-smile"));
+        assertNull(ETags.negotiate("text/html"));
+        assertNull(ETags.negotiate("application/json;q=0"));
+    }
+
+    @Test
+    void conditionalRequestsMatchTheNegotiatedEncoding() {
+        assertTrue(ETags.matches("\"3;cbor\"", "\"3\"", "application/cbor"));
+        assertFalse(ETags.matches("\"3\"", "\"3\"", "application/cbor"));
+        assertTrue(ETags.matches("\"3\"", "\"3\"", null));
+    }
+
+    @Test
+    void rejectsWeakAndUnknownETags() {
+        for (String ifMatch : new String[]{"W/\"3\"", "3", "\"\"", "\"abc\"", "\"-1f\""}) {
+            ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> ETags.expectedVersion(ifMatch), ifMatch);
+            assertEquals(HttpStatus.PRECONDITION_FAILED, e.getStatusCode());
+        }
+    }
+
+    private static Assignee assignee(long id, long version) {
+        Assignee assignee = new Assignee("Ana", "Silva", "ana@example.com");
+        assignee.setId(id);
+        assignee.setVersion(version);
+        return assignee;
+    }
+
+    private static TodoDTO todo(long version, Assignee... assignees) {
+        return new TodoDTO(7L, "Title", null, false, null, new ArrayList<>(List.of(assignees)),
+            0L, null, null, "work", version);
+    }
+}
@@ -0,0 +1,161 @@
+package de.unistuttgart.iste.ese.api.Controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * The ETags and Vary headers of negotiated todo and assignee responses and of the CSV export.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class EncodingETagTest {
+    // Accept headers and the media type the converters pick for them
+    private static final List<List<String>> ACCEPTED = List.of(
+        List.of("", "application/json"),
+        List.of("*/*", "application/json"),
+        List.of("application/json", "application/json"),
+        List.of("application/vnd.todo.compact+json", "application/vnd.todo.compact+json"),
+        List.of("application/x-jackson-smile", "application/x-jackson-smile"),
+        List.of("application/cbor", "application/cbor"),
+        List.of("application/cbor;q=0.5, application/json", "application/json"),
+        List.of("*/*, application/cbor", "application/cbor"),
+        List.of("application/*+json, application/cbor;q=0.9", "application/json")
+    );
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String todoPath;
+    private String assigneePath;
+
+    @BeforeEach
+    void createData() throws Exception {
+        MockHttpServletResponse assignee = mockMvc.perform(post("/api/v1/assignees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"prename\":\"Ana\",\"name\":\"Silva\",\"email\":\"ana@iste.uni-stuttgart.de\"}"))
+            .andReturn().getResponse();
+        assigneePath = "/api/v1/assignees/" + id(assignee);
+        MockHttpServletResponse todo = mockMvc.perform(post("/api/v1/todos")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Negotiate\",\"assigneeIdList\":[" + id(assignee) + "]}"))
+            .andReturn().getResponse();
+        todoPath = "/api/v1/todos/" + id(todo);
+    }
+
+    @Test
+    void etagsNameTheEncodingOfTheBody() throws Exception {
+        for (String path : List.of(todoPath, assigneePath, "/api/v1/todos", "/api/v1/assignees")) {
+            String plain = null;
+            for (List<String> accepted : ACCEPTED) {
+                MockHttpServletResponse response = fetch(path, accepted.get(0), null);
+                MediaType type = MediaType.parseMediaType(response.getContentType());
+                assertEquals(accepted.get(1), type.getType() + "/" + type.getSubtype(), path + " " + accepted);
+                assertTrue(response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT), path);
+
+                String etag = response.getHeader(HttpHeaders.ETAG);
+                if (type.equalsTypeAndSubtype(MediaType.APPLICATION_JSON)) {
+                    plain = plain == null ? etag : plain;
+                    assertEquals(plain, etag);
+                } else {
+                    assertTrue(etag.endsWith(";" + type.getSubtype() + "\""), etag);
+                }
+                assertEquals(ETags.forEncoding(etag.replaceAll(";.*\"$", "\""), ETags.negotiate(accepted.get(0))), etag,
+                    path + " " + accepted);
+            }
+        }
+    }
+
+    @Test
+    void conditionalRequestsMatchOnlyTheSameEncoding() throws Exception {
+        for (String path : List.of(todoPath, assigneePath, "/api/v1/todos", "/api/v1/assignees")) {
+            String smile = fetch(path, "application/x-jackson-smile", null).getHeader(HttpHeaders.ETAG);
+            String json = fetch(path, "application/json", null).getHeader(HttpHeaders.ETAG);
+            assertNotEquals(smile, json);
+
+            MockHttpServletResponse notModified = fetch(path, "application/x-jackson-smile", smile);
+            assertEquals(304, notModified.getStatus(), path);
+            assertEquals(smile, notModified.getHeader(HttpHeaders.ETAG));
+            assertTrue(notModified.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT));
+
+            assertEquals(200, fetch(path, "application/json", smile).getStatus(), path);
+            assertEquals(304, fetch(path, "application/json", json).getStatus(), path);
+        }
+    }
+
+    @Test
+    void todoRevalidationFollowsItsAssignees() throws Exception {
+        String etag = fetch(todoPath, "application/json", null).getHeader(HttpHeaders.ETAG);
+        assertEquals(304, fetch(todoPath, "application/json", etag).getStatus());
+
+        mockMvc.perform(put(assigneePath)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"prename\":\"Ana\",\"name\":\"Costa\",\"email\":\"ana@iste.uni-stuttgart.de\"}"));
+
+        MockHttpServletResponse response = fetch(todoPath, "application/json", etag);
+        assertEquals(200, response.getStatus());
+        assertEquals(304, fetch(todoPath, "application/json", response.getHeader(HttpHeaders.ETAG)).getStatus());
+        assertEquals(404, fetch("/api/v1/todos/999999", "application/json", etag).getStatus());
+    }
+
+    @Test
+    void ifMatchAcceptsTheETagOfAnyEncoding() throws Exception {
+        String etag = fetch(assigneePath, "application/cbor", null).getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletResponse response = mockMvc.perform(put(assigneePath)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, etag)
+                .content("{\"prename\":\"Ana\",\"name\":\"Souza\",\"email\":\"ana@iste.uni-stuttgart.de\"}"))
+            .andReturn().getResponse();
+
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void csvExportVariesByAcceptEncoding() throws Exception {
+        for (String acceptEncoding : List.of("gzip", "gzip;q=0, identity")) {
+            MvcResult started = mockMvc.perform(get("/api/v1/csv-downloads/todos")
+                    .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding))
+                .andReturn();
+            MockHttpServletResponse response = mockMvc.perform(asyncDispatch(started)).andReturn().getResponse();
+            assertTrue(response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING), acceptEncoding);
+            assertEquals(acceptEncoding.equals("gzip") ? "gzip" : null, response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        }
+    }
+
+    private MockHttpServletResponse fetch(String path, String accept, String ifNoneMatch) throws Exception {
+        var request = get(path);
+        if (!accept.isEmpty()) {
+            request.header(HttpHeaders.ACCEPT, accept);
+        }
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+
+    private long id(MockHttpServletResponse response) throws Exception {
+        return objectMapper.readTree(response.getContentAsString()).get("id").asLong();
+    }
+}
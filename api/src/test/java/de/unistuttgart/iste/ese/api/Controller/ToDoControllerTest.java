@@ -0,0 +1,34 @@
+package de.unistuttgart.iste.ese.api.Controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Parsing of the Accept-Encoding header of the CSV export.
+ */
+class ToDoControllerTest {
+
+    @Test
+    void gzipIsAcceptedWithAPositiveQuality() {
+        assertTrue(ToDoController.acceptsGzip("gzip"));
+        assertTrue(ToDoController.acceptsGzip("deflate, GZIP;q=0.5"));
+        assertTrue(ToDoController.acceptsGzip("x-gzip"));
+        assertTrue(ToDoController.acceptsGzip("br;q=1.0, *;q=0.1"));
+    }
+
+    @Test
+    void gzipIsRejectedWithQualityZeroOrIfNotNamed() {
+        assertFalse(ToDoController.acceptsGzip(null));
+        assertFalse(ToDoController.acceptsGzip(""));
+        assertFalse(ToDoController.acceptsGzip("identity"));
+        assertFalse(ToDoController.acceptsGzip("gzip;q=0"));
+        assertFalse(ToDoController.acceptsGzip("gzip; q=0.0, identity"));
+        // named codings take precedence over the wildcard
+        assertFalse(ToDoController.acceptsGzip("*, gzip;q=0"));
+        assertFalse(ToDoController.acceptsGzip("*;q=0"));
+        assertFalse(ToDoController.acceptsGzip("gzip;q=abc"));
+        assertFalse(ToDoController.acceptsGzip("gzipped"));
+    }
+}
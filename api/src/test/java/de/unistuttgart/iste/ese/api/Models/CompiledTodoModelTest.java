@@ -0,0 +1,109 @@
+package de.unistuttgart.iste.ese.api.Models;
+
+import org.jpmml.evaluator.Evaluator;
+import org.jpmml.evaluator.LoadingModelEvaluatorBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks the compiled engine against the generic JPMML evaluator on the bundled model,
+ * so the check does not have to run at every application start.
+ */
+class CompiledTodoModelTest {
+    private static final int SAMPLES = 10_000;
+
+    private static byte[] pmml;
+    private static Evaluator evaluator;
+    private static String[] targetLabels;
+    private static CompiledTodoModel compiled;
+
+    @BeforeAll
+    static void loadModel() throws Exception {
+        try (InputStream in = CompiledTodoModelTest.class.getResourceAsStream("/model.pmml")) {
+            pmml = in.readAllBytes();
+        }
+        evaluator = new LoadingModelEvaluatorBuilder()
+            .load(new ByteArrayInputStream(pmml))
+            .build();
+        evaluator.verify();
+        targetLabels = evaluator.getTargetFields().get(0).getName()
+            .replaceAll("[\\['\\]]", "").split(" ");
+        compiled = CompiledTodoModel.compile(new ByteArrayInputStream(pmml));
+    }
+
+    @Test
+    void predictsTheSameLabelsAsJpmml() {
+        Random random = new Random(42);
+        List<String> terms = compiled.getTerms();
+        for (int sample = 0; sample < SAMPLES; sample++) {
+            String title = TodoModel.generateTitle(random, terms);
+            assertEquals(evaluate(title), compiled.predictClass(title), () -> "Prediction for \"" + title + "\"");
+        }
+    }
+
+    @Test
+    void predictsTheSameLabelsAsJpmmlForEdgeCases() {
+        for (String title : List.of("", " ", "...", "\t\n", "Meeting", "MEETING!", "mom's birthday", "q3-report")) {
+            assertEquals(evaluate(title), compiled.predictClass(title), () -> "Prediction for \"" + title + "\"");
+        }
+    }
+
+    @Test
+    void hasTheLabelsOfTheTargetField() {
+        assertArrayEquals(targetLabels, compiled.getLabels().toArray(new String[0]));
+    }
+
+    @Test
+    void predictsTheSameAfterBinaryRoundTrip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        compiled.writeTo(out);
+        CompiledTodoModel read = CompiledTodoModel.read(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(compiled.getLabels(), read.getLabels());
+        assertEquals(compiled.getTerms(), read.getTerms());
+        Random random = new Random(7);
+        for (int sample = 0; sample < 1000; sample++) {
+            String title = TodoModel.generateTitle(random, compiled.getTerms());
+            assertEquals(compiled.predictClass(title), read.predictClass(title));
+        }
+    }
+
+    @Test
+    void rejectsCorruptBinaryModel() {
+        byte[] garbage = "not a compiled model".getBytes(StandardCharsets.UTF_8);
+        assertThrows(IOException.class, () -> CompiledTodoModel.read(new ByteArrayInputStream(garbage)));
+    }
+
+    @Test
+    void rejectsUnsupportedModel() {
+        byte[] treeModel = """
+            <PMML xmlns="http://www.dmg.org/PMML-4_4" version="4.4">
+                <DataDictionary/>
+                <TreeModel functionName="classification"/>
+            </PMML>
+            """.getBytes(StandardCharsets.UTF_8);
+        assertThrows(IllegalArgumentException.class, () -> CompiledTodoModel.compile(new ByteArrayInputStream(treeModel)));
+    }
+
+    private static String evaluate(String title) {
+        Map<String, Object> input = new HashMap<>();
+        input.put("text", title);
+        Map<String, ?> results = evaluator.evaluate(input);
+        String field = evaluator.getOutputFields().get(2).getName();
+        return targetLabels[Integer.parseInt(results.get(field).toString())];
+    }
+}
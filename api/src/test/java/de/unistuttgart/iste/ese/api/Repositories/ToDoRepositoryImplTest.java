@@ -0,0 +1,152 @@
+package de.unistuttgart.iste.ese.api.Repositories;
+
+import de.unistuttgart.iste.ese.api.DTOs.TodoDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoFilterDTO;
+import de.unistuttgart.iste.ese.api.Models.Assignee;
+import de.unistuttgart.iste.ese.api.Models.ToDo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Keyset pagination and server-side filters of the todo projection queries.
+ */
+@DataJpaTest
+class ToDoRepositoryImplTest {
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    @Autowired
+    private ToDoRepository toDoRepository;
+
+    @Autowired
+    private AssigneeRepository assigneeRepository;
+
+    private final List<Long> ids = new ArrayList<>();
+    private Assignee assignee;
+
+    @BeforeEach
+    void createTodos() {
+        assignee = assigneeRepository.save(new Assignee("Ana", "Silva", "ana@example.com"));
+        for (int i = 0; i < 25; i++) {
+            ToDo todo = new ToDo("Todo " + i, null, i % 3 == 0, i % 5 == 0 ? List.of(assignee) : new ArrayList<>(),
+                new Date(i * DAY), new Date((25 - i) * DAY), null, i % 2 == 0 ? "work" : "private");
+            ids.add(toDoRepository.save(todo).getId());
+        }
+        toDoRepository.flush();
+    }
+
+    @Test
+    void pagesCoverEveryTodoOnceInIdOrder() {
+        List<Long> seen = new ArrayList<>();
+        Long after = null;
+        List<TodoDTO> page;
+        do {
+            page = toDoRepository.findTodoDTOs(new TodoFilterDTO(), after, 7);
+            assertTrue(page.size() <= 7);
+            page.forEach(todo -> seen.add(todo.getId()));
+            after = page.isEmpty() ? after : page.get(page.size() - 1).getId();
+        } while (page.size() == 7);
+
+        assertEquals(ids, seen);
+    }
+
+    @Test
+    void pagesApplyTheFilter() {
+        TodoFilterDTO filter = new TodoFilterDTO();
+        filter.setFinished(false);
+        filter.setCategory("work");
+
+        List<Long> seen = new ArrayList<>();
+        List<TodoDTO> page = toDoRepository.findTodoDTOs(filter, null, 3);
+        while (!page.isEmpty()) {
+            for (TodoDTO todo : page) {
+                assertFalse(todo.isFinished());
+                assertEquals("work", todo.getCategory());
+                seen.add(todo.getId());
+            }
+            page = toDoRepository.findTodoDTOs(filter, page.get(page.size() - 1).getId(), 3);
+        }
+
+        // even and not divisible by 3
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (i % 2 == 0 && i % 3 != 0) {
+                expected.add(ids.get(i));
+            }
+        }
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    void dateRangesIncludeTheLowerAndExcludeTheUpperBound() {
+        TodoFilterDTO filter = new TodoFilterDTO();
+        filter.setDueFrom(5 * DAY);
+        filter.setDueTo(10 * DAY);
+
+        List<TodoDTO> todos = toDoRepository.findTodoDTOs(filter, null, 0);
+
+        // due dates 5..9 days belong to todos 20..16, returned in ID order
+        assertEquals(ids.subList(16, 21), todos.stream().map(TodoDTO::getId).toList());
+    }
+
+    @Test
+    void dueDatePagesCoverEveryOpenTodoOnceInDueDateOrder() {
+        // todos sharing the due date of todo 1, so pages have to continue within a due date
+        for (int i = 0; i < 4; i++) {
+            ids.add(toDoRepository.save(new ToDo("Same day " + i, null, false, new ArrayList<>(),
+                new Date(), new Date(24 * DAY), null, "work")).getId());
+        }
+        toDoRepository.flush();
+
+        List<Long> seen = new ArrayList<>();
+        Date afterDueDate = null;
+        Long afterId = null;
+        List<TodoDTO> page;
+        do {
+            page = toDoRepository.findOpenTodoDTOsByDueDate(null, new Date(30 * DAY), afterDueDate, afterId, 2);
+            for (TodoDTO todo : page) {
+                assertFalse(todo.isFinished());
+                seen.add(todo.getId());
+                afterDueDate = new Date(todo.getDueDate());
+                afterId = todo.getId();
+            }
+        } while (page.size() == 2);
+
+        // open todos (not divisible by 3), the latest created are due first; the same-day ones follow todo 1 by ID
+        List<Long> expected = new ArrayList<>();
+        for (int i = 24; i > 0; i--) {
+            if (i % 3 != 0) {
+                expected.add(ids.get(i));
+            }
+            if (i == 1) {
+                expected.addAll(ids.subList(25, 29));
+            }
+        }
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    void pagesIncludeTheAssignees() {
+        List<TodoDTO> todos = toDoRepository.findTodoDTOs(new TodoFilterDTO(), null, 0);
+
+        for (int i = 0; i < todos.size(); i++) {
+            List<Assignee> assignees = todos.get(i).getAssigneeList();
+            if (i % 5 == 0) {
+                assertEquals(1, assignees.size());
+                assertEquals(assignee.getId(), assignees.get(0).getId());
+                assertEquals(assignee.getVersion(), assignees.get(0).getVersion());
+            } else {
+                assertTrue(assignees.isEmpty());
+            }
+        }
+    }
+}
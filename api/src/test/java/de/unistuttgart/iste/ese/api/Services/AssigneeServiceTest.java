@@ -0,0 +1,113 @@
+package de.unistuttgart.iste.ese.api.Services;
+
+import de.unistuttgart.iste.ese.api.DTOs.ChangeDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoDTO;
+import de.unistuttgart.iste.ese.api.Models.Assignee;
+import de.unistuttgart.iste.ese.api.Models.ChangeLogEntry;
+import de.unistuttgart.iste.ese.api.Repositories.AssigneeRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Deleting assignees with and without the version a client expects, and what the change
+ * log records for it.
+ */
+@SpringBootTest
+class AssigneeServiceTest {
+    @Autowired
+    private AssigneeService assigneeService;
+
+    @Autowired
+    private AssigneeRepository assigneeRepository;
+
+    @Autowired
+    private ToDoService toDoService;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void evictEntityCache() {
+        // the cache regions are shared by all application contexts of the test run, whose databases reuse IDs
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void deleteWithAnOutdatedVersionKeepsTheAssigneeAndItsTodos() {
+        Assignee assignee = assigneeService.createAssignee(assignee("Outdated"));
+        TodoDTO todo = toDoService.createToDo(todo(assignee.getId()));
+        long outdated = assignee.getVersion();
+        assigneeService.updateAssignee(assignee.getId(), assignee("Renamed"));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+            () -> assigneeService.deleteAssignee(assignee.getId(), outdated));
+        assertEquals(HttpStatus.PRECONDITION_FAILED, e.getStatusCode());
+        assertEquals(List.of(assignee.getId()), assigneeIds(todo.getId()));
+    }
+
+    @Test
+    void deleteStatementChecksTheVersion() {
+        Assignee assignee = assigneeService.createAssignee(assignee("Concurrent"));
+        long outdated = assignee.getVersion();
+        // an update that commits after the version check of a delete
+        long current = assigneeService.updateAssignee(assignee.getId(), assignee("Renamed")).getVersion();
+
+        assertEquals(0, (int) transactionTemplate.execute(status ->
+            assigneeRepository.deleteByIdAndVersion(assignee.getId(), outdated)));
+        assertEquals(1, (int) transactionTemplate.execute(status ->
+            assigneeRepository.deleteByIdAndVersion(assignee.getId(), current)));
+    }
+
+    @Test
+    void deleteWithTheCurrentVersionUnlinksTheTodos() {
+        Assignee assignee = assigneeService.createAssignee(assignee("Current"));
+        TodoDTO todo = toDoService.createToDo(todo(assignee.getId()));
+        long revision = changeLogService.getStableRevision();
+
+        assigneeService.deleteAssignee(assignee.getId(), assignee.getVersion());
+
+        assertTrue(assigneeIds(todo.getId()).isEmpty());
+        List<ChangeDTO> changes = changeLogService.getChanges(revision, ChangeLogService.MAX_CHANGES).getChanges();
+        assertEquals(List.of(ChangeLogEntry.TODO + " " + todo.getId() + " " + ChangeLogEntry.UPDATED,
+                ChangeLogEntry.ASSIGNEE + " " + assignee.getId() + " " + ChangeLogEntry.DELETED),
+            changes.stream().map(change -> change.getEntity() + " " + change.getId() + " " + change.getOperation()).toList());
+        assertTrue(changes.get(0).getTodo().getAssigneeList().isEmpty());
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+            () -> assigneeService.getAssigneeById(assignee.getId()));
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+    }
+
+    private List<Long> assigneeIds(long todoId) {
+        return toDoService.getToDoById(todoId).getAssigneeList().stream().map(Assignee::getId).toList();
+    }
+
+    private static Assignee assignee(String name) {
+        return new Assignee("Ines", name, "ines@iste.uni-stuttgart.de");
+    }
+
+    private static TodoDTO todo(long assigneeId) {
+        TodoDTO todo = new TodoDTO();
+        todo.setTitle("Review the thesis");
+        todo.setAssigneeIdList(new ArrayList<>(List.of(assigneeId)));
+        return todo;
+    }
+}
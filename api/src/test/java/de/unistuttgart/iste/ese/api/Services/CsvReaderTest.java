@@ -0,0 +1,108 @@
+package de.unistuttgart.iste.ese.api.Services;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Quoting, line counting and the row length limit of the CSV reader.
+ */
+class CsvReaderTest {
+
+    @Test
+    void splitsFieldsAtCommas() throws IOException {
+        List<CsvReader.Record> records = readAll("a,b,,c\nd\n", 100);
+
+        assertEquals(2, records.size());
+        assertEquals(List.of("a", "b", "", "c"), records.get(0).fields());
+        assertEquals(List.of("d"), records.get(1).fields());
+        assertNull(records.get(0).error());
+    }
+
+    @Test
+    void readsQuotedFields() throws IOException {
+        List<CsvReader.Record> records = readAll("\"a,b\",\"say \"\"hi\"\"\",\"\"\n", 100);
+
+        assertEquals(List.of("a,b", "say \"hi\"", ""), records.get(0).fields());
+    }
+
+    @Test
+    void quotedFieldsSpanLines() throws IOException {
+        List<CsvReader.Record> records = readAll("\"first\r\nsecond\",x\r\nnext,y\r\n", 100);
+
+        assertEquals(2, records.size());
+        assertEquals(List.of("first\r\nsecond", "x"), records.get(0).fields());
+        assertEquals(1, records.get(0).line());
+        assertEquals(List.of("next", "y"), records.get(1).fields());
+        assertEquals(3, records.get(1).line());
+    }
+
+    @Test
+    void skipsBlankLinesAndCountsThem() throws IOException {
+        List<CsvReader.Record> records = readAll("\n\r\na\n\n\nb", 100);
+
+        assertEquals(2, records.size());
+        assertEquals(3, records.get(0).line());
+        assertEquals(6, records.get(1).line());
+        assertEquals(List.of("b"), records.get(1).fields());
+    }
+
+    @Test
+    void keepsQuotesInsideUnquotedFields() throws IOException {
+        List<CsvReader.Record> records = readAll("5\" disk,x\n", 100);
+
+        assertEquals(List.of("5\" disk", "x"), records.get(0).fields());
+    }
+
+    @Test
+    void reportsUnterminatedQuotes() throws IOException {
+        List<CsvReader.Record> records = readAll("a,\"b\nc", 100);
+
+        assertEquals(1, records.size());
+        assertEquals("Quoted field is not terminated", records.get(0).error());
+    }
+
+    @Test
+    void skipsRowsLongerThanTheLimit() throws IOException {
+        String longRow = "x".repeat(50) + "," + "y".repeat(50);
+        List<CsvReader.Record> records = readAll("short\n" + longRow + "\nafter\n", 20);
+
+        assertEquals(3, records.size());
+        assertNull(records.get(0).error());
+        assertEquals("Row is longer than 20 characters", records.get(1).error());
+        assertEquals(2, records.get(1).line());
+        assertEquals(List.of("after"), records.get(2).fields());
+        assertEquals(3, records.get(2).line());
+    }
+
+    @Test
+    void readsRecordsAcrossBufferBoundaries() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            csv.append(i).append(",\"title ").append(i).append("\"\n");
+        }
+        List<CsvReader.Record> records = readAll(csv.toString(), 100);
+
+        assertEquals(20_000, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(List.of(Integer.toString(i), "title " + i), records.get(i).fields());
+            assertEquals(i + 1, records.get(i).line());
+        }
+    }
+
+    private static List<CsvReader.Record> readAll(String csv, int maxRecordLength) throws IOException {
+        CsvReader reader = new CsvReader(new StringReader(csv), maxRecordLength);
+        List<CsvReader.Record> records = new ArrayList<>();
+        CsvReader.Record record;
+        while ((record = reader.next()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,104 @@
+package de.unistuttgart.iste.ese.api.Services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Scheduling, rescheduling and firing of the deadline timers.
+ */
+class DeadlineTimelineTest {
+    private static final long LEAD = 100;
+
+    @Test
+    void firesDueSoonThenOverdue() {
+        DeadlineTimeline timeline = new DeadlineTimeline(LEAD);
+        timeline.schedule(1, 1000, 0);
+
+        assertEquals(900, timeline.nextAt());
+        assertTrue(timeline.poll(899).isEmpty());
+        assertEquals(List.of(new DeadlineTimeline.Timer(900, 1, 1000, false)), timeline.poll(900));
+        assertEquals(1000, timeline.nextAt());
+        assertEquals(1, timeline.size());
+        assertEquals(List.of(new DeadlineTimeline.Timer(1000, 1, 1000, true)), timeline.poll(1000));
+        assertEquals(Long.MAX_VALUE, timeline.nextAt());
+        assertEquals(0, timeline.size());
+    }
+
+    @Test
+    void firesBothTimersInOrderAfterALongPause() {
+        DeadlineTimeline timeline = new DeadlineTimeline(LEAD);
+        timeline.schedule(1, 1000, 0);
+        timeline.schedule(2, 950, 0);
+
+        List<DeadlineTimeline.Timer> fired = timeline.poll(5000);
+
+        assertEquals(List.of(
+            new DeadlineTimeline.Timer(850, 2, 950, false),
+            new DeadlineTimeline.Timer(900, 1, 1000, false),
+            new DeadlineTimeline.Timer(950, 2, 950, true),
+            new DeadlineTimeline.Timer(1000, 1, 1000, true)), fired);
+    }
+
+    @Test
+    void todoAlreadyDueSoonFiresRightAway() {
+        DeadlineTimeline timeline = new DeadlineTimeline(LEAD);
+        timeline.schedule(1, 1000, 950);
+
+        assertEquals(950, timeline.nextAt());
+    }
+
+    @Test
+    void pastDueDatesAreNotScheduled() {
+        DeadlineTimeline timeline = new DeadlineTimeline(LEAD);
+        timeline.schedule(1, 1000, 1000);
+
+        assertEquals(0, timeline.size());
+        assertEquals(Long.MAX_VALUE, timeline.nextAt());
+    }
+
+    @Test
+    void withoutLeadOnlyOverdueFires() {
+        DeadlineTimeline timeline = new DeadlineTimeline(0);
+        timeline.schedule(1, 1000, 0);
+
+        assertEquals(List.of(new DeadlineTimeline.Timer(1000, 1, 1000, true)), timeline.poll(1000));
+    }
+
+    @Test
+    void reschedulingReplacesTheTimer() {
+        DeadlineTimeline timeline = new DeadlineTimeline(LEAD);
+        timeline.schedule(1, 1000, 0);
+        timeline.schedule(1, 2000, 0);
+
+        assertEquals(1, timeline.size());
+        assertEquals(1900, timeline.nextAt());
+    }
+
+    @Test
+    void sameDueDateKeepsTheTimerSoNothingFiresTwice() {
+        DeadlineTimeline timeline = new DeadlineTimeline(LEAD);
+        timeline.schedule(1, 1000, 0);
+        timeline.poll(900);
+        timeline.schedule(1, 1000, 950);
+
+        // the overdue timer is still pending, the due soon timer is not repeated
+        assertEquals(List.of(new DeadlineTimeline.Timer(1000, 1, 1000, true)), timeline.poll(1000));
+    }
+
+    @Test
+    void cancelRemovesTheTimer() {
+        DeadlineTimeline timeline = new DeadlineTimeline(LEAD);
+        timeline.schedule(1, 1000, 0);
+        timeline.schedule(2, 2000, 0);
+        timeline.cancel(1);
+        timeline.cancel(3);
+
+        assertEquals(1, timeline.size());
+        assertEquals(1900, timeline.nextAt());
+        assertEquals(List.of(2L), timeline.poll(5000).stream().map(DeadlineTimeline.Timer::id).distinct().toList());
+    }
+}
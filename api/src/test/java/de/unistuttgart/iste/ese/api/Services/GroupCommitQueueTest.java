@@ -0,0 +1,172 @@
+package de.unistuttgart.iste.ese.api.Services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Grouping of concurrent requests and isolation of failed requests.
+ */
+class GroupCommitQueueTest {
+    private static final long DELAY = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final ExecutorService clients = Executors.newCachedThreadPool();
+    private final List<Integer> groupSizes = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch firstGroupStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstGroup = new CountDownLatch(1);
+    private GroupCommitQueue<Integer, Integer> queue;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        releaseFirstGroup.countDown();
+        if (queue != null) {
+            queue.stop();
+        }
+        clients.shutdownNow();
+    }
+
+    @Test
+    void singleRequestIsCommittedAlone() {
+        queue = new GroupCommitQueue<>("test-", 1, 10, DELAY, doubling());
+        releaseFirstGroup.countDown();
+
+        assertEquals(2, queue.submit(1));
+        assertEquals(6, queue.submit(3));
+        assertEquals(List.of(1, 1), groupSizes);
+    }
+
+    @Test
+    void requestsWaitingDuringACommitFormTheNextGroup() throws Exception {
+        queue = new GroupCommitQueue<>("test-", 1, 10, DELAY, doubling());
+        Future<Integer> first = clients.submit(() -> queue.submit(0));
+        assertTrue(firstGroupStarted.await(5, TimeUnit.SECONDS));
+
+        List<Future<Integer>> waiting = submitAll(1, 25);
+        awaitQueued(25);
+        releaseFirstGroup.countDown();
+
+        assertEquals(0, first.get(5, TimeUnit.SECONDS));
+        for (int i = 0; i < waiting.size(); i++) {
+            assertEquals(2 * (i + 1), waiting.get(i).get(5, TimeUnit.SECONDS));
+        }
+        // bounded by the maximum group size
+        assertEquals(List.of(1, 10, 10, 5), groupSizes);
+    }
+
+    @Test
+    void failedRequestsDoNotFailTheirGroup() throws Exception {
+        IllegalArgumentException odd = new IllegalArgumentException("odd");
+        queue = new GroupCommitQueue<>("test-", 1, 10, DELAY, blockingFirst(group -> group.forEach(request -> {
+            if (request.value() % 2 == 1) {
+                request.result().completeExceptionally(odd);
+            } else {
+                request.result().complete(request.value());
+            }
+        })));
+        Future<Integer> first = clients.submit(() -> queue.submit(0));
+        assertTrue(firstGroupStarted.await(5, TimeUnit.SECONDS));
+        List<Future<Integer>> waiting = submitAll(1, 6);
+        awaitQueued(6);
+        releaseFirstGroup.countDown();
+
+        assertEquals(0, first.get(5, TimeUnit.SECONDS));
+        for (int i = 0; i < waiting.size(); i++) {
+            Future<Integer> result = waiting.get(i);
+            if (i % 2 == 0) {
+                Exception e = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertSame(odd, e.getCause());
+            } else {
+                assertEquals(i + 1, result.get(5, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(List.of(1, 6), groupSizes);
+    }
+
+    @Test
+    void failingHandlerFailsOnlyItsGroup() {
+        IllegalStateException failure = new IllegalStateException("commit failed");
+        queue = new GroupCommitQueue<>("test-", 1, 10, DELAY, blockingFirst(group -> {
+            if (group.get(0).value() < 0) {
+                throw failure;
+            }
+            group.forEach(request -> request.result().complete(request.value()));
+        }));
+        releaseFirstGroup.countDown();
+
+        assertSame(failure, assertThrows(IllegalStateException.class, () -> queue.submit(-1)));
+        // the worker survives the failure
+        assertEquals(1, queue.submit(1));
+    }
+
+    @Test
+    void stopFailsQueuedRequests() throws Exception {
+        queue = new GroupCommitQueue<>("test-", 1, 10, DELAY, doubling());
+        clients.submit(() -> queue.submit(0));
+        assertTrue(firstGroupStarted.await(5, TimeUnit.SECONDS));
+        Future<Integer> waiting = clients.submit(() -> queue.submit(1));
+        awaitQueued(1);
+
+        // the first group never finishes, so the worker is interrupted
+        queue.stop();
+
+        Exception e = assertThrows(Exception.class, () -> waiting.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IllegalStateException, e.toString());
+    }
+
+    private Consumer<List<GroupCommitQueue.Request<Integer, Integer>>> doubling() {
+        return blockingFirst(group -> group.forEach(request -> request.result().complete(2 * request.value())));
+    }
+
+    /**
+     * Records the group sizes and holds the first group until the test releases it, so
+     * requests can queue up meanwhile.
+     */
+    private Consumer<List<GroupCommitQueue.Request<Integer, Integer>>> blockingFirst(
+        Consumer<List<GroupCommitQueue.Request<Integer, Integer>>> handler) {
+        return group -> {
+            groupSizes.add(group.size());
+            firstGroupStarted.countDown();
+            try {
+                releaseFirstGroup.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            handler.accept(group);
+        };
+    }
+
+    private List<Future<Integer>> submitAll(int from, int count) throws InterruptedException {
+        List<Future<Integer>> results = new ArrayList<>();
+        // one at a time, so they are queued in order
+        for (int value : IntStream.range(from, from + count).toArray()) {
+            int queued = queue.size();
+            results.add(clients.submit(() -> queue.submit(value)));
+            awaitQueued(queued + 1);
+        }
+        return results;
+    }
+
+    private void awaitQueued(int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (queue.size() < size) {
+            assertTrue(System.nanoTime() < deadline, "requests not queued");
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package de.unistuttgart.iste.ese.api.Services;
+
+import de.unistuttgart.iste.ese.api.DTOs.TodoBatchResultDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Creating todos in a batch with the categorization running in the background.
+ */
+@SpringBootTest(properties = "todo.categorization.mode=async")
+class ToDoServiceTest {
+    @Autowired
+    private ToDoService toDoService;
+
+    @Autowired
+    private CategorizationService categorizationService;
+
+    @Test
+    void batchCreateLeavesTheCategorizationToTheWorkers() throws InterruptedException {
+        List<TodoBatchResultDTO> results = toDoService.createToDos(List.of(
+            todo("Buy groceries"), todo(""), todo("Prepare the exam")));
+
+        assertEquals(List.of(201, 400, 201), results.stream().map(TodoBatchResultDTO::getStatus).toList());
+        for (TodoBatchResultDTO result : List.of(results.get(0), results.get(2))) {
+            assertEquals(CategorizationService.PENDING_CATEGORY, result.getTodo().getCategory());
+        }
+
+        assertTrue(categorizationService.awaitIdle(Duration.ofSeconds(10)));
+        for (TodoBatchResultDTO result : List.of(results.get(0), results.get(2))) {
+            assertNotEquals(CategorizationService.PENDING_CATEGORY,
+                toDoService.getToDoById(result.getTodo().getId()).getCategory());
+        }
+    }
+
+    private static TodoDTO todo(String title) {
+        TodoDTO todo = new TodoDTO();
+        todo.setTitle(title);
+        todo.setAssigneeIdList(new ArrayList<>());
+        return todo;
+    }
+}
@@ -0,0 +1,121 @@
+package de.unistuttgart.iste.ese.api.Services;
+
+import de.unistuttgart.iste.ese.api.DTOs.ChangeDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoDTO;
+import de.unistuttgart.iste.ese.api.DTOs.TodoPatchDTO;
+import de.unistuttgart.iste.ese.api.Models.ChangeLogEntry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the changes of single todos reach the change log, the revision counters,
+ * the search index, the statistics and the deadlines through the published event, and
+ * only once their transaction has committed.
+ */
+@SpringBootTest
+class TodoChangedEventTest {
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    @Autowired
+    private ToDoService toDoService;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private RevisionService revisionService;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private StatsService statsService;
+
+    @Autowired
+    private DeadlineService deadlineService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void createUpdateAndDeleteReachEveryListener() {
+        long revision = changeLogService.getStableRevision();
+        String etag = revisionService.getToDoListETag();
+        long total = statsService.getStats().getTotal();
+        int deadlines = deadlineService.getScheduledCount();
+
+        TodoDTO created = toDoService.createToDo(todo("Walk the zebrafish", System.currentTimeMillis() + DAY));
+        assertEquals(List.of(created.getId()), ids(searchService.search("zebrafish", null)));
+        assertEquals(total + 1, statsService.getStats().getTotal());
+        assertEquals(deadlines + 1, deadlineService.getScheduledCount());
+        assertNotEquals(etag, revisionService.getToDoListETag());
+        assertEquals(List.of(ChangeLogEntry.CREATED), operations(revision, created.getId()));
+
+        TodoPatchDTO patch = new TodoPatchDTO();
+        patch.setDescription(Optional.of("and feed the axolotl"));
+        patch.setFinished(true);
+        toDoService.patchToDo(created.getId(), patch, null);
+        assertEquals(List.of(created.getId()), ids(searchService.search("axolotl zebrafish", null)));
+        assertEquals(deadlines, deadlineService.getScheduledCount());
+
+        TodoDTO update = todo("Walk the okapi", System.currentTimeMillis() + DAY);
+        toDoService.updateToDo(created.getId(), update);
+        assertEquals(List.of(), ids(searchService.search("zebrafish", null)));
+        assertEquals(List.of(created.getId()), ids(searchService.search("okapi", null)));
+        assertEquals(deadlines + 1, deadlineService.getScheduledCount());
+
+        toDoService.deleteToDo(created.getId());
+        assertEquals(List.of(), ids(searchService.search("okapi", null)));
+        assertEquals(total, statsService.getStats().getTotal());
+        assertEquals(deadlines, deadlineService.getScheduledCount());
+        // collapsed into the latest change of the todo
+        assertEquals(List.of(ChangeLogEntry.DELETED), operations(revision, created.getId()));
+    }
+
+    @Test
+    void rolledBackChangesAreNotApplied() {
+        long revision = changeLogService.getStableRevision();
+        String etag = revisionService.getToDoListETag();
+        long total = statsService.getStats().getTotal();
+
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            toDoService.createToDo(todo("Feed the quokka", null));
+            throw new IllegalStateException("rollback");
+        }));
+
+        assertEquals(List.of(), ids(searchService.search("quokka", null)));
+        assertEquals(total, statsService.getStats().getTotal());
+        assertEquals(etag, revisionService.getToDoListETag());
+        assertEquals(revision, changeLogService.getStableRevision());
+    }
+
+    private static TodoDTO todo(String title, Long dueDate) {
+        TodoDTO todo = new TodoDTO();
+        todo.setTitle(title);
+        todo.setAssigneeIdList(new ArrayList<>());
+        todo.setDueDate(dueDate);
+        return todo;
+    }
+
+    private static List<Long> ids(List<TodoDTO> todos) {
+        return todos.stream().map(TodoDTO::getId).toList();
+    }
+
+    private List<String> operations(long since, long id) {
+        return changeLogService.getChanges(since, ChangeLogService.MAX_CHANGES).getChanges().stream()
+            .filter(change -> change.getId() == id)
+            .map(ChangeDTO::getOperation)
+            .toList();
+    }
+}
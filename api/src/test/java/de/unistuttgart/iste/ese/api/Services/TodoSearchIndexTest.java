@@ -0,0 +1,93 @@
+package de.unistuttgart.iste.ese.api.Services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Matching, ranking and maintenance of the in-memory search index.
+ */
+class TodoSearchIndexTest {
+
+    @Test
+    void findsTodosContainingAllTerms() {
+        TodoSearchIndex index = new TodoSearchIndex();
+        index.put(1, "Buy milk", "at the corner shop");
+        index.put(2, "Buy bread", null);
+        index.put(3, "Call mom", "about the milk");
+
+        assertEquals(List.of(1L), index.search("buy milk", 10));
+        assertEquals(List.of(2L), index.search("BREAD!", 10));
+        assertEquals(List.of(), index.search("buy cheese", 10));
+        assertEquals(List.of(), index.search("  ...  ", 10));
+    }
+
+    @Test
+    void ranksTitleMatchesFirst() {
+        TodoSearchIndex index = new TodoSearchIndex();
+        index.put(1, "Call mom", "and ask about the report");
+        index.put(2, "Report", "for the quarter");
+
+        assertEquals(List.of(2L, 1L), index.search("report", 10));
+    }
+
+    @Test
+    void ranksEqualScoresNewestFirstAndHonorsTheLimit() {
+        TodoSearchIndex index = new TodoSearchIndex();
+        for (long id = 1; id <= 5; id++) {
+            index.put(id, "Meeting", null);
+        }
+
+        assertEquals(List.of(5L, 4L, 3L), index.search("meeting", 3));
+        assertEquals(List.of(), index.search("meeting", 0));
+    }
+
+    @Test
+    void updatesReplaceThePreviousText() {
+        TodoSearchIndex index = new TodoSearchIndex();
+        index.put(1, "Buy milk", null);
+        index.put(1, "Buy bread", null);
+
+        assertEquals(List.of(), index.search("milk", 10));
+        assertEquals(List.of(1L), index.search("bread", 10));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void removedTodosAreNotFound() {
+        TodoSearchIndex index = new TodoSearchIndex();
+        index.put(1, "Buy milk", null);
+        index.put(2, "Buy bread", null);
+        index.remove(1);
+        index.remove(42);
+
+        assertEquals(List.of(2L), index.search("buy", 10));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void keepsResultsAcrossCompactions() {
+        TodoSearchIndex index = new TodoSearchIndex();
+        for (long id = 0; id < 3000; id++) {
+            index.put(id, "Task " + id, id % 2 == 0 ? "even" : "odd");
+        }
+        // enough updates and removals to compact the index several times
+        for (long id = 0; id < 3000; id += 2) {
+            index.put(id, "Task " + id, "even updated");
+        }
+        for (long id = 1; id < 3000; id += 4) {
+            index.remove(id);
+        }
+
+        assertEquals(2250, index.size());
+        assertEquals(List.of(1234L), index.search("task 1234", 10));
+        assertEquals(List.of(), index.search("task 1237", 10));
+        assertEquals(List.of(1235L), index.search("task 1235 odd", 10));
+        List<Long> even = index.search("even updated", 5000);
+        assertEquals(1500, even.size());
+        assertTrue(even.stream().allMatch(id -> id % 2 == 0));
+    }
+}